@@ -4,6 +4,7 @@
  */
 package advancejavaproject4;
 
+import advancejavaproject4.database.DatabaseConnection;
 import java.io.IOException;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -29,6 +30,12 @@ public class AdvanceJavaProject4 extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        // Release pooled MySQL sessions on exit
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
     /**
      * @param args the command line arguments
      */
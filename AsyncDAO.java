@@ -0,0 +1,297 @@
+package advancejavaproject4.database;
+
+import advancejavaproject4.model.Course;
+import advancejavaproject4.model.Enrollment;
+import advancejavaproject4.model.Student;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs DAO calls off the calling thread and returns CompletableFutures,
+ * so the JavaFX Application Thread never blocks on JDBC.
+ * Calls run on virtual threads when the JVM has them (Java 21+) and on
+ * a bounded pool of daemon threads otherwise. At most as many calls as
+ * the connection pool has connections run at once; the rest wait here
+ * instead of timing out in the pool, so large fan-outs are safe.
+ * Cancelling a returned future, or letting its timeout expire, cancels
+ * the statements the call has open on the server and interrupts the
+ * thread running it. An interrupt alone does not stop a driver blocked
+ * reading its socket, and the call would keep its connection.
+ * @author yigitt
+ */
+public class AsyncDAO {
+
+    /**
+     * A blocking DAO call
+     */
+    @FunctionalInterface
+    public interface DaoCall<T> {
+        T call() throws SQLException;
+    }
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+    private static final boolean VIRTUAL_THREADS = !(EXECUTOR instanceof ThreadPoolExecutor);
+
+    private final StudentDAO studentDAO;
+    private final CourseDAO courseDAO;
+    private final EnrollmentDAO enrollmentDAO;
+    private final Semaphore inFlight;
+
+    public AsyncDAO() {
+        this(new StudentDAO(), new CourseDAO(), new EnrollmentDAO());
+    }
+
+    public AsyncDAO(StudentDAO studentDAO, CourseDAO courseDAO, EnrollmentDAO enrollmentDAO) {
+        this.studentDAO = studentDAO;
+        this.courseDAO = courseDAO;
+        this.enrollmentDAO = enrollmentDAO;
+        this.inFlight = new Semaphore(DatabaseConnection.getInstance().getPool().getMaxSize(), true);
+    }
+
+    /**
+     * True if calls run on virtual threads
+     */
+    public static boolean isUsingVirtualThreads() {
+        return VIRTUAL_THREADS;
+    }
+
+    /**
+     * Runs the call in the background
+     */
+    public <T> CompletableFuture<T> submit(DaoCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CancelScope scope = new CancelScope();
+        Future<?> task = EXECUTOR.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            try {
+                result.complete(scope.run(call));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                inFlight.release();
+            }
+        });
+        // Cancelled or timed out: stop the call too
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                scope.cancel();
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the call in the background; the future fails with a
+     * TimeoutException and the call is cancelled if it takes longer
+     * than the timeout
+     */
+    public <T> CompletableFuture<T> submit(DaoCall<T> call, Duration timeout) {
+        return submit(call).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs independent calls at the same time. The result lists their
+     * values in order. If any call fails the others are cancelled and
+     * the result fails with the same error.
+     */
+    public <T> CompletableFuture<List<T>> submitAll(List<? extends DaoCall<T>> calls) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(calls.size());
+        for (DaoCall<T> call : calls) {
+            futures.add(submit(call));
+        }
+
+        CompletableFuture<List<T>> all = new CompletableFuture<>();
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, error) -> {
+                if (error != null) {
+                    all.completeExceptionally(unwrap(error));
+                }
+            });
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            List<T> values = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures) {
+                values.add(future.join());
+            }
+            all.complete(values);
+        });
+        all.whenComplete((values, error) -> {
+            if (error != null) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        });
+        return all;
+    }
+
+    // ---------------------------------------------------------------- students
+
+    public CompletableFuture<List<Student>> getAllStudents() {
+        return submit(studentDAO::getAllStudents);
+    }
+
+    public CompletableFuture<Student> getStudentById(int id) {
+        return submit(() -> studentDAO.getStudentById(id));
+    }
+
+    /**
+     * Looks the students up in parallel; ids that do not exist are left out
+     */
+    public CompletableFuture<Map<Integer, Student>> getStudentsByIds(Collection<Integer> ids) {
+        return lookupAll(ids, studentDAO::getStudentById);
+    }
+
+    public CompletableFuture<List<Student>> searchStudents(String keyword) {
+        return submit(() -> studentDAO.searchStudents(keyword));
+    }
+
+    public CompletableFuture<Boolean> addStudent(Student student) {
+        return submit(() -> studentDAO.addStudent(student));
+    }
+
+    public CompletableFuture<Boolean> updateStudent(Student student) {
+        return submit(() -> studentDAO.updateStudent(student));
+    }
+
+    public CompletableFuture<Boolean> deleteStudent(int id) {
+        return submit(() -> studentDAO.deleteStudent(id));
+    }
+
+    // ----------------------------------------------------------------- courses
+
+    public CompletableFuture<List<Course>> getAllCourses() {
+        return submit(courseDAO::getAllCourses);
+    }
+
+    public CompletableFuture<Course> getCourseById(int id) {
+        return submit(() -> courseDAO.getCourseById(id));
+    }
+
+    /**
+     * Looks the courses up in parallel; ids that do not exist are left out
+     */
+    public CompletableFuture<Map<Integer, Course>> getCoursesByIds(Collection<Integer> ids) {
+        return lookupAll(ids, courseDAO::getCourseById);
+    }
+
+    public CompletableFuture<List<Course>> searchCourses(String keyword) {
+        return submit(() -> courseDAO.searchCourses(keyword));
+    }
+
+    public CompletableFuture<Boolean> addCourse(Course course) {
+        return submit(() -> courseDAO.addCourse(course));
+    }
+
+    public CompletableFuture<Boolean> updateCourse(Course course) {
+        return submit(() -> courseDAO.updateCourse(course));
+    }
+
+    public CompletableFuture<Boolean> deleteCourse(int id) {
+        return submit(() -> courseDAO.deleteCourse(id));
+    }
+
+    // ------------------------------------------------------------- enrollments
+
+    public CompletableFuture<List<Enrollment>> getAllEnrollments() {
+        return submit(enrollmentDAO::getAllEnrollments);
+    }
+
+    public CompletableFuture<Enrollment> getEnrollmentById(int enrollmentId) {
+        return submit(() -> enrollmentDAO.getEnrollmentById(enrollmentId));
+    }
+
+    public CompletableFuture<List<Enrollment>> getEnrollmentsByStudent(int studentId) {
+        return submit(() -> enrollmentDAO.getEnrollmentsByStudent(studentId));
+    }
+
+    public CompletableFuture<List<Enrollment>> getEnrollmentsByCourse(int courseId) {
+        return submit(() -> enrollmentDAO.getEnrollmentsByCourse(courseId));
+    }
+
+    public CompletableFuture<Boolean> addEnrollment(Enrollment enrollment) {
+        return submit(() -> enrollmentDAO.addEnrollment(enrollment));
+    }
+
+    public CompletableFuture<Boolean> updateEnrollment(Enrollment enrollment) {
+        return submit(() -> enrollmentDAO.updateEnrollment(enrollment));
+    }
+
+    public CompletableFuture<Boolean> deleteEnrollment(int enrollmentId) {
+        return submit(() -> enrollmentDAO.deleteEnrollment(enrollmentId));
+    }
+
+    /**
+     * The SQLException or other failure behind a CompletionException
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    @FunctionalInterface
+    private interface Lookup<V> {
+        V find(int id) throws SQLException;
+    }
+
+    private <V> CompletableFuture<Map<Integer, V>> lookupAll(Collection<Integer> ids, Lookup<V> lookup) {
+        List<Integer> keys = new ArrayList<>(ids);
+        List<DaoCall<V>> calls = new ArrayList<>(keys.size());
+        for (Integer id : keys) {
+            calls.add(() -> lookup.find(id));
+        }
+        return submitAll(calls).thenApply(values -> {
+            Map<Integer, V> found = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (values.get(i) != null) {
+                    found.put(keys.get(i), values.get(i));
+                }
+            }
+            return found;
+        });
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            // Java 21+; looked up reflectively so the code still runs on older JDKs
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger();
+            int threads = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "dao-async-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package advancejavaproject4.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk insert or update: how many rows were written and
+ * which rows failed, with the reason for each
+ * @author yigitt
+ */
+public class BatchResult {
+
+    /**
+     * A row that could not be written
+     */
+    public static class RowFailure {
+        private final int index;
+        private final int errorCode;
+        private final String message;
+
+        public RowFailure(int index, int errorCode, String message) {
+            this.index = index;
+            this.errorCode = errorCode;
+            this.message = message;
+        }
+
+        /**
+         * Position of the row in the list passed to the DAO
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * MySQL error code, e.g. 1062 for a duplicate key; 0 when no row matched
+         */
+        public int getErrorCode() {
+            return errorCode;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Row " + index + ": " + message;
+        }
+    }
+
+    private int succeeded;
+    private final List<RowFailure> failures = new ArrayList<>();
+
+    void addSucceeded(int rows) {
+        succeeded += rows;
+    }
+
+    void addFailure(RowFailure failure) {
+        failures.add(failure);
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public List<RowFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "succeeded=" + succeeded +
+                ", failed=" + failures.size() +
+                '}';
+    }
+}
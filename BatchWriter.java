@@ -0,0 +1,180 @@
+package advancejavaproject4.database;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes many rows with JDBC batching inside a single transaction.
+ * Rows are sent in chunks; if a chunk fails, it is rolled back to its
+ * savepoint and replayed row by row so only the offending rows are
+ * reported and the rest are still written. Only errors caused by the row
+ * itself are reported that way; any other error (a deadlock, a lost
+ * connection) rolls back the whole call and is thrown.
+ * @author yigitt
+ */
+final class BatchWriter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    // MySQL errors caused by the data of one row: duplicate key, missing
+    // foreign key, value too long, bad value for the column
+    private static final int ER_DUP_ENTRY = 1062;
+    private static final int ER_NO_REFERENCED_ROW = 1452;
+    private static final int ER_DATA_TOO_LONG = 1406;
+    private static final int ER_TRUNCATED_WRONG_VALUE = 1366;
+
+    /**
+     * Binds one model object to the statement parameters
+     */
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement pstmt, T item) throws SQLException;
+    }
+
+    /**
+     * Writes a generated id back into the model object
+     */
+    @FunctionalInterface
+    interface KeySetter<T> {
+        void setKey(T item, int key);
+    }
+
+    private BatchWriter() {
+    }
+
+    /**
+     * @param keySetter receives generated keys for inserts; null for updates
+     * @param describe  turns a row's SQLException into a user-facing message
+     */
+    static <T> BatchResult execute(String sql, List<T> items, int chunkSize, Binder<T> binder,
+                                   KeySetter<T> keySetter, Function<SQLException, String> describe)
+            throws SQLException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        BatchResult result = new BatchResult();
+        if (items.isEmpty()) {
+            return result;
+        }
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = keySetter != null
+                    ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : conn.prepareStatement(sql)) {
+
+                for (int start = 0; start < items.size(); start += chunkSize) {
+                    int end = Math.min(start + chunkSize, items.size());
+                    writeChunk(conn, pstmt, items, start, end, binder, keySetter, describe, result);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        return result;
+    }
+
+    private static <T> void writeChunk(Connection conn, PreparedStatement pstmt, List<T> items,
+                                       int start, int end, Binder<T> binder, KeySetter<T> keySetter,
+                                       Function<SQLException, String> describe, BatchResult result)
+            throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+
+        for (int i = start; i < end; i++) {
+            binder.bind(pstmt, items.get(i));
+            pstmt.addBatch();
+        }
+
+        try {
+            int[] counts = pstmt.executeBatch();
+            if (keySetter != null) {
+                readKeys(pstmt, items, start, end, keySetter);
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    result.addFailure(new BatchResult.RowFailure(start + i, 0, "No matching row to update."));
+                } else {
+                    result.addSucceeded(1);
+                }
+            }
+            conn.releaseSavepoint(savepoint);
+        } catch (BatchUpdateException e) {
+            if (!isRowError(e)) {
+                throw e;
+            }
+            conn.rollback(savepoint);
+            pstmt.clearBatch();
+            writeRowByRow(pstmt, items, start, end, binder, keySetter, describe, result);
+        }
+    }
+
+    /**
+     * Replays a failed chunk one row at a time. A failing statement only
+     * rolls back itself, so the other rows of the chunk still go in.
+     */
+    private static <T> void writeRowByRow(PreparedStatement pstmt, List<T> items, int start, int end,
+                                          Binder<T> binder, KeySetter<T> keySetter,
+                                          Function<SQLException, String> describe, BatchResult result)
+            throws SQLException {
+        for (int i = start; i < end; i++) {
+            T item = items.get(i);
+            try {
+                binder.bind(pstmt, item);
+                int rowsAffected = pstmt.executeUpdate();
+                if (rowsAffected == 0) {
+                    result.addFailure(new BatchResult.RowFailure(i, 0, "No matching row to update."));
+                    continue;
+                }
+                if (keySetter != null) {
+                    readKeys(pstmt, items, i, i + 1, keySetter);
+                }
+                result.addSucceeded(1);
+            } catch (SQLException e) {
+                if (!isRowError(e)) {
+                    throw e;
+                }
+                result.addFailure(new BatchResult.RowFailure(i, e.getErrorCode(), describe.apply(e)));
+            }
+        }
+    }
+
+    /**
+     * True if the error rejects just this row and leaves the transaction
+     * usable; SQLState classes 22 (data exception) and 23 (integrity
+     * constraint violation) cover the same for other databases
+     */
+    static boolean isRowError(SQLException e) {
+        switch (e.getErrorCode()) {
+            case ER_DUP_ENTRY:
+            case ER_NO_REFERENCED_ROW:
+            case ER_DATA_TOO_LONG:
+            case ER_TRUNCATED_WRONG_VALUE:
+                return true;
+            default:
+                String sqlState = e.getSQLState();
+                return sqlState != null && (sqlState.startsWith("22") || sqlState.startsWith("23"));
+        }
+    }
+
+    private static <T> void readKeys(PreparedStatement pstmt, List<T> items, int start, int end,
+                                     KeySetter<T> keySetter) throws SQLException {
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            int i = start;
+            while (i < end && keys.next()) {
+                keySetter.setKey(items.get(i++), keys.getInt(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package advancejavaproject4.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * The statements one background DAO call has open, so the call can be
+ * stopped on the server. Interrupting the thread does not stop a driver
+ * blocked reading its socket; Statement.cancel() does.
+ * Connections borrowed on a thread running inside a scope register the
+ * statements they create with it, and take them out again when they are
+ * returned, so a cancel never reaches a statement another call now uses.
+ * @author yigitt
+ */
+final class CancelScope {
+
+    private static final ThreadLocal<CancelScope> CURRENT = new ThreadLocal<>();
+
+    private final Set<Statement> statements = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean cancelled;
+
+    /**
+     * The scope of the call running on this thread, or null
+     */
+    static CancelScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the call on this thread with this scope as the current one
+     */
+    <T> T run(AsyncDAO.DaoCall<T> call) throws SQLException {
+        CURRENT.set(this);
+        try {
+            return call.call();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws SQLException if the call has been cancelled, so it does not
+     *                      start another statement
+     */
+    synchronized void add(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw cancelledException();
+        }
+        statements.add(statement);
+    }
+
+    synchronized void removeAll(Collection<Statement> closed) {
+        statements.removeAll(closed);
+    }
+
+    /**
+     * Cancels the open statements on another thread, since the driver may
+     * need a round trip to the server for it
+     */
+    void cancel() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (statements.isEmpty()) {
+                return;
+            }
+        }
+        Thread thread = new Thread(this::cancelStatements, "dao-cancel");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private synchronized void cancelStatements() {
+        for (Statement statement : new ArrayList<>(statements)) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Already closed or finished; nothing left to stop
+            }
+        }
+    }
+
+    static SQLException cancelledException() {
+        // 57014: query cancelled
+        return new SQLException("The call was cancelled", "57014");
+    }
+}
@@ -0,0 +1,410 @@
+package advancejavaproject4.database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column-oriented store for the rows of an ad-hoc query. Each column is
+ * kept in a form chosen from its JDBC type: whole numbers and dates in
+ * int[] or long[], floating point numbers in double[], and everything
+ * else as int codes into a dictionary of its distinct strings. NULLs are
+ * kept in a bitmap per column. A cell costs a few bytes instead of a
+ * String, and sorting compares the stored values by their type.
+ * One thread may append rows while others read and sort the rows already
+ * added; all access is synchronized.
+ * @author yigitt
+ */
+public final class ColumnarResult {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final String NULL_TEXT = "NULL";
+
+    private static final Comparator<String> TEXT_ORDER = Comparator.naturalOrder();
+    private static final Comparator<String> NUMERIC_ORDER = Comparator.comparing(BigDecimal::new);
+
+    private final String[] names;
+    private final Column[] columns;
+    private int rowCount;
+    private boolean finished;
+
+    private ColumnarResult(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        names = new String[columnCount];
+        columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = metaData.getColumnLabel(i + 1);
+            columns[i] = columnFor(metaData, i + 1);
+        }
+    }
+
+    /**
+     * Creates an empty result with the columns of the given ResultSet
+     */
+    public static ColumnarResult forResultSet(ResultSet rs) throws SQLException {
+        return new ColumnarResult(rs.getMetaData());
+    }
+
+    private static Column columnFor(ResultSetMetaData metaData, int index) throws SQLException {
+        switch (metaData.getColumnType(index)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return new IntColumn();
+            case Types.INTEGER:
+                // INT UNSIGNED goes past Integer.MAX_VALUE
+                return metaData.isSigned(index) ? new IntColumn() : new LongColumn();
+            case Types.BIGINT:
+                return metaData.isSigned(index) ? new LongColumn() : new StringColumn(NUMERIC_ORDER);
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn();
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                // Kept as text so no digits are lost, but sorted as numbers
+                return new StringColumn(NUMERIC_ORDER);
+            case Types.DATE:
+                return new DateColumn();
+            default:
+                return new StringColumn(TEXT_ORDER);
+        }
+    }
+
+    /**
+     * Reads the current row of the ResultSet into the result
+     */
+    public synchronized void appendRow(ResultSet rs) throws SQLException {
+        if (finished) {
+            throw new IllegalStateException("Result is already finished");
+        }
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].read(rs, i + 1, rowCount);
+        }
+        rowCount++;
+    }
+
+    /**
+     * Marks the result complete and drops the lookup tables that are only
+     * needed while rows are being added
+     */
+    public synchronized void finish() {
+        finished = true;
+        for (Column column : columns) {
+            column.finish(rowCount);
+        }
+    }
+
+    public synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * The typed value of a cell (Integer, Long, Double, LocalDate or
+     * String), or null for NULL
+     */
+    public synchronized Object getValue(int row, int column) {
+        Column col = columns[column];
+        return col.nulls.get(row) ? null : col.value(row);
+    }
+
+    /**
+     * The cell as display text
+     */
+    public synchronized String getText(int row, int column) {
+        Object value = getValue(row, column);
+        return value != null ? value.toString() : NULL_TEXT;
+    }
+
+    /**
+     * Sorts the first count row numbers in rows by the given columns, in
+     * order of priority. NULLs come first ascending and last descending,
+     * as in MySQL. The sort is stable.
+     */
+    public synchronized void sortRows(int[] rows, int count, int[] sortColumns, boolean[] ascending) {
+        for (int column : sortColumns) {
+            columns[column].prepareSort();
+        }
+        RowComparator comparator = (a, b) -> {
+            for (int i = 0; i < sortColumns.length; i++) {
+                Column column = columns[sortColumns[i]];
+                boolean aNull = column.nulls.get(a);
+                boolean bNull = column.nulls.get(b);
+                int result = aNull || bNull ? Boolean.compare(!aNull, !bNull) : column.compare(a, b);
+                if (result != 0) {
+                    return ascending[i] ? result : -result;
+                }
+            }
+            return 0;
+        };
+        mergeSort(rows, new int[count], 0, count, comparator);
+    }
+
+    /**
+     * Compares two row numbers
+     */
+    @FunctionalInterface
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Stable sort of int[] without boxing the row numbers
+     */
+    private static void mergeSort(int[] rows, int[] scratch, int from, int to, RowComparator comparator) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(rows, scratch, from, mid, comparator);
+        mergeSort(rows, scratch, mid, to, comparator);
+        if (comparator.compare(rows[mid - 1], rows[mid]) <= 0) {
+            // Already in order
+            return;
+        }
+        System.arraycopy(rows, from, scratch, from, to - from);
+        int left = from;
+        int right = mid;
+        int out = from;
+        while (left < mid && right < to) {
+            rows[out++] = comparator.compare(scratch[right], scratch[left]) < 0 ? scratch[right++] : scratch[left++];
+        }
+        while (left < mid) {
+            rows[out++] = scratch[left++];
+        }
+        while (right < to) {
+            rows[out++] = scratch[right++];
+        }
+    }
+
+    /**
+     * Storage for one column. Values of NULL cells are left unset.
+     */
+    private abstract static class Column {
+        final BitSet nulls = new BitSet();
+
+        abstract void read(ResultSet rs, int index, int row) throws SQLException;
+
+        /**
+         * Value of a non-NULL cell
+         */
+        abstract Object value(int row);
+
+        /**
+         * Compares two non-NULL cells
+         */
+        abstract int compare(int a, int b);
+
+        void prepareSort() {
+        }
+
+        /**
+         * Called once the last of size rows has been added
+         */
+        void finish(int size) {
+        }
+    }
+
+    private static class IntColumn extends Column {
+        int[] values = new int[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            int value = rs.getInt(index);
+            store(row, value, rs.wasNull());
+        }
+
+        void store(int row, int value, boolean isNull) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (isNull) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        int compare(int a, int b) {
+            return Integer.compare(values[a], values[b]);
+        }
+
+        @Override
+        void finish(int size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Dates as days since 1970-01-01
+     */
+    private static final class DateColumn extends IntColumn {
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            LocalDate date = rs.getObject(index, LocalDate.class);
+            store(row, date != null ? (int) date.toEpochDay() : 0, date == null);
+        }
+
+        @Override
+        Object value(int row) {
+            return LocalDate.ofEpochDay(values[row]);
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            long value = rs.getLong(index);
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (rs.wasNull()) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        int compare(int a, int b) {
+            return Long.compare(values[a], values[b]);
+        }
+
+        @Override
+        void finish(int size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            double value = rs.getDouble(index);
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (rs.wasNull()) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        int compare(int a, int b) {
+            return Double.compare(values[a], values[b]);
+        }
+
+        @Override
+        void finish(int size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Dictionary-encoded strings: each cell is the code of its value in a
+     * list of the column's distinct values
+     */
+    private static final class StringColumn extends Column {
+        private final Comparator<String> order;
+        private final ArrayList<String> dictionary = new ArrayList<>();
+        private Map<String, Integer> codesByValue = new HashMap<>();
+        private int[] codes = new int[INITIAL_CAPACITY];
+        // Sort position of each code, rebuilt once new values arrive
+        private int[] ranks = new int[0];
+
+        StringColumn(Comparator<String> order) {
+            this.order = order;
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            String value = rs.getString(index);
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, row * 2);
+            }
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            Integer code = codesByValue.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                codesByValue.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        Object value(int row) {
+            return dictionary.get(codes[row]);
+        }
+
+        @Override
+        void prepareSort() {
+            if (ranks.length == dictionary.size()) {
+                return;
+            }
+            int size = dictionary.size();
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = i;
+            }
+            mergeSort(sorted, new int[size], 0, size,
+                    (a, b) -> order.compare(dictionary.get(a), dictionary.get(b)));
+            ranks = new int[size];
+            for (int i = 0; i < size; i++) {
+                ranks[sorted[i]] = i;
+            }
+        }
+
+        @Override
+        int compare(int a, int b) {
+            return Integer.compare(ranks[codes[a]], ranks[codes[b]]);
+        }
+
+        @Override
+        void finish(int size) {
+            codes = Arrays.copyOf(codes, size);
+            codesByValue = null;
+            dictionary.trimToSize();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package advancejavaproject4.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe pool of physical JDBC connections.
+ * Connections are handed out as proxies whose close() returns the
+ * physical connection to the pool instead of closing it, so the DAOs
+ * can keep using try-with-resources unchanged. Each physical connection
+ * also keeps a {@link StatementCache} of its prepared statements.
+ * Statements created for a call run through AsyncDAO are registered with
+ * its {@link CancelScope}, so cancelling the call cancels them.
+ * @author yigitt
+ */
+public class ConnectionPool {
+
+    /**
+     * Opens a new physical connection for the pool
+     */
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long maxWaitMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    // Bumped by clear(); connections opened before that are not reused
+    private final AtomicInteger generation = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+
+    // Pool metrics
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final StatementCache.Stats statementStats = new StatementCache.Stats();
+
+    public ConnectionPool(ConnectionFactory factory, int maxSize, int minIdle,
+                          long idleTimeoutMillis, long maxWaitMillis, long validationIntervalMillis,
+                          int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured time if every
+     * connection is in use. Closing the returned connection gives it back.
+     */
+    public Connection borrow() throws SQLException {
+        CancelScope scope = CancelScope.current();
+        if (scope != null && scope.isCancelled()) {
+            throw CancelScope.cancelledException();
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLException("Timed out after " + maxWaitMillis +
+                        " ms waiting for a free database connection (pool size " + maxSize + ")", "08001");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", "08001", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isStale(pooled)) {
+                    destroy(pooled);
+                    continue;
+                }
+                if (validate(pooled)) {
+                    break;
+                }
+                validationFailures.increment();
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = new PooledConnection(factory.create());
+                totalConnections.incrementAndGet();
+                createdCount.increment();
+            }
+            return pooled.newHandle(scope);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection. Connections that are still borrowed
+     * are closed when they are returned. The pool itself stays usable.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private boolean isStale(PooledConnection pooled) {
+        return pooled.generation != generation.get();
+    }
+
+    private boolean validate(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            // Only ping connections that have been idle for a while; a
+            // connection returned moments ago is known to be good
+            if (System.currentTimeMillis() - pooled.lastUsed > validationIntervalMillis) {
+                return pooled.physical.isValid(2);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            if (pooled.broken || isStale(pooled) || pooled.physical.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            // Leave no transaction behind for the next borrower
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        if (pooled.statements != null) {
+            pooled.statements.closeAll();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : idle) {
+            if (idle.size() <= minIdle) {
+                break;
+            }
+            if (now - pooled.lastUsed > idleTimeoutMillis && idle.remove(pooled)) {
+                evictedCount.increment();
+                destroy(pooled);
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.increment();
+        borrowWaitNanos.add(nanos);
+        maxBorrowWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public double getAverageBorrowWaitMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0.0 : borrowWaitNanos.sum() / (count * 1_000_000.0);
+    }
+
+    public double getMaxBorrowWaitMillis() {
+        return maxBorrowWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailures.sum();
+    }
+
+    public StatementCache.Stats getStatementCacheStats() {
+        return statementStats;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", total=" + getTotalCount() +
+                ", max=" + maxSize +
+                ", borrows=" + getBorrowCount() +
+                ", avgWaitMs=" + String.format("%.3f", getAverageBorrowWaitMillis()) +
+                ", maxWaitMs=" + String.format("%.3f", getMaxBorrowWaitMillis()) +
+                ", timeouts=" + getTimeoutCount() +
+                ", " + statementStats +
+                '}';
+    }
+
+    /**
+     * A physical connection owned by the pool
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        final int generation = ConnectionPool.this.generation.get();
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile boolean broken;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementStats)
+                    : null;
+        }
+
+        Connection newHandle(CancelScope scope) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this, scope));
+        }
+    }
+
+    /**
+     * Borrowed view of a pooled connection. Each borrow gets its own handle
+     * so a stale reference cannot close a connection someone else now holds.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Cancel scope of the borrowing call and the statements registered with it
+        private final CancelScope scope;
+        private final List<Statement> statements = new ArrayList<>();
+
+        Handle(PooledConnection pooled, CancelScope scope) {
+            this.pooled = pooled;
+            this.scope = scope;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        if (scope != null) {
+                            scope.removeAll(statements);
+                        }
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+
+            if (closed.get()) {
+                throw new SQLException("Connection has already been returned to the pool", "08003");
+            }
+
+            if (pooled.statements != null && isCacheablePrepare(method)) {
+                int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return track(pooled.statements.prepare((Connection) proxy, (String) args[0], keys));
+            }
+
+            try {
+                Object result = method.invoke(pooled.physical, args);
+                return result instanceof Statement ? track((Statement) result) : result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String sqlState = ((SQLException) cause).getSQLState();
+                    // Connection-level failures (class 08) mean the socket is gone
+                    if (sqlState != null && sqlState.startsWith("08")) {
+                        pooled.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+
+        /**
+         * Registers a new statement with the borrowing call's cancel scope
+         */
+        private Statement track(Statement statement) throws SQLException {
+            if (scope == null) {
+                return statement;
+            }
+            try {
+                scope.add(statement);
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+            statements.add(statement);
+            return statement;
+        }
+
+        /**
+         * prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys)
+         */
+        private boolean isCacheablePrepare(Method method) {
+            if (!method.getName().equals("prepareStatement")) {
+                return false;
+            }
+            Class<?>[] params = method.getParameterTypes();
+            return params.length == 1 || (params.length == 2 && params[1] == int.class);
+        }
+    }
+}
@@ -7,20 +7,22 @@ import javafx.beans.property.*;
  * @author yigitt
  */
 public class Course {
-    private final IntegerProperty courseId;
-    private final StringProperty courseCode;
-    private final StringProperty courseName;
-    private final IntegerProperty credits;
-    private final StringProperty department;
-    private final StringProperty description;
+    private int courseId;
+    private String courseCode;
+    private String courseName;
+    private int credits;
+    private String department;
+    private String description;
+
+    // Created on first use by xxxProperty(); most rows never need them
+    private IntegerProperty courseIdProperty;
+    private StringProperty courseCodeProperty;
+    private StringProperty courseNameProperty;
+    private IntegerProperty creditsProperty;
+    private StringProperty departmentProperty;
+    private StringProperty descriptionProperty;
 
     public Course() {
-        this.courseId = new SimpleIntegerProperty();
-        this.courseCode = new SimpleStringProperty();
-        this.courseName = new SimpleStringProperty();
-        this.credits = new SimpleIntegerProperty();
-        this.department = new SimpleStringProperty();
-        this.description = new SimpleStringProperty();
     }
 
   
@@ -35,77 +37,127 @@ public class Course {
         setDescription(description);
     }
 
+    /**
+     * Copy constructor; the copy shares no properties with the original
+     */
+    public Course(Course other) {
+        this(other.getCourseId(), other.getCourseCode(), other.getCourseName(),
+                other.getCredits(), other.getDepartment(), other.getDescription());
+    }
+
     public IntegerProperty courseIdProperty() {
-        return courseId;
+        if (courseIdProperty == null) {
+            courseIdProperty = new SimpleIntegerProperty(this, "courseId", courseId);
+        }
+        return courseIdProperty;
     }
 
     public int getCourseId() {
-        return courseId.get();
+        return courseIdProperty == null ? courseId : courseIdProperty.get();
     }
 
     public void setCourseId(int courseId) {
-        this.courseId.set(courseId);
+        if (courseIdProperty == null) {
+            this.courseId = courseId;
+        } else {
+            courseIdProperty.set(courseId);
+        }
     }
 
     // Course Code
     public StringProperty courseCodeProperty() {
-        return courseCode;
+        if (courseCodeProperty == null) {
+            courseCodeProperty = new SimpleStringProperty(this, "courseCode", courseCode);
+        }
+        return courseCodeProperty;
     }
 
     public String getCourseCode() {
-        return courseCode.get();
+        return courseCodeProperty == null ? courseCode : courseCodeProperty.get();
     }
 
     public void setCourseCode(String courseCode) {
-        this.courseCode.set(courseCode);
+        if (courseCodeProperty == null) {
+            this.courseCode = courseCode;
+        } else {
+            courseCodeProperty.set(courseCode);
+        }
     }
 
     public StringProperty courseNameProperty() {
-        return courseName;
+        if (courseNameProperty == null) {
+            courseNameProperty = new SimpleStringProperty(this, "courseName", courseName);
+        }
+        return courseNameProperty;
     }
 
     public String getCourseName() {
-        return courseName.get();
+        return courseNameProperty == null ? courseName : courseNameProperty.get();
     }
 
     public void setCourseName(String courseName) {
-        this.courseName.set(courseName);
+        if (courseNameProperty == null) {
+            this.courseName = courseName;
+        } else {
+            courseNameProperty.set(courseName);
+        }
     }
 
     public IntegerProperty creditsProperty() {
-        return credits;
+        if (creditsProperty == null) {
+            creditsProperty = new SimpleIntegerProperty(this, "credits", credits);
+        }
+        return creditsProperty;
     }
 
     public int getCredits() {
-        return credits.get();
+        return creditsProperty == null ? credits : creditsProperty.get();
     }
 
     public void setCredits(int credits) {
-        this.credits.set(credits);
+        if (creditsProperty == null) {
+            this.credits = credits;
+        } else {
+            creditsProperty.set(credits);
+        }
     }
 
     public StringProperty departmentProperty() {
-        return department;
+        if (departmentProperty == null) {
+            departmentProperty = new SimpleStringProperty(this, "department", department);
+        }
+        return departmentProperty;
     }
 
     public String getDepartment() {
-        return department.get();
+        return departmentProperty == null ? department : departmentProperty.get();
     }
 
     public void setDepartment(String department) {
-        this.department.set(department);
+        if (departmentProperty == null) {
+            this.department = department;
+        } else {
+            departmentProperty.set(department);
+        }
     }
 
     public StringProperty descriptionProperty() {
-        return description;
+        if (descriptionProperty == null) {
+            descriptionProperty = new SimpleStringProperty(this, "description", description);
+        }
+        return descriptionProperty;
     }
 
     public String getDescription() {
-        return description.get();
+        return descriptionProperty == null ? description : descriptionProperty.get();
     }
 
     public void setDescription(String description) {
-        this.description.set(description);
+        if (descriptionProperty == null) {
+            this.description = description;
+        } else {
+            descriptionProperty.set(description);
+        }
     }
 
     @Override
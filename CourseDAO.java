@@ -1,45 +1,105 @@
 package advancejavaproject4.database;
 
 import advancejavaproject4.model.Course;
+import advancejavaproject4.database.KeysetQuery.SortKey;
+import advancejavaproject4.database.KeysetQuery.ValueType;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 
 public class CourseDAO {
 
+    private static final String INSERT_SQL = "INSERT INTO courses (course_code, course_name, credits, department, description) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL = "UPDATE courses SET course_code = ?, course_name = ?, credits = ?, " +
+            "department = ?, description = ? WHERE course_id = ?";
+
+    private static final String DUPLICATE_CODE_MESSAGE = "Duplicate course code. Course code must be unique.";
+
+    // Largest IN list used by the id lookups
+    private static final int LOOKUP_SLICE_SIZE = 500;
+
+    // Courses by id, shared by every CourseDAO. Courses change rarely,
+    // so they are kept longer than students.
+    private static final EntityCache<Integer, Course> CACHE = new EntityCache<>("courses",
+            Integer.getInteger("unitrack.cache.courses.maxSize", 5_000),
+            Long.getLong("unitrack.cache.courses.ttlMs", 3_600_000L),
+            Course::new);
+
+    /**
+     * Metrics of each operation, see DaoMetrics
+     */
+    private static final class Metrics {
+        static final OperationMetrics GET_ALL = DaoMetrics.operation("CourseDAO.getAllCourses");
+        static final OperationMetrics GET_BY_ID = DaoMetrics.operation("CourseDAO.getCourseById");
+        static final OperationMetrics ADD = DaoMetrics.operation("CourseDAO.addCourse");
+        static final OperationMetrics UPDATE = DaoMetrics.operation("CourseDAO.updateCourse");
+        static final OperationMetrics ADD_BATCH = DaoMetrics.operation("CourseDAO.addCourses");
+        static final OperationMetrics UPDATE_BATCH = DaoMetrics.operation("CourseDAO.updateCourses");
+        static final OperationMetrics DELETE = DaoMetrics.operation("CourseDAO.deleteCourse");
+        static final OperationMetrics SEARCH = DaoMetrics.operation("CourseDAO.searchCourses");
+        static final OperationMetrics PAGE = DaoMetrics.operation("CourseDAO.getCoursesPage");
+        static final OperationMetrics COUNT = DaoMetrics.operation("CourseDAO.countCourses");
+        static final OperationMetrics STREAM_ALL = DaoMetrics.operation("CourseDAO.streamAllCourses");
+        static final OperationMetrics STREAM_FILTERED = DaoMetrics.operation("CourseDAO.streamCourses");
+        static final OperationMetrics FIND_IDS = DaoMetrics.operation("CourseDAO.findIdsByCode");
+    }
+
+    // Properties the paged listing can sort by, mapped to their columns
+    private static final Map<String, SortKey<Course>> SORT_KEYS = new LinkedHashMap<>();
+
+    static {
+        SORT_KEYS.put("courseId", new SortKey<>("course_id", ValueType.INT, Course::getCourseId));
+        SORT_KEYS.put("courseCode", new SortKey<>("course_code", ValueType.STRING, Course::getCourseCode));
+        SORT_KEYS.put("courseName", new SortKey<>("course_name", ValueType.STRING, Course::getCourseName));
+        SORT_KEYS.put("credits", new SortKey<>("credits", ValueType.INT, Course::getCredits));
+        SORT_KEYS.put("department", new SortKey<>("department", ValueType.STRING, Course::getDepartment));
+    }
+
 
     public List<Course> getAllCourses() throws SQLException {
-        List<Course> courses = new ArrayList<>();
+        DaoCallEvent call = Metrics.GET_ALL.begin();
+        List<Course> courses;
         String sql = "SELECT * FROM courses ORDER BY course_id";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
-            while (rs.next()) {
-                Course course = new Course();
-                course.setCourseId(rs.getInt("course_id"));
-                course.setCourseCode(rs.getString("course_code"));
-                course.setCourseName(rs.getString("course_name"));
-                course.setCredits(rs.getInt("credits"));
-                course.setDepartment(rs.getString("department"));
-                course.setDescription(rs.getString("description"));
-
-                courses.add(course);
-            }
+            courses = RowMapper.mapAll(rs, CourseRowMapper.forResultSet(rs));
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error fetching all courses: " + e.getMessage());
             throw e;
         }
 
+        call.succeeded(courses.size());
         return courses;
     }
 
 
+    /**
+     * Served from the course cache when possible. The returned object is
+     * a private copy and may be modified freely.
+     */
     public Course getCourseById(int id) throws SQLException {
+        DaoCallEvent call = Metrics.GET_BY_ID.begin();
+        Course course = CACHE.get(id);
+        if (course != null) {
+            call.succeeded(1);
+            return course;
+        }
+
         String sql = "SELECT * FROM courses WHERE course_id = ?";
-        Course course = null;
+        long loadStamp = CACHE.beginLoad();
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -48,43 +108,43 @@ public class CourseDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    course = new Course();
-                    course.setCourseId(rs.getInt("course_id"));
-                    course.setCourseCode(rs.getString("course_code"));
-                    course.setCourseName(rs.getString("course_name"));
-                    course.setCredits(rs.getInt("credits"));
-                    course.setDepartment(rs.getString("department"));
-                    course.setDescription(rs.getString("description"));
+                    course = CourseRowMapper.forResultSet(rs).mapRow(rs);
                 }
             }
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error fetching course by ID: " + e.getMessage());
             throw e;
         }
 
+        CACHE.put(id, course, loadStamp);
+        call.succeeded(course != null ? 1 : 0);
         return course;
     }
 
  
     public boolean addCourse(Course course) throws SQLException {
-        String sql = "INSERT INTO courses (course_code, course_name, credits, department, description) " +
-                     "VALUES (?, ?, ?, ?, ?)";
-
+        DaoCallEvent call = Metrics.ADD.begin();
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, course.getCourseCode());
-            pstmt.setString(2, course.getCourseName());
-            pstmt.setInt(3, course.getCredits());
-            pstmt.setString(4, course.getDepartment());
-            pstmt.setString(5, course.getDescription());
+            bindCourse(pstmt, course);
 
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        course.setCourseId(keys.getInt(1));
+                    }
+                }
+            }
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             if (e.getErrorCode() == 1062) {
-                throw new SQLException("Duplicate course code. Course code must be unique.", e);
+                throw new SQLException(DUPLICATE_CODE_MESSAGE, e);
             }
             System.err.println("Error adding course: " + e.getMessage());
             throw e;
@@ -92,32 +152,107 @@ public class CourseDAO {
     }
 
     public boolean updateCourse(Course course) throws SQLException {
-        String sql = "UPDATE courses SET course_code = ?, course_name = ?, credits = ?, " +
-                     "department = ?, description = ? WHERE course_id = ?";
-
+        DaoCallEvent call = Metrics.UPDATE.begin();
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            pstmt.setString(1, course.getCourseCode());
-            pstmt.setString(2, course.getCourseName());
-            pstmt.setInt(3, course.getCredits());
-            pstmt.setString(4, course.getDepartment());
-            pstmt.setString(5, course.getDescription());
+            bindCourse(pstmt, course);
             pstmt.setInt(6, course.getCourseId());
 
             int rowsAffected = pstmt.executeUpdate();
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             if (e.getErrorCode() == 1062) {
-                throw new SQLException("Duplicate course code. Course code must be unique.", e);
+                throw new SQLException(DUPLICATE_CODE_MESSAGE, e);
             }
             System.err.println("Error updating course: " + e.getMessage());
             throw e;
+        } finally {
+            CACHE.invalidate(course.getCourseId());
+            NameDictionary.courses().invalidate(course.getCourseId());
+        }
+    }
+
+    /**
+     * Inserts many courses in one transaction using JDBC batches.
+     * Generated ids are written back into the Course objects; rows that
+     * fail (e.g. duplicate course code) are reported in the result and skipped.
+     */
+    public BatchResult addCourses(List<Course> courses) throws SQLException {
+        return addCourses(courses, BatchWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchResult addCourses(List<Course> courses, int chunkSize) throws SQLException {
+        DaoCallEvent call = Metrics.ADD_BATCH.begin();
+        try {
+            BatchResult result = BatchWriter.execute(INSERT_SQL, courses, chunkSize, CourseDAO::bindCourse,
+                    Course::setCourseId, CourseDAO::describeWriteError);
+            call.succeeded(result.getSucceeded());
+            return result;
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error adding courses: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Updates many courses in one transaction using JDBC batches
+     */
+    public BatchResult updateCourses(List<Course> courses) throws SQLException {
+        return updateCourses(courses, BatchWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchResult updateCourses(List<Course> courses, int chunkSize) throws SQLException {
+        DaoCallEvent call = Metrics.UPDATE_BATCH.begin();
+        try {
+            BatchResult result = BatchWriter.execute(UPDATE_SQL, courses, chunkSize, (pstmt, course) -> {
+                bindCourse(pstmt, course);
+                pstmt.setInt(6, course.getCourseId());
+            }, null, CourseDAO::describeWriteError);
+            call.succeeded(result.getSucceeded());
+            return result;
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error updating courses: " + e.getMessage());
+            throw e;
+        } finally {
+            invalidateAll(courses);
         }
     }
 
+    private static void invalidateAll(List<Course> courses) {
+        List<Integer> ids = new ArrayList<>(courses.size());
+        for (Course course : courses) {
+            ids.add(course.getCourseId());
+        }
+        CACHE.invalidateAll(ids);
+        NameDictionary.courses().invalidateAll(ids);
+    }
+
+    /**
+     * Binds the five column values shared by INSERT_SQL and UPDATE_SQL
+     */
+    private static void bindCourse(PreparedStatement pstmt, Course course) throws SQLException {
+        pstmt.setString(1, course.getCourseCode());
+        pstmt.setString(2, course.getCourseName());
+        pstmt.setInt(3, course.getCredits());
+        pstmt.setString(4, course.getDepartment());
+        pstmt.setString(5, course.getDescription());
+    }
+
+    private static String describeWriteError(SQLException e) {
+        if (e.getErrorCode() == 1062) {
+            return DUPLICATE_CODE_MESSAGE;
+        }
+        return e.getMessage();
+    }
+
     public boolean deleteCourse(int id) throws SQLException {
+        DaoCallEvent call = Metrics.DELETE.begin();
         String sql = "DELETE FROM courses WHERE course_id = ?";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -126,9 +261,11 @@ public class CourseDAO {
             pstmt.setInt(1, id);
 
             int rowsAffected = pstmt.executeUpdate();
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             // Check for foreign key constraint violation
             if (e.getErrorCode() == 1451) {
                 throw new SQLException("Cannot delete course with active enrollments. " +
@@ -136,12 +273,23 @@ public class CourseDAO {
             }
             System.err.println("Error deleting course: " + e.getMessage());
             throw e;
+        } finally {
+            CACHE.invalidate(id);
+            NameDictionary.courses().invalidate(id);
         }
     }
 
+    /**
+     * Statistics of the shared course cache
+     */
+    public static EntityCache<Integer, Course> getCache() {
+        return CACHE;
+    }
+
 
     public List<Course> searchCourses(String keyword) throws SQLException {
-        List<Course> courses = new ArrayList<>();
+        DaoCallEvent call = Metrics.SEARCH.begin();
+        List<Course> courses;
         String sql = "SELECT * FROM courses WHERE course_code LIKE ? OR course_name LIKE ? " +
                      "OR department LIKE ? ORDER BY course_id";
 
@@ -154,23 +302,180 @@ public class CourseDAO {
             pstmt.setString(3, searchPattern);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Course course = new Course();
-                    course.setCourseId(rs.getInt("course_id"));
-                    course.setCourseCode(rs.getString("course_code"));
-                    course.setCourseName(rs.getString("course_name"));
-                    course.setCredits(rs.getInt("credits"));
-                    course.setDepartment(rs.getString("department"));
-                    course.setDescription(rs.getString("description"));
-
-                    courses.add(course);
-                }
+                courses = RowMapper.mapAll(rs, CourseRowMapper.forResultSet(rs));
             }
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error searching courses: " + e.getMessage());
             throw e;
         }
 
+        call.succeeded(courses.size());
         return courses;
     }
+
+    /**
+     * Returns one page of courses using keyset pagination.
+     * Pass the token of the previous page to continue after it.
+     */
+    public Page<Course> getCoursesPage(PageRequest request) throws SQLException {
+        DaoCallEvent call = Metrics.PAGE.begin();
+        KeysetQuery<Course> query = new KeysetQuery<>("SELECT * FROM courses",
+                "course_id", Course::getCourseId, SORT_KEYS, request);
+        List<Course> rows;
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query.getSql())) {
+
+            query.bind(pstmt, 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rows = RowMapper.mapAll(rs, CourseRowMapper.forResultSet(rs));
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error fetching course page: " + e.getMessage());
+            throw e;
+        }
+
+        call.succeeded(rows.size());
+        return query.toPage(rows);
+    }
+
+    /**
+     * Properties accepted as the sort of a PageRequest
+     */
+    public static List<String> getSortableProperties() {
+        return List.copyOf(SORT_KEYS.keySet());
+    }
+
+    /**
+     * Number of rows in the courses table
+     */
+    public long countCourses() throws SQLException {
+        return countCourses(Collections.emptyMap());
+    }
+
+    /**
+     * Number of courses matching the column filters, see PageRequest.withFilters
+     */
+    public long countCourses(Map<String, String> filters) throws SQLException {
+        DaoCallEvent call = Metrics.COUNT.begin();
+        KeysetQuery<Course> query = new KeysetQuery<>("SELECT * FROM courses",
+                "course_id", Course::getCourseId, SORT_KEYS,
+                PageRequest.firstPage(null, true, 1).withFilters(filters));
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query.getCountSql())) {
+
+            query.bindCount(pstmt, 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                long count = rs.getLong(1);
+                call.succeeded(1);
+                return count;
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error counting courses: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Streams every course without loading the table into memory.
+     * The stream holds a pooled connection until it is closed, so use
+     * it in try-with-resources.
+     */
+    public Stream<Course> streamAllCourses() throws SQLException {
+        try {
+            return JdbcStream.open("SELECT * FROM courses ORDER BY course_id",
+                    pstmt -> { }, CourseRowMapper::forResultSet, Metrics.STREAM_ALL);
+        } catch (SQLException e) {
+            System.err.println("Error streaming courses: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the courses matching the filter. The department is matched
+     * on the course itself; semester and year require at least one
+     * enrollment in that term.
+     */
+    public Stream<Course> streamCourses(EnrollmentFilter filter) throws SQLException {
+        if (filter.isEmpty()) {
+            return streamAllCourses();
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM courses c WHERE ");
+        EnrollmentFilter term = new EnrollmentFilter(filter.getSemester(), filter.getYear(), null);
+        if (filter.getDepartment() != null) {
+            sql.append("c.department = ?");
+            if (!term.isEmpty()) {
+                sql.append(" AND ");
+            }
+        }
+        if (!term.isEmpty()) {
+            sql.append("EXISTS (SELECT 1 FROM enrollments e WHERE e.course_id = c.course_id AND ")
+               .append(term.conditions("e", "c")).append(")");
+        }
+        sql.append(" ORDER BY c.course_id");
+        try {
+            return JdbcStream.open(sql.toString(), pstmt -> {
+                int index = 1;
+                if (filter.getDepartment() != null) {
+                    pstmt.setString(index++, filter.getDepartment());
+                }
+                term.bind(pstmt, index);
+            }, CourseRowMapper::forResultSet, Metrics.STREAM_FILTERED);
+        } catch (SQLException e) {
+            System.err.println("Error streaming courses: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Hands every course to the callback until it returns false
+     * @return number of rows read
+     */
+    public long forEachCourse(RowCallback<Course> callback) throws SQLException {
+        return JdbcStream.forEach(streamAllCourses(), callback);
+    }
+
+    /**
+     * Looks up the ids of the courses with the given course codes.
+     * Course codes that do not exist are missing from the returned map.
+     */
+    public Map<String, Integer> findIdsByCode(Collection<String> courseCodes) throws SQLException {
+        DaoCallEvent call = Metrics.FIND_IDS.begin();
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> pending = new ArrayList<>(courseCodes);
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            // Query in slices to keep the IN list, and the statement cache key, bounded
+            for (int start = 0; start < pending.size(); start += LOOKUP_SLICE_SIZE) {
+                List<String> slice = pending.subList(start, Math.min(start + LOOKUP_SLICE_SIZE, pending.size()));
+                String sql = "SELECT course_id, course_code FROM courses WHERE course_code IN (" +
+                             String.join(", ", Collections.nCopies(slice.size(), "?")) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < slice.size(); i++) {
+                        pstmt.setString(i + 1, slice.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.put(rs.getString(2), rs.getInt(1));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error looking up course ids: " + e.getMessage());
+            throw e;
+        }
+
+        call.succeeded(ids.size());
+        return ids;
+    }
 }
@@ -0,0 +1,50 @@
+package advancejavaproject4.database;
+
+import advancejavaproject4.model.Course;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of the courses table to Course objects. Departments repeat
+ * across courses, so their strings are shared through a pool.
+ * @author yigitt
+ */
+public final class CourseRowMapper implements RowMapper<Course> {
+
+    private static final StringPool DEPARTMENTS = new StringPool(1_000);
+
+    private final int courseId;
+    private final int courseCode;
+    private final int courseName;
+    private final int credits;
+    private final int department;
+    private final int description;
+
+    private CourseRowMapper(ResultSet rs) throws SQLException {
+        courseId = rs.findColumn("course_id");
+        courseCode = rs.findColumn("course_code");
+        courseName = rs.findColumn("course_name");
+        credits = rs.findColumn("credits");
+        department = rs.findColumn("department");
+        description = rs.findColumn("description");
+    }
+
+    /**
+     * Creates a mapper bound to the column layout of the given ResultSet
+     */
+    public static CourseRowMapper forResultSet(ResultSet rs) throws SQLException {
+        return new CourseRowMapper(rs);
+    }
+
+    @Override
+    public Course mapRow(ResultSet rs) throws SQLException {
+        Course course = new Course();
+        course.setCourseId(rs.getInt(courseId));
+        course.setCourseCode(rs.getString(courseCode));
+        course.setCourseName(rs.getString(courseName));
+        course.setCredits(rs.getInt(credits));
+        course.setDepartment(DEPARTMENTS.getString(rs, department));
+        course.setDescription(rs.getString(description));
+        return course;
+    }
+}
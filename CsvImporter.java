@@ -0,0 +1,732 @@
+package advancejavaproject4.io;
+
+import advancejavaproject4.database.BatchResult;
+import advancejavaproject4.database.CourseDAO;
+import advancejavaproject4.database.EnrollmentDAO;
+import advancejavaproject4.database.StudentDAO;
+import advancejavaproject4.model.Course;
+import advancejavaproject4.model.Enrollment;
+import advancejavaproject4.model.Student;
+import advancejavaproject4.util.ValidationHelper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports students, courses or enrollments from a CSV file.
+ *
+ * The work runs as a pipeline: a reader thread parses the file into
+ * chunks, a pool of workers validates each chunk with ValidationHelper
+ * and resolves foreign keys, and the calling thread writes the chunks
+ * in file order with the DAOs' batch inserts, one transaction per chunk.
+ * After every chunk a checkpoint file records how far the import got, so
+ * an interrupted import can be resumed. Rejected records are written to
+ * an error report next to the input file.
+ *
+ * The first line of the file must be a header naming the columns, using
+ * the database column names (e.g. first_name, last_name, email).
+ * Enrollment files may give student_email / course_code instead of
+ * student_id / course_id.
+ * @author yigitt
+ */
+public class CsvImporter {
+
+    /**
+     * Receives progress updates from the writing thread
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long recordsRead, long imported, long failed, double fraction);
+    }
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    // Bounded lookup caches for resolving enrollment foreign keys
+    private static final int MAX_CACHED_KEYS = 200_000;
+
+    /**
+     * Looks up the ids of keys not found in a cache, e.g. StudentDAO::findIdsByEmail
+     */
+    @FunctionalInterface
+    private interface KeyLookup {
+        Map<String, Integer> findIds(Set<String> keys) throws SQLException;
+    }
+
+    private final String table;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean resume;
+    private ProgressListener progressListener;
+    private volatile boolean cancelled;
+
+    private final StudentDAO studentDAO = new StudentDAO();
+    private final CourseDAO courseDAO = new CourseDAO();
+    private final EnrollmentDAO enrollmentDAO = new EnrollmentDAO();
+
+    private final Map<String, Integer> studentIdsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Integer> courseIdsByCode = new ConcurrentHashMap<>();
+
+    /**
+     * @param table "students", "courses" or "enrollments"
+     */
+    public CsvImporter(String table) {
+        if (!table.equals("students") && !table.equals("courses") && !table.equals("enrollments")) {
+            throw new IllegalArgumentException("Importing into '" + table + "' is not supported.");
+        }
+        this.table = table;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Continue after the last checkpoint of an earlier, unfinished run
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Stops the import after the chunk being written. The checkpoint is
+     * kept, so the import can be resumed later.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public static Path checkpointPath(Path csvFile) {
+        return csvFile.resolveSibling(csvFile.getFileName() + ".checkpoint");
+    }
+
+    public static Path errorReportPath(Path csvFile) {
+        return csvFile.resolveSibling(csvFile.getFileName() + ".errors.csv");
+    }
+
+    /**
+     * Runs the import and blocks until it finishes or is cancelled
+     */
+    public ImportResult importFile(Path csvFile) throws IOException, SQLException {
+        switch (table) {
+            case "students":
+                return run(csvFile, new Pipeline<Student, Student>() {
+                    @Override
+                    Student parse(Header header, String[] record) {
+                        return parseStudent(header, record);
+                    }
+
+                    @Override
+                    BatchResult write(List<Student> items) throws SQLException {
+                        return studentDAO.addStudents(items, chunkSize);
+                    }
+                });
+            case "courses":
+                return run(csvFile, new Pipeline<Course, Course>() {
+                    @Override
+                    Course parse(Header header, String[] record) {
+                        return parseCourse(header, record);
+                    }
+
+                    @Override
+                    BatchResult write(List<Course> items) throws SQLException {
+                        return courseDAO.addCourses(items, chunkSize);
+                    }
+                });
+            default:
+                return run(csvFile, new Pipeline<EnrollmentRecord, Enrollment>() {
+                    @Override
+                    EnrollmentRecord parse(Header header, String[] record) {
+                        return parseEnrollment(header, record);
+                    }
+
+                    @Override
+                    void resolve(Chunk<EnrollmentRecord, Enrollment> chunk) throws SQLException {
+                        resolveEnrollments(chunk);
+                    }
+
+                    @Override
+                    BatchResult write(List<Enrollment> items) throws SQLException {
+                        return enrollmentDAO.addEnrollments(items, chunkSize);
+                    }
+                });
+        }
+    }
+
+    private <P, T> ImportResult run(Path csvFile, Pipeline<P, T> pipeline) throws IOException, SQLException {
+        long startNanos = System.nanoTime();
+        cancelled = false;
+
+        Path checkpointFile = checkpointPath(csvFile);
+        Path reportFile = errorReportPath(csvFile);
+        long skip = resume ? readCheckpoint(checkpointFile) : 0;
+        boolean appendReport = skip > 0 && Files.exists(reportFile);
+
+        ImportResult result = new ImportResult();
+        result.setSkipped(skip);
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, daemonThreads("csv-import-worker"));
+        ExecutorService readerThread = Executors.newSingleThreadExecutor(daemonThreads("csv-import-reader"));
+        // Bounds the number of parsed chunks held in memory at once
+        BlockingQueue<Future<Chunk<P, T>>> inFlight = new ArrayBlockingQueue<>(parallelism * 2);
+        long reportedFailures = 0;
+
+        try (CsvReader reader = new CsvReader(csvFile);
+             CsvWriter report = new CsvWriter(Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     appendReport ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING))) {
+
+            String[] headerRecord = reader.readRecord();
+            if (headerRecord == null) {
+                throw new IOException("The file is empty.");
+            }
+            Header header = new Header(headerRecord);
+            pipeline.checkHeader(header);
+            if (!appendReport) {
+                report.writeRecord(prepend("record", "error", headerRecord));
+            }
+
+            readerThread.submit(() -> {
+                readChunks(reader, header, skip, pipeline, workers, inFlight);
+                return null;
+            });
+
+            long written = skip;
+            while (!cancelled) {
+                Chunk<P, T> chunk = await(inFlight.take());
+                if (chunk == null) {
+                    break;
+                }
+
+                BatchResult batch = chunk.items.isEmpty() ? null : pipeline.write(chunk.items);
+                if (batch != null) {
+                    result.addImported(batch.getSucceeded());
+                    for (BatchResult.RowFailure failure : batch.getFailures()) {
+                        int index = failure.getIndex();
+                        chunk.reject(chunk.itemRecords.get(index), chunk.itemRaw.get(index), failure.getMessage());
+                    }
+                }
+                for (Rejection rejection : chunk.rejections) {
+                    report.writeRecord(prepend(String.valueOf(rejection.recordNumber), rejection.message,
+                            rejection.raw));
+                }
+                result.addFailed(chunk.rejections.size());
+                reportedFailures += chunk.rejections.size();
+                report.flush();
+
+                written = chunk.lastRecord;
+                result.setRecordsRead(written - skip);
+                writeCheckpoint(checkpointFile, written);
+
+                if (progressListener != null) {
+                    progressListener.onProgress(written, result.getImported(), result.getFailed(), chunk.fraction);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        } finally {
+            readerThread.shutdownNow();
+            workers.shutdownNow();
+        }
+
+        result.setCancelled(cancelled);
+        if (!cancelled) {
+            Files.deleteIfExists(checkpointFile);
+        }
+        if (reportedFailures == 0 && !appendReport) {
+            Files.deleteIfExists(reportFile);
+        } else {
+            result.setErrorReport(reportFile);
+        }
+        result.setElapsedMillis((System.nanoTime() - startNanos) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Reader thread: parses the file into chunks and hands each one to the
+     * worker pool. Ends the queue with a null chunk.
+     */
+    private <P, T> void readChunks(CsvReader reader, Header header, long skip, Pipeline<P, T> pipeline,
+                                   ExecutorService workers, BlockingQueue<Future<Chunk<P, T>>> inFlight)
+            throws InterruptedException {
+        try {
+            long recordNumber = 0;
+            String[] record;
+
+            while (recordNumber < skip && reader.readRecord() != null) {
+                recordNumber++;
+            }
+
+            List<String[]> records = new ArrayList<>(chunkSize);
+            long firstRecord = recordNumber + 1;
+            while (!cancelled && (record = reader.readRecord()) != null) {
+                recordNumber++;
+                records.add(record);
+                if (records.size() == chunkSize) {
+                    submitChunk(header, pipeline, workers, inFlight, records, firstRecord, reader.getProgress());
+                    records = new ArrayList<>(chunkSize);
+                    firstRecord = recordNumber + 1;
+                }
+            }
+            if (!records.isEmpty()) {
+                submitChunk(header, pipeline, workers, inFlight, records, firstRecord, reader.getProgress());
+            }
+            inFlight.put(CompletableFuture.completedFuture(null));
+        } catch (IOException | RuntimeException e) {
+            inFlight.put(CompletableFuture.failedFuture(e));
+        }
+    }
+
+    private <P, T> void submitChunk(Header header, Pipeline<P, T> pipeline, ExecutorService workers,
+                                    BlockingQueue<Future<Chunk<P, T>>> inFlight, List<String[]> records,
+                                    long firstRecord, double fraction) throws InterruptedException {
+        Chunk<P, T> chunk = new Chunk<>(firstRecord, records, fraction);
+        inFlight.put(workers.submit(() -> {
+            chunk.validate(pipeline, header);
+            pipeline.resolve(chunk);
+            return chunk;
+        }));
+    }
+
+    private static <C> C await(Future<C> future) throws IOException, SQLException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    // ---------------------------------------------------------------- parsing
+
+    private Student parseStudent(Header header, String[] record) {
+        String firstName = header.get(record, "first_name");
+        String lastName = header.get(record, "last_name");
+        String email = header.get(record, "email");
+        String phone = header.get(record, "phone");
+
+        if (!ValidationHelper.isNotEmpty(firstName, lastName, email)) {
+            throw new InvalidRecordException("First Name, Last Name, and Email are required.");
+        }
+        if (!ValidationHelper.isValidEmail(email)) {
+            throw new InvalidRecordException("Invalid email address: " + email);
+        }
+        if (!ValidationHelper.isValidPhone(phone)) {
+            throw new InvalidRecordException("Invalid phone number: " + phone);
+        }
+
+        Student student = new Student();
+        student.setFirstName(firstName);
+        student.setLastName(lastName);
+        student.setEmail(email);
+        student.setPhone(phone == null ? "" : phone);
+        student.setDateOfBirth(parseDate(header.get(record, "date_of_birth"), "date_of_birth"));
+        LocalDate enrollmentDate = parseDate(header.get(record, "enrollment_date"), "enrollment_date");
+        student.setEnrollmentDate(enrollmentDate != null ? enrollmentDate : LocalDate.now());
+        String status = header.get(record, "status");
+        student.setStatus(status != null ? status : "Active");
+
+        String gpaText = header.get(record, "gpa");
+        if (gpaText != null) {
+            if (!ValidationHelper.isValidDouble(gpaText)) {
+                throw new InvalidRecordException("GPA must be a number: " + gpaText);
+            }
+            double gpa = Double.parseDouble(gpaText);
+            if (!ValidationHelper.isValidGPA(gpa)) {
+                throw new InvalidRecordException("GPA must be between 0.0 and 4.0: " + gpaText);
+            }
+            student.setGpa(gpa);
+        }
+        return student;
+    }
+
+    private Course parseCourse(Header header, String[] record) {
+        String courseCode = header.get(record, "course_code");
+        String courseName = header.get(record, "course_name");
+        String creditsText = header.get(record, "credits");
+
+        if (!ValidationHelper.isNotEmpty(courseCode, courseName, creditsText)) {
+            throw new InvalidRecordException("Course Code, Course Name, and Credits are required.");
+        }
+        if (!ValidationHelper.isValidInteger(creditsText)) {
+            throw new InvalidRecordException("Credits must be a valid number: " + creditsText);
+        }
+        int credits = Integer.parseInt(creditsText);
+        if (!ValidationHelper.isValidCredits(credits)) {
+            throw new InvalidRecordException("Credits must be greater than 0.");
+        }
+
+        Course course = new Course();
+        course.setCourseCode(courseCode);
+        course.setCourseName(courseName);
+        course.setCredits(credits);
+        String department = header.get(record, "department");
+        course.setDepartment(department != null ? department : "General");
+        String description = header.get(record, "description");
+        course.setDescription(description != null ? description : "");
+        return course;
+    }
+
+    private EnrollmentRecord parseEnrollment(Header header, String[] record) {
+        EnrollmentRecord parsed = new EnrollmentRecord();
+        Enrollment enrollment = parsed.enrollment;
+
+        String studentId = header.get(record, "student_id");
+        if (studentId != null) {
+            enrollment.setStudentId(parseInteger(studentId, "Student ID"));
+        } else {
+            parsed.studentEmail = header.get(record, "student_email");
+        }
+        String courseId = header.get(record, "course_id");
+        if (courseId != null) {
+            enrollment.setCourseId(parseInteger(courseId, "Course ID"));
+        } else {
+            parsed.courseCode = header.get(record, "course_code");
+        }
+
+        String semester = header.get(record, "semester");
+        if (!ValidationHelper.isNotEmpty(semester)
+                || (studentId == null && parsed.studentEmail == null)
+                || (courseId == null && parsed.courseCode == null)) {
+            throw new InvalidRecordException("Student, Course, and Semester are required.");
+        }
+        enrollment.setSemester(semester);
+
+        String year = header.get(record, "year");
+        enrollment.setYear(year != null ? parseInteger(year, "Year") : LocalDate.now().getYear());
+        enrollment.setGrade(header.get(record, "grade"));
+        String status = header.get(record, "enrollment_status");
+        enrollment.setEnrollmentStatus(status != null ? status : "Enrolled");
+        LocalDate enrollmentDate = parseDate(header.get(record, "enrollment_date"), "enrollment_date");
+        enrollment.setEnrollmentDate(enrollmentDate != null ? enrollmentDate : LocalDate.now());
+        return parsed;
+    }
+
+    /**
+     * Replaces student emails and course codes with ids, one lookup
+     * query per chunk for the keys not seen before
+     */
+    private void resolveEnrollments(Chunk<EnrollmentRecord, Enrollment> chunk) throws SQLException {
+        Set<String> emails = new HashSet<>();
+        Set<String> codes = new HashSet<>();
+        for (EnrollmentRecord parsed : chunk.parsed) {
+            if (parsed.studentEmail != null) {
+                emails.add(parsed.studentEmail);
+            }
+            if (parsed.courseCode != null) {
+                codes.add(parsed.courseCode);
+            }
+        }
+        Map<String, Integer> studentIds = resolveKeys(emails, studentIdsByEmail, studentDAO::findIdsByEmail);
+        Map<String, Integer> courseIds = resolveKeys(codes, courseIdsByCode, courseDAO::findIdsByCode);
+
+        for (int i = 0; i < chunk.parsed.size(); i++) {
+            EnrollmentRecord parsed = chunk.parsed.get(i);
+            if (parsed.studentEmail != null) {
+                Integer id = studentIds.get(parsed.studentEmail);
+                if (id == null) {
+                    chunk.reject(chunk.parsedRecords.get(i), chunk.parsedRaw.get(i),
+                            "Unknown student email: " + parsed.studentEmail);
+                    continue;
+                }
+                parsed.enrollment.setStudentId(id);
+            }
+            if (parsed.courseCode != null) {
+                Integer id = courseIds.get(parsed.courseCode);
+                if (id == null) {
+                    chunk.reject(chunk.parsedRecords.get(i), chunk.parsedRaw.get(i),
+                            "Unknown course code: " + parsed.courseCode);
+                    continue;
+                }
+                parsed.enrollment.setCourseId(id);
+            }
+            chunk.accept(parsed.enrollment, chunk.parsedRecords.get(i), chunk.parsedRaw.get(i));
+        }
+    }
+
+    /**
+     * Ids of the keys, taken from the cache where it has them and looked
+     * up in one query otherwise. The chunk reads its ids from the map
+     * returned, so the cache being trimmed, here or by another worker,
+     * never loses a key the chunk has already resolved.
+     */
+    private static Map<String, Integer> resolveKeys(Set<String> keys, Map<String, Integer> cache,
+                                                    KeyLookup lookup) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String key : keys) {
+            Integer id = cache.get(key);
+            if (id != null) {
+                ids.put(key, id);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Integer> found = lookup.findIds(missing);
+            ids.putAll(found);
+            if (cache.size() + found.size() > MAX_CACHED_KEYS) {
+                cache.clear();
+            }
+            cache.putAll(found);
+        }
+        return ids;
+    }
+
+    private static LocalDate parseDate(String value, String column) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidRecordException(column + " must be a date in YYYY-MM-DD format: " + value);
+        }
+    }
+
+    private static int parseInteger(String value, String label) {
+        if (!ValidationHelper.isValidInteger(value)) {
+            throw new InvalidRecordException(label + " must be a valid number: " + value);
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    // ------------------------------------------------------------ checkpoints
+
+    private static long readCheckpoint(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        String text = Files.readString(checkpointFile, StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt checkpoint file: " + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Writes the number of records committed so far. Written to a
+     * temporary file and moved into place so a crash never leaves a
+     * half-written checkpoint.
+     */
+    private static void writeCheckpoint(Path checkpointFile, long records) throws IOException {
+        Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.writeString(tmp, Long.toString(records), StandardCharsets.UTF_8);
+        Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String[] prepend(String first, String second, String[] rest) {
+        String[] row = new String[rest.length + 2];
+        row[0] = first;
+        row[1] = second;
+        System.arraycopy(rest, 0, row, 2, rest.length);
+        return row;
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // ------------------------------------------------------------ internals
+
+    /**
+     * Column positions from the header line, by lower-case name
+     */
+    private static final class Header {
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        Header(String[] names) {
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        boolean has(String column) {
+            return columns.containsKey(column);
+        }
+
+        /**
+         * Trimmed value of the column, or null when missing or blank
+         */
+        String get(String[] record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.length) {
+                return null;
+            }
+            String value = record[index].trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * Per-table steps of the pipeline
+     */
+    private abstract class Pipeline<P, T> {
+        abstract P parse(Header header, String[] record);
+
+        abstract BatchResult write(List<T> items) throws SQLException;
+
+        /**
+         * Turns parsed records into writable items; by default they are the same
+         */
+        @SuppressWarnings("unchecked")
+        void resolve(Chunk<P, T> chunk) throws SQLException {
+            for (int i = 0; i < chunk.parsed.size(); i++) {
+                chunk.accept((T) chunk.parsed.get(i), chunk.parsedRecords.get(i), chunk.parsedRaw.get(i));
+            }
+        }
+
+        void checkHeader(Header header) throws IOException {
+            List<String> required = new ArrayList<>();
+            switch (table) {
+                case "students":
+                    required.add("first_name");
+                    required.add("last_name");
+                    required.add("email");
+                    break;
+                case "courses":
+                    required.add("course_code");
+                    required.add("course_name");
+                    required.add("credits");
+                    break;
+                default:
+                    required.add(header.has("student_id") ? "student_id" : "student_email");
+                    required.add(header.has("course_id") ? "course_id" : "course_code");
+                    required.add("semester");
+            }
+            for (String column : required) {
+                if (!header.has(column)) {
+                    throw new IOException("Missing required column '" + column + "' in the header.");
+                }
+            }
+        }
+    }
+
+    /**
+     * A slice of the file moving through the pipeline
+     */
+    private static final class Chunk<P, T> {
+        final long firstRecord;
+        final long lastRecord;
+        final double fraction;
+        final List<String[]> records;
+
+        final List<P> parsed = new ArrayList<>();
+        final List<Long> parsedRecords = new ArrayList<>();
+        final List<String[]> parsedRaw = new ArrayList<>();
+
+        final List<T> items = new ArrayList<>();
+        final List<Long> itemRecords = new ArrayList<>();
+        final List<String[]> itemRaw = new ArrayList<>();
+
+        final List<Rejection> rejections = new ArrayList<>();
+
+        Chunk(long firstRecord, List<String[]> records, double fraction) {
+            this.firstRecord = firstRecord;
+            this.lastRecord = firstRecord + records.size() - 1;
+            this.records = records;
+            this.fraction = fraction;
+        }
+
+        void validate(Pipeline<P, T> pipeline, Header header) {
+            for (int i = 0; i < records.size(); i++) {
+                String[] record = records.get(i);
+                long recordNumber = firstRecord + i;
+                try {
+                    parsed.add(pipeline.parse(header, record));
+                    parsedRecords.add(recordNumber);
+                    parsedRaw.add(record);
+                } catch (InvalidRecordException e) {
+                    reject(recordNumber, record, e.getMessage());
+                }
+            }
+        }
+
+        void accept(T item, long recordNumber, String[] raw) {
+            items.add(item);
+            itemRecords.add(recordNumber);
+            itemRaw.add(raw);
+        }
+
+        void reject(long recordNumber, String[] raw, String message) {
+            rejections.add(new Rejection(recordNumber, raw, message));
+        }
+    }
+
+    private static final class Rejection {
+        final long recordNumber;
+        final String[] raw;
+        final String message;
+
+        Rejection(long recordNumber, String[] raw, String message) {
+            this.recordNumber = recordNumber;
+            this.raw = raw;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Enrollment whose student or course may still be given by email / code
+     */
+    private static final class EnrollmentRecord {
+        final Enrollment enrollment = new Enrollment();
+        String studentEmail;
+        String courseCode;
+    }
+
+    private static final class InvalidRecordException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        InvalidRecordException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
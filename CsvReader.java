@@ -0,0 +1,152 @@
+package advancejavaproject4.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader on top of a FileChannel.
+ * Handles quoted fields, doubled quotes and line breaks inside quotes,
+ * and reports how far into the file it has read for progress display.
+ * @author yigitt
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final long size;
+    private final Reader reader;
+    private long recordNumber;
+
+    // Own buffering so each character costs an array read, not a method call
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    // Reused between records to avoid per-field garbage
+    private final StringBuilder field = new StringBuilder(64);
+
+    public CsvReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE);
+        // Skip the byte order mark Excel writes at the start of "CSV UTF-8" files
+        if (peek() == '\uFEFF') {
+            position++;
+        }
+    }
+
+    /**
+     * Reads the next record, or returns null at end of file.
+     * Blank lines are skipped.
+     */
+    public String[] readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean inQuotes = false;
+        boolean quotedField = false;
+        int c;
+
+        while ((c = next()) != -1) {
+            if (inQuotes) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        next();
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !quotedField) {
+                inQuotes = true;
+                quotedField = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quotedField = false;
+            } else if (c == '\r' || c == '\n') {
+                // CRLF, LF and a bare CR all end the record
+                if (c == '\r' && peek() == '\n') {
+                    next();
+                }
+                if (endRecord(fields, quotedField)) {
+                    return fields.toArray(new String[0]);
+                }
+                quotedField = false;
+            } else {
+                field.append((char) c);
+            }
+        }
+
+        if (endRecord(fields, quotedField)) {
+            return fields.toArray(new String[0]);
+        }
+        return null;
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    /**
+     * Completes the current record; returns false for a blank line
+     */
+    private boolean endRecord(List<String> fields, boolean quotedField) {
+        if (fields.isEmpty() && field.length() == 0 && !quotedField) {
+            return false;
+        }
+        fields.add(field.toString());
+        field.setLength(0);
+        recordNumber++;
+        return true;
+    }
+
+    /**
+     * Number of records returned so far, including the header
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Fraction of the file consumed so far, between 0 and 1
+     */
+    public double getProgress() throws IOException {
+        return size == 0 ? 1.0 : Math.min(1.0, (double) channel.position() / size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,121 @@
+package advancejavaproject4.database;
+
+import java.sql.SQLException;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one DAO call, and the handle through which
+ * the call reports its outcome to its OperationMetrics. Start one with
+ * OperationMetrics.begin and end it with succeeded or failed.
+ * While a recording is on, the call also collects the first SQL
+ * statement it ran and the time it waited for a pooled connection; with
+ * no recording the event is never written and costs next to nothing.
+ * @author yigitt
+ */
+@Name("unitrack.DaoCall")
+@Label("DAO Call")
+@Category({"UniTrack", "Database"})
+@Description("One call of a StudentDAO, CourseDAO or EnrollmentDAO method")
+@StackTrace(false)
+public final class DaoCallEvent extends Event {
+
+    // Call in progress on each thread, only set while recording. DAO
+    // calls do not nest, so a new call simply takes the slot over.
+    private static final ThreadLocal<DaoCallEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("SQL")
+    @Description("First statement run by the call")
+    private String sql;
+
+    @Label("Statements")
+    private int statements;
+
+    @Label("Rows")
+    @Description("Rows read or written; rows of a stream are counted in the metrics as it is read")
+    private long rows;
+
+    @Label("Connection Acquire Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long connectionAcquireTime;
+
+    @Label("Failed")
+    private boolean failed;
+
+    @Label("SQL Error Code")
+    private int errorCode;
+
+    // Not written to the recording
+    private final transient OperationMetrics metrics;
+    private final transient long started;
+    private final transient boolean tracked;
+
+    DaoCallEvent(OperationMetrics metrics) {
+        this.metrics = metrics;
+        this.started = System.nanoTime();
+        this.operation = metrics.getName();
+        begin();
+        tracked = isEnabled();
+        if (tracked) {
+            CURRENT.set(this);
+        }
+    }
+
+    /**
+     * Ends the call, which read or wrote the given number of rows
+     */
+    public void succeeded(long rowCount) {
+        metrics.succeeded(started, rowCount);
+        rows = rowCount;
+        finish();
+    }
+
+    /**
+     * Ends the call with an error
+     */
+    public void failed(SQLException e) {
+        metrics.failed(started, e);
+        failed = true;
+        errorCode = e.getErrorCode();
+        finish();
+    }
+
+    private void finish() {
+        if (tracked && CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        commit();
+    }
+
+    /**
+     * Called by QueryProfiler for every statement run
+     */
+    static void statementRun(String statementSql) {
+        DaoCallEvent call = CURRENT.get();
+        if (call != null) {
+            if (call.sql == null) {
+                call.sql = statementSql;
+            }
+            call.statements++;
+        }
+    }
+
+    /**
+     * Called by DatabaseConnection once it has tried to borrow a
+     * connection, successfully or not, starting at the given nanoTime
+     */
+    static void connectionAcquired(long acquireStarted) {
+        DaoCallEvent call = CURRENT.get();
+        if (call != null) {
+            call.connectionAcquireTime += System.nanoTime() - acquireStarted;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package advancejavaproject4.database;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the metrics of every DAO operation, named like
+ * "StudentDAO.getAllStudents". Each operation is also registered with the
+ * platform MBean server so it can be watched from JConsole or VisualVM;
+ * set -Dunitrack.metrics.jmx=false to skip that.
+ * @author yigitt
+ */
+public final class DaoMetrics {
+
+    private static final String JMX_DOMAIN = "advancejavaproject4";
+    private static final boolean JMX_ENABLED =
+            Boolean.parseBoolean(System.getProperty("unitrack.metrics.jmx", "true"));
+
+    private static final ConcurrentHashMap<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+
+    private DaoMetrics() {
+    }
+
+    /**
+     * The metrics of the named operation, created on first use
+     */
+    public static OperationMetrics operation(String name) {
+        OperationMetrics metrics = OPERATIONS.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        metrics = new OperationMetrics(name);
+        OperationMetrics existing = OPERATIONS.putIfAbsent(name, metrics);
+        if (existing != null) {
+            return existing;
+        }
+        if (JMX_ENABLED) {
+            register(metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Current values of every operation that has been called, by name
+     */
+    public static List<OperationMetrics.Snapshot> snapshot() {
+        List<OperationMetrics.Snapshot> snapshots = new ArrayList<>();
+        for (OperationMetrics metrics : OPERATIONS.values()) {
+            if (metrics.getCalls() > 0) {
+                snapshots.add(metrics.snapshot());
+            }
+        }
+        snapshots.sort(Comparator.comparing(OperationMetrics.Snapshot::getName));
+        return snapshots;
+    }
+
+    /**
+     * Clears the counters of every operation
+     */
+    public static void resetAll() {
+        OPERATIONS.values().forEach(OperationMetrics::reset);
+    }
+
+    private static void register(OperationMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(metrics,
+                    new ObjectName(JMX_DOMAIN + ":type=DaoMetrics,name=" + metrics.getName()));
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBean: " + e.getMessage());
+        }
+    }
+}
@@ -5,48 +5,104 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Singleton class for managing MySQL database connections
+ * Singleton class for managing MySQL database connections.
+ * Connections come from a bounded pool, so closing one after use
+ * hands it back for reuse instead of dropping the MySQL session.
+ * Every connection is profiled; see {@link #getProfiler()}. The time
+ * taken to borrow one is recorded as DatabaseConnection.getConnection
+ * in DaoMetrics.
  * @author yigitt
  */
 public class DatabaseConnection {
 
-    private static DatabaseConnection instance;
-    private Connection connection;
+    private static final OperationMetrics GET_CONNECTION = DaoMetrics.operation("DatabaseConnection.getConnection");
+
+    private final ConnectionPool pool;
+    private final QueryProfiler profiler;
+    private volatile boolean driverLoaded;
 
     private static final String HOST = "127.0.0.1";
     private static final String PORT = "3307";
     private static final String DATABASE = "student_records_db";
-    private static final String USER = "root";
-    private static final String PASSWORD = "";
-    private static final String URL = "jdbc:mysql://" + HOST + ":" + PORT + "/" + DATABASE + "?useSSL=false";
+    // Connection settings, overridable with -Dunitrack.db.* system properties,
+    // e.g. to point the DAOs at an embedded database for benchmarks
+    private static final String DRIVER = System.getProperty("unitrack.db.driver", "com.mysql.jdbc.Driver");
+    private static final String USER = System.getProperty("unitrack.db.user", "root");
+    private static final String PASSWORD = System.getProperty("unitrack.db.password", "");
+    private static final String URL = System.getProperty("unitrack.db.url",
+            "jdbc:mysql://" + HOST + ":" + PORT + "/" + DATABASE + "?useSSL=false&useServerPrepStmts=true&rewriteBatchedStatements=true");
+
+    // Pool sizing, overridable with -Dunitrack.pool.* system properties
+    private static final int POOL_MAX_SIZE = Integer.getInteger("unitrack.pool.maxSize", 10);
+    private static final int POOL_MIN_IDLE = Integer.getInteger("unitrack.pool.minIdle", 2);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("unitrack.pool.idleTimeoutMs", 600_000L);
+    private static final long POOL_MAX_WAIT_MS = Long.getLong("unitrack.pool.maxWaitMs", 30_000L);
+    private static final long POOL_VALIDATION_INTERVAL_MS = Long.getLong("unitrack.pool.validationIntervalMs", 5_000L);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("unitrack.pool.statementCacheSize", 64);
+
+    // Statement profiling and the slow query log, overridable with -Dunitrack.profiler.* system properties
+    private static final long SLOW_QUERY_MS = Long.getLong("unitrack.profiler.slowQueryMs", 500L);
+    private static final String SLOW_LOG_PATTERN = System.getProperty("unitrack.profiler.slowLog", "slow-queries.%g.log");
+    private static final int SLOW_LOG_LIMIT_BYTES = Integer.getInteger("unitrack.profiler.slowLogLimitBytes", 1_048_576);
+    private static final int SLOW_LOG_FILES = Integer.getInteger("unitrack.profiler.slowLogFiles", 5);
 
     
     private DatabaseConnection() {
         // Private constructor for Singleton pattern
+        profiler = new QueryProfiler(SLOW_QUERY_MS,
+                new SlowQueryLog(SLOW_LOG_PATTERN, SLOW_LOG_LIMIT_BYTES, SLOW_LOG_FILES));
+        pool = new ConnectionPool(this::openPhysicalConnection, POOL_MAX_SIZE, POOL_MIN_IDLE,
+                POOL_IDLE_TIMEOUT_MS, POOL_MAX_WAIT_MS, POOL_VALIDATION_INTERVAL_MS, STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Lazy, thread-safe holder for the singleton instance
+     */
+    private static class Holder {
+        private static final DatabaseConnection INSTANCE = new DatabaseConnection();
     }
 
  
     public static DatabaseConnection getInstance() {
-        if (instance == null) {
-            instance = new DatabaseConnection();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
+    /**
+     * Borrows a connection from the pool. Callers must close it
+     * (try-with-resources) to return it.
+     */
     public Connection getConnection() throws SQLException {
+        long started = System.nanoTime();
         try {
-            if (connection == null || connection.isClosed()) {
+            Connection connection = pool.borrow();
+            GET_CONNECTION.succeeded(started, 0);
+            return connection;
+        } catch (SQLException e) {
+            GET_CONNECTION.failed(started, e);
+            throw e;
+        } finally {
+            DaoCallEvent.connectionAcquired(started);
+        }
+    }
+
+    /**
+     * Opens a new physical connection; only called by the pool
+     */
+    private Connection openPhysicalConnection() throws SQLException {
+        try {
+            if (!driverLoaded) {
                 // Hocanızın gösterdiği gibi basit format
-                Class.forName("com.mysql.jdbc.Driver");
+                Class.forName(DRIVER);
+                driverLoaded = true;
+            }
 
-                // Basit bağlantı - ek parametresiz
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
+            // Basit bağlantı - ek parametresiz
+            Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
 
-                System.out.println("Database connection established successfully");
-            }
-            return connection;
+            System.out.println("Database connection established successfully");
+            return profiler.wrap(connection);
         } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver not found. Please add mysql-connector-java.jar to your project libraries.", e);
+            throw new SQLException("JDBC Driver " + DRIVER + " not found. Please add mysql-connector-java.jar to your project libraries.", e);
         } catch (SQLException e) {
             // Print detailed error for debugging
             System.err.println("=== DETAILED SQL ERROR ===");
@@ -57,14 +113,13 @@ public class DatabaseConnection {
 
             // Provide user-friendly error messages
             String errorMessage = getReadableErrorMessage(e);
-            throw new SQLException(errorMessage, e);
+            throw new SQLException(errorMessage, e.getSQLState(), e.getErrorCode(), e);
         }
     }
 
  
     public boolean testConnection() {
-        try {
-            Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
             return conn != null && !conn.isClosed();
         } catch (SQLException e) {
             System.err.println("Connection test failed: " + e.getMessage());
@@ -89,15 +144,24 @@ public class DatabaseConnection {
         return tables;
     }
 
+    /**
+     * Closes all idle pooled connections; connections in use are closed
+     * as soon as they are returned
+     */
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed successfully");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
-        }
+        pool.clear();
+        System.out.println("Database connections closed successfully");
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Timings of every statement run through the pool
+     */
+    public QueryProfiler getProfiler() {
+        return profiler;
     }
 
     private String getReadableErrorMessage(SQLException e) {
@@ -0,0 +1,798 @@
+package advancejavaproject4.io;
+
+import advancejavaproject4.database.BatchResult;
+import advancejavaproject4.database.CourseDAO;
+import advancejavaproject4.database.EnrollmentDAO;
+import advancejavaproject4.database.StudentDAO;
+import advancejavaproject4.model.Course;
+import advancejavaproject4.model.Enrollment;
+import advancejavaproject4.model.Student;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a synthetic university for load tests and benchmarks:
+ * courses spread over departments, students, and each student's
+ * enrollments term by term from the year they started.
+ *
+ * Course popularity follows a Zipf distribution, so introductory courses
+ * fill up while advanced ones stay small, and most students take most of
+ * their courses in their own department. Grades follow the student's
+ * ability plus noise, leaning towards B and A with a tail of fails, and
+ * the GPA is the credit-weighted mean of the student's grades.
+ *
+ * The data depends only on the seed and the settings, not on the number
+ * of threads: students are generated in blocks, each from its own random
+ * stream, and written in block order. Emails are unique by construction
+ * and a student never takes the same course twice, so the generated rows
+ * never violate the email or (student, course, semester, year) unique
+ * keys; rows that clash with data already in the tables are rejected by
+ * the database and counted as failed.
+ *
+ * Rows are written through the DAOs' batch inserts, or to students.csv,
+ * courses.csv and enrollments.csv in a form CsvImporter reads back.
+ * @author yigitt
+ */
+public class DatasetGenerator {
+
+    /**
+     * Receives progress updates from the calling thread
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long students, long enrollments, double fraction);
+    }
+
+    public static final long DEFAULT_SEED = 42L;
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final int STUDENTS_PER_BLOCK = 1000;
+    private static final int MAX_COURSES_PER_TERM = 10;
+    // Share of a student's courses taken in their own department
+    private static final double MAJOR_SHARE = 0.7;
+    private static final double DROP_RATE = 0.03;
+    private static final double SUSPENDED_RATE = 0.03;
+    private static final double SUMMER_RATE = 0.1;
+    // Undergraduate programme of eight Fall/Spring terms
+    private static final int PROGRAMME_TERMS = 8;
+
+    // Independent random streams
+    private static final int COURSE_STREAM = 1;
+    private static final int STUDENT_STREAM = 2;
+
+    private static final String[][] DEPARTMENTS = {
+        {"Computer Engineering", "CENG"}, {"Electrical Engineering", "EE"}, {"Mechanical Engineering", "ME"},
+        {"Civil Engineering", "CE"}, {"Industrial Engineering", "IE"}, {"Chemical Engineering", "CHE"},
+        {"Mathematics", "MATH"}, {"Physics", "PHYS"}, {"Chemistry", "CHEM"}, {"Molecular Biology", "MBG"},
+        {"Economics", "ECON"}, {"Business Administration", "BA"}, {"Psychology", "PSY"},
+        {"Sociology", "SOC"}, {"History", "HIST"}, {"Philosophy", "PHIL"}, {"English Literature", "ELIT"},
+        {"Linguistics", "LING"}, {"Architecture", "ARCH"}, {"Political Science", "POLS"},
+        {"International Relations", "IR"}, {"Law", "LAW"}, {"Statistics", "STAT"}, {"Education", "EDU"}
+    };
+    private static final String[] COURSE_TITLES = {
+        "Introduction to", "Fundamentals of", "Principles of", "Applied", "Topics in",
+        "Advanced", "Research Methods in", "Seminar in"
+    };
+    private static final int[] CREDITS = {3, 3, 3, 3, 3, 3, 4, 4, 2, 1, 5, 6};
+
+    // Most common first, as name popularity is skewed as well
+    private static final String[] FIRST_NAMES = {
+        "Mehmet", "Ayse", "Mustafa", "Fatma", "Ahmet", "Zeynep", "Ali", "Elif", "Huseyin", "Emine",
+        "Emre", "Merve", "Can", "Selin", "Burak", "Ece", "Murat", "Esra", "Kerem", "Ipek",
+        "John", "Maria", "David", "Anna", "Michael", "Sarah", "James", "Laura", "Daniel", "Sofia",
+        "Omer", "Busra", "Yusuf", "Derya", "Deniz", "Gizem", "Onur", "Irem", "Baris", "Cansu",
+        "Lucas", "Emma", "Noah", "Olivia", "Leon", "Mia", "Luca", "Lea", "Hugo", "Chloe"
+    };
+    private static final String[] LAST_NAMES = {
+        "Yilmaz", "Kaya", "Demir", "Sahin", "Celik", "Yildiz", "Yildirim", "Ozturk", "Aydin", "Ozdemir",
+        "Arslan", "Dogan", "Kilic", "Aslan", "Cetin", "Kara", "Koc", "Kurt", "Ozkan", "Simsek",
+        "Smith", "Garcia", "Muller", "Rossi", "Martin", "Johnson", "Brown", "Silva", "Novak", "Schmidt",
+        "Polat", "Erdogan", "Korkmaz", "Tekin", "Aksoy", "Gunes", "Bulut", "Keskin", "Ucar", "Acar"
+    };
+    private static final String[] GRADES = {"A", "A-", "B+", "B", "B-", "C+", "C", "C-", "D", "F"};
+    private static final double[] GRADE_POINTS = {4.0, 3.7, 3.3, 3.0, 2.7, 2.3, 2.0, 1.7, 1.0, 0.0};
+
+    private long seed = DEFAULT_SEED;
+    private int students = 300_000;
+    private int courses = 3_000;
+    private int departments = DEPARTMENTS.length;
+    private double coursesPerTerm = 5.0;
+    private double popularitySkew = 1.0;
+    private int currentYear = 2025;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ProgressListener progressListener;
+    private volatile boolean cancelled;
+
+    private final StudentDAO studentDAO = new StudentDAO();
+    private final CourseDAO courseDAO = new CourseDAO();
+    private final EnrollmentDAO enrollmentDAO = new EnrollmentDAO();
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setStudents(int students) {
+        if (students < 0) {
+            throw new IllegalArgumentException("Number of students cannot be negative");
+        }
+        this.students = students;
+    }
+
+    public void setCourses(int courses) {
+        if (courses < 1) {
+            throw new IllegalArgumentException("At least one course is needed");
+        }
+        this.courses = courses;
+    }
+
+    /**
+     * Number of departments the courses and students are spread over,
+     * at most 24
+     */
+    public void setDepartments(int departments) {
+        if (departments < 1 || departments > DEPARTMENTS.length) {
+            throw new IllegalArgumentException("Departments must be between 1 and " + DEPARTMENTS.length);
+        }
+        this.departments = departments;
+    }
+
+    /**
+     * Mean number of courses a student takes in a Fall or Spring term.
+     * Students take up to eight such terms, fewer if they started
+     * recently, so the mean number of enrollments per student is about
+     * six times this.
+     */
+    public void setCoursesPerTerm(double coursesPerTerm) {
+        if (coursesPerTerm < 1 || coursesPerTerm > MAX_COURSES_PER_TERM) {
+            throw new IllegalArgumentException("Courses per term must be between 1 and " + MAX_COURSES_PER_TERM);
+        }
+        this.coursesPerTerm = coursesPerTerm;
+    }
+
+    /**
+     * Zipf exponent of course popularity; 0 makes every course equally
+     * popular
+     */
+    public void setPopularitySkew(double popularitySkew) {
+        if (popularitySkew < 0) {
+            throw new IllegalArgumentException("Popularity skew cannot be negative");
+        }
+        this.popularitySkew = popularitySkew;
+    }
+
+    /**
+     * Year of the Fall term in progress: its enrollments have no grade
+     * yet, and students started at most seven years before it. Fixed
+     * rather than taken from the clock so the data does not change from
+     * one day to the next.
+     */
+    public void setCurrentYear(int currentYear) {
+        this.currentYear = currentYear;
+    }
+
+    /**
+     * Rows per JDBC batch when writing to the database
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Worker threads; when writing to the database each one uses its own
+     * pooled connection
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Stops the run after the blocks being written, which are still
+     * counted in the result
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Writes the dataset through the DAOs' batch inserts and blocks until
+     * it is done or cancelled. Every block of students is written with
+     * its enrollments by one worker, so a worker commits a block's
+     * students before inserting the enrollments that refer to them.
+     */
+    public GenerationResult writeToDatabase() throws SQLException {
+        long startNanos = System.nanoTime();
+        cancelled = false;
+        GenerationResult result = new GenerationResult();
+        Catalogue catalogue = generateCatalogue();
+
+        BatchResult written = courseDAO.addCourses(catalogue.courses, chunkSize);
+        result.addCourses(written.getSucceeded());
+        int[] courseIds = new int[courses];
+        List<String> missingCodes = new ArrayList<>();
+        for (int i = 0; i < courses; i++) {
+            Course course = catalogue.courses.get(i);
+            courseIds[i] = course.getCourseId();
+            if (courseIds[i] == 0) {
+                missingCodes.add(course.getCourseCode());
+            }
+        }
+        // Courses left by an earlier run are used as they are
+        if (!missingCodes.isEmpty()) {
+            Map<String, Integer> existing = courseDAO.findIdsByCode(missingCodes);
+            for (int i = 0; i < courses; i++) {
+                if (courseIds[i] == 0) {
+                    courseIds[i] = existing.getOrDefault(catalogue.courses.get(i).getCourseCode(), 0);
+                }
+            }
+            result.addFailed(missingCodes.size() - existing.size());
+        }
+
+        try {
+            runBlocks(catalogue, block -> {
+                writeBlock(block, courseIds);
+                return block;
+            }, block -> {
+                result.addStudents(block.studentsWritten);
+                result.addEnrollments(block.enrollmentsWritten);
+                result.addFailed(block.failed);
+                result.addSkipped(block.skipped);
+            });
+        } catch (IOException e) {
+            // Only thrown when writing CSV
+            throw new SQLException(e);
+        }
+
+        result.setCancelled(cancelled);
+        result.setElapsedMillis((System.nanoTime() - startNanos) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Writes the dataset to students.csv, courses.csv and enrollments.csv
+     * in the given directory, replacing any files of those names.
+     * Enrollments refer to students by email and to courses by code, so
+     * the files can be imported into a database that already has rows.
+     */
+    public GenerationResult writeCsv(Path directory) throws IOException {
+        long startNanos = System.nanoTime();
+        cancelled = false;
+        GenerationResult result = new GenerationResult();
+        Catalogue catalogue = generateCatalogue();
+        Files.createDirectories(directory);
+
+        try (CsvWriter courseCsv = new CsvWriter(Files.newBufferedWriter(directory.resolve("courses.csv"),
+                StandardCharsets.UTF_8))) {
+            courseCsv.writeRecord("course_code", "course_name", "credits", "department", "description");
+            for (Course course : catalogue.courses) {
+                courseCsv.writeRecord(course.getCourseCode(), course.getCourseName(),
+                        String.valueOf(course.getCredits()), course.getDepartment(), course.getDescription());
+            }
+        }
+        result.addCourses(courses);
+
+        try (CsvWriter studentCsv = new CsvWriter(Files.newBufferedWriter(directory.resolve("students.csv"),
+                     StandardCharsets.UTF_8));
+             CsvWriter enrollmentCsv = new CsvWriter(Files.newBufferedWriter(directory.resolve("enrollments.csv"),
+                     StandardCharsets.UTF_8))) {
+            studentCsv.writeRecord("first_name", "last_name", "email", "phone", "date_of_birth",
+                    "enrollment_date", "status", "gpa");
+            enrollmentCsv.writeRecord("student_email", "course_code", "semester", "year", "grade",
+                    "enrollment_status", "enrollment_date");
+
+            runBlocks(catalogue, block -> {
+                block.render(catalogue);
+                return block;
+            }, block -> {
+                for (String[] record : block.studentRecords) {
+                    studentCsv.writeRecord(record);
+                }
+                for (String[] record : block.enrollmentRecords) {
+                    enrollmentCsv.writeRecord(record);
+                }
+                result.addStudents(block.studentRecords.size());
+                result.addEnrollments(block.enrollmentRecords.size());
+            });
+        } catch (SQLException e) {
+            // Only thrown when writing to the database
+            throw new IOException(e);
+        }
+
+        result.setCancelled(cancelled);
+        result.setElapsedMillis((System.nanoTime() - startNanos) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Generates the blocks on the worker pool and hands them to the
+     * consumer on the calling thread in block order, keeping at most a
+     * few blocks per worker in memory. After a cancel, blocks that have
+     * not started are skipped and the ones already being written are
+     * waited for and still handed to the consumer.
+     */
+    private void runBlocks(Catalogue catalogue, BlockTask task, BlockConsumer consumer)
+            throws IOException, SQLException {
+        int blockCount = (students + STUDENTS_PER_BLOCK - 1) / STUDENTS_PER_BLOCK;
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, daemonThreads("dataset-generator"));
+        ArrayDeque<Future<Block>> inFlight = new ArrayDeque<>();
+        // Set when the run ends early; blocks not started by then return null
+        AtomicBoolean stopping = new AtomicBoolean();
+        long studentsDone = 0;
+        long enrollmentsDone = 0;
+
+        try {
+            int next = 0;
+            while ((!cancelled && next < blockCount) || !inFlight.isEmpty()) {
+                while (!cancelled && next < blockCount && inFlight.size() < parallelism * 2) {
+                    int blockNumber = next++;
+                    inFlight.add(workers.submit(() -> cancelled || stopping.get()
+                            ? null
+                            : task.run(generateBlock(catalogue, blockNumber))));
+                }
+                Block block = await(inFlight.poll());
+                if (block == null) {
+                    continue;
+                }
+                consumer.accept(block);
+
+                studentsDone += block.students.size();
+                enrollmentsDone += block.enrollments.size();
+                if (progressListener != null) {
+                    progressListener.onProgress(studentsDone, enrollmentsDone, (double) studentsDone / students);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        } finally {
+            // JDBC calls cannot be interrupted, so wait for the workers
+            // rather than return while they are still writing
+            stopping.set(true);
+            workers.shutdown();
+            awaitTermination(workers);
+        }
+    }
+
+    /**
+     * Inserts a block's students, then their enrollments with the ids the
+     * students and courses got
+     */
+    private void writeBlock(Block block, int[] courseIds) throws SQLException {
+        BatchResult writtenStudents = studentDAO.addStudents(block.students, chunkSize);
+        block.studentsWritten = writtenStudents.getSucceeded();
+        block.failed = writtenStudents.getFailures().size();
+
+        List<Enrollment> writable = new ArrayList<>(block.enrollments.size());
+        for (Enrollment enrollment : block.enrollments) {
+            int studentId = block.students.get(enrollment.getStudentId()).getStudentId();
+            int courseId = courseIds[enrollment.getCourseId()];
+            if (studentId == 0 || courseId == 0) {
+                block.skipped++;
+                continue;
+            }
+            enrollment.setStudentId(studentId);
+            enrollment.setCourseId(courseId);
+            writable.add(enrollment);
+        }
+        if (!writable.isEmpty()) {
+            BatchResult writtenEnrollments = enrollmentDAO.addEnrollments(writable, chunkSize);
+            block.enrollmentsWritten = writtenEnrollments.getSucceeded();
+            block.failed += writtenEnrollments.getFailures().size();
+        }
+    }
+
+    // ------------------------------------------------------------ generation
+
+    private Catalogue generateCatalogue() {
+        Random random = new Random(streamSeed(COURSE_STREAM, 0));
+        Catalogue catalogue = new Catalogue(courses, departments);
+
+        // Course i belongs to department i % departments and ranks
+        // i / departments there; lower ranks are more popular and are
+        // numbered as lower level courses, e.g. CENG100 before CENG400
+        int perLevel = ((courses + departments - 1) / departments + 3) / 4;
+        int digits = Math.max(2, String.valueOf(perLevel - 1).length());
+        double[] weights = new double[courses];
+        for (int i = 0; i < courses; i++) {
+            int department = i % departments;
+            int rank = i / departments;
+            String[] names = DEPARTMENTS[department];
+            int level = 1 + rank / perLevel;
+            String title = COURSE_TITLES[Math.min(COURSE_TITLES.length - 1,
+                    (level - 1) * 2 + random.nextInt(2))];
+
+            Course course = new Course();
+            course.setCourseCode(names[1] + level + String.format(Locale.ROOT, "%0" + digits + "d", rank % perLevel));
+            course.setCourseName(title + " " + names[0]);
+            course.setCredits(CREDITS[random.nextInt(CREDITS.length)]);
+            course.setDepartment(names[0]);
+            course.setDescription("Level " + level * 100 + " course of the " + names[0] + " department");
+            catalogue.courses.add(course);
+            catalogue.credits[i] = course.getCredits();
+            weights[i] = 1.0 / Math.pow(rank + 1, popularitySkew);
+        }
+
+        catalogue.allCourses = new Sampler(weights, null);
+        for (int d = 0; d < departments; d++) {
+            List<Integer> members = new ArrayList<>();
+            for (int i = d; i < courses; i += departments) {
+                members.add(i);
+            }
+            double[] departmentWeights = new double[members.size()];
+            int[] indexes = new int[members.size()];
+            for (int j = 0; j < indexes.length; j++) {
+                indexes[j] = members.get(j);
+                departmentWeights[j] = weights[indexes[j]];
+            }
+            catalogue.byDepartment[d] = members.isEmpty() ? catalogue.allCourses : new Sampler(departmentWeights, indexes);
+        }
+        return catalogue;
+    }
+
+    /**
+     * Generates one block of students with their enrollments from the
+     * block's own random stream. Until the block is written, the
+     * enrollments hold the index of their student in the block and of
+     * their course in the catalogue in place of the ids.
+     */
+    private Block generateBlock(Catalogue catalogue, int blockNumber) {
+        Random random = new Random(streamSeed(STUDENT_STREAM, blockNumber));
+        int first = blockNumber * STUDENTS_PER_BLOCK;
+        int count = Math.min(STUDENTS_PER_BLOCK, students - first);
+        Block block = new Block(count);
+        List<Integer> termCourses = new ArrayList<>(MAX_COURSES_PER_TERM);
+        Set<Integer> taken = new HashSet<>();
+
+        for (int s = 0; s < count; s++) {
+            int number = first + s + 1;
+            String firstName = FIRST_NAMES[skewedIndex(random, FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[skewedIndex(random, LAST_NAMES.length)];
+            int major = random.nextInt(departments);
+            double ability = random.nextGaussian();
+            int startYear = currentYear - random.nextInt(PROGRAMME_TERMS);
+            int yearsIn = currentYear - startYear;
+            boolean graduated = yearsIn * 2 >= PROGRAMME_TERMS;
+            int terms = graduated ? PROGRAMME_TERMS : yearsIn * 2 + 1;
+            String status = graduated ? "Graduated" : "Active";
+            if (!graduated && terms > 1 && random.nextDouble() < SUSPENDED_RATE) {
+                // Left before the current term
+                status = "Suspended";
+                terms = 1 + random.nextInt(terms - 1);
+            }
+
+            taken.clear();
+            Student student = new Student();
+            student.setFirstName(firstName);
+            student.setLastName(lastName);
+            student.setEmail(firstName.toLowerCase(Locale.ROOT) + "." + lastName.toLowerCase(Locale.ROOT) + "."
+                    + number + "@students.unitrack.edu");
+            student.setPhone(String.format(Locale.ROOT, "555-%03d-%04d", random.nextInt(1000), random.nextInt(10_000)));
+            student.setDateOfBirth(LocalDate.of(startYear - 18 - random.nextInt(3), 1, 1)
+                    .plusDays(random.nextInt(365)));
+            student.setEnrollmentDate(termStart("Fall", startYear).minusDays(random.nextInt(60)));
+            student.setStatus(status);
+
+            double points = 0;
+            int credits = 0;
+            for (int term = 0; term < terms; term++) {
+                String semester = term % 2 == 0 ? "Fall" : "Spring";
+                int year = startYear + (term + 1) / 2;
+                int courseCount = (int) Math.round(coursesPerTerm + random.nextGaussian());
+                courseCount = Math.max(1, Math.min(MAX_COURSES_PER_TERM, courseCount));
+                for (int pass = 0; pass < 2; pass++) {
+                    pickCourses(random, catalogue, major, courseCount, taken, termCourses);
+                    boolean current = semester.equals("Fall") && year == currentYear;
+                    for (int course : termCourses) {
+                        Enrollment enrollment = newEnrollment(random, s, course, semester, year, ability, current);
+                        block.enrollments.add(enrollment);
+                        if (enrollment.getGrade() != null) {
+                            points += gradePoints(enrollment.getGrade()) * catalogue.credits[course];
+                            credits += catalogue.credits[course];
+                        }
+                    }
+                    // An occasional summer term after Spring
+                    if (!semester.equals("Spring") || term + 1 == terms || random.nextDouble() >= SUMMER_RATE) {
+                        break;
+                    }
+                    semester = "Summer";
+                    courseCount = 1 + random.nextInt(2);
+                }
+            }
+            student.setGpa(credits == 0 ? 0.0 : Math.round(points / credits * 100) / 100.0);
+            block.students.add(student);
+        }
+        return block;
+    }
+
+    /**
+     * Picks courses for one term that the student has not taken yet, from
+     * their department most of the time and from the whole catalogue
+     * otherwise. Picks fewer when the student has run out of courses.
+     */
+    private static void pickCourses(Random random, Catalogue catalogue, int major, int count,
+                                    Set<Integer> taken, List<Integer> picked) {
+        picked.clear();
+        int attempts = count * 20;
+        while (picked.size() < count && attempts-- > 0) {
+            Sampler sampler = random.nextDouble() < MAJOR_SHARE ? catalogue.byDepartment[major] : catalogue.allCourses;
+            int course = sampler.sample(random);
+            if (taken.add(course)) {
+                picked.add(course);
+            }
+        }
+    }
+
+    private static Enrollment newEnrollment(Random random, int student, int course, String semester, int year,
+                                            double ability, boolean current) {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setStudentId(student);
+        enrollment.setCourseId(course);
+        enrollment.setSemester(semester);
+        enrollment.setYear(year);
+        enrollment.setEnrollmentDate(termStart(semester, year).minusDays(random.nextInt(21)));
+        if (current) {
+            enrollment.setEnrollmentStatus("Enrolled");
+        } else if (random.nextDouble() < DROP_RATE) {
+            enrollment.setEnrollmentStatus("Dropped");
+        } else {
+            enrollment.setEnrollmentStatus("Completed");
+            double score = 2.9 + 0.55 * ability + 0.7 * random.nextGaussian();
+            enrollment.setGrade(GRADES[nearestGrade(score)]);
+        }
+        return enrollment;
+    }
+
+    private static LocalDate termStart(String semester, int year) {
+        switch (semester) {
+            case "Fall":
+                return LocalDate.of(year, 9, 15);
+            case "Spring":
+                return LocalDate.of(year, 2, 10);
+            default:
+                return LocalDate.of(year, 6, 20);
+        }
+    }
+
+    private static int nearestGrade(double score) {
+        // Below a D rather than nearer to 0 than to 1
+        if (score < 1.0) {
+            return GRADES.length - 1;
+        }
+        int best = 0;
+        for (int i = 1; i < GRADE_POINTS.length; i++) {
+            if (Math.abs(GRADE_POINTS[i] - score) < Math.abs(GRADE_POINTS[best] - score)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static double gradePoints(String grade) {
+        for (int i = 0; i < GRADES.length; i++) {
+            if (GRADES[i].equals(grade)) {
+                return GRADE_POINTS[i];
+            }
+        }
+        return 0.0;
+    }
+
+    /**
+     * Index into a list ordered by popularity, the first entries being
+     * picked most often
+     */
+    private static int skewedIndex(Random random, int size) {
+        double u = random.nextDouble();
+        return (int) (size * u * u);
+    }
+
+    /**
+     * Seed of one random stream, mixed so that nearby blocks get
+     * unrelated sequences
+     */
+    private long streamSeed(int stream, long block) {
+        long z = seed + stream * 0xBF58476D1CE4E5B9L + block * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static Block await(Future<Block> future) throws IOException, SQLException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService workers) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Generates a dataset from the command line. Sizes are read from
+     * -Dunitrack.generator.* system properties; with a directory argument
+     * the data is written there as CSV, otherwise into the database.
+     */
+    public static void main(String[] args) throws IOException, SQLException {
+        DatasetGenerator generator = new DatasetGenerator();
+        generator.setSeed(Long.getLong("unitrack.generator.seed", DEFAULT_SEED));
+        generator.setStudents(Integer.getInteger("unitrack.generator.students", generator.students));
+        generator.setCourses(Integer.getInteger("unitrack.generator.courses", generator.courses));
+        generator.setDepartments(Integer.getInteger("unitrack.generator.departments", generator.departments));
+        generator.setCoursesPerTerm(Double.parseDouble(System.getProperty("unitrack.generator.coursesPerTerm",
+                String.valueOf(generator.coursesPerTerm))));
+        generator.setPopularitySkew(Double.parseDouble(System.getProperty("unitrack.generator.popularitySkew",
+                String.valueOf(generator.popularitySkew))));
+        generator.setCurrentYear(Integer.getInteger("unitrack.generator.currentYear", generator.currentYear));
+        generator.setParallelism(Integer.getInteger("unitrack.generator.parallelism", generator.parallelism));
+        generator.setProgressListener((studentsDone, enrollmentsDone, fraction) -> {
+            if (studentsDone % 50_000 < STUDENTS_PER_BLOCK || fraction >= 1.0) {
+                System.out.printf(Locale.ROOT, "%5.1f%%  %d students, %d enrollments%n",
+                        fraction * 100, studentsDone, enrollmentsDone);
+            }
+        });
+
+        GenerationResult result = args.length > 0
+                ? generator.writeCsv(Paths.get(args[0]))
+                : generator.writeToDatabase();
+        System.out.println(result);
+    }
+
+    // ------------------------------------------------------------ internals
+
+    @FunctionalInterface
+    private interface BlockTask {
+        Block run(Block block) throws IOException, SQLException;
+    }
+
+    @FunctionalInterface
+    private interface BlockConsumer {
+        void accept(Block block) throws IOException;
+    }
+
+    /**
+     * The courses and the popularity samplers over them
+     */
+    private static final class Catalogue {
+        final List<Course> courses;
+        final int[] credits;
+        final Sampler[] byDepartment;
+        Sampler allCourses;
+
+        Catalogue(int courseCount, int departmentCount) {
+            courses = new ArrayList<>(courseCount);
+            credits = new int[courseCount];
+            byDepartment = new Sampler[departmentCount];
+        }
+    }
+
+    /**
+     * Picks course indexes in proportion to their weights
+     */
+    private static final class Sampler {
+        private final double[] cumulative;
+        private final int[] indexes;
+
+        /**
+         * @param indexes course index of each weight, or null when the
+         *                weights cover the whole catalogue in order
+         */
+        Sampler(double[] weights, int[] indexes) {
+            cumulative = new double[weights.length];
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                total += weights[i];
+                cumulative[i] = total;
+            }
+            this.indexes = indexes;
+        }
+
+        int sample(Random random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int position = Arrays.binarySearch(cumulative, target);
+            if (position < 0) {
+                position = -position - 1;
+            }
+            position = Math.min(position, cumulative.length - 1);
+            return indexes == null ? position : indexes[position];
+        }
+    }
+
+    /**
+     * One block of students and their enrollments, with the outcome of
+     * writing it
+     */
+    private static final class Block {
+        final List<Student> students;
+        final List<Enrollment> enrollments = new ArrayList<>();
+        List<String[]> studentRecords;
+        List<String[]> enrollmentRecords;
+        int studentsWritten;
+        int enrollmentsWritten;
+        int failed;
+        int skipped;
+
+        Block(int count) {
+            students = new ArrayList<>(count);
+        }
+
+        void render(Catalogue catalogue) {
+            studentRecords = new ArrayList<>(students.size());
+            for (Student student : students) {
+                studentRecords.add(new String[] {
+                    student.getFirstName(), student.getLastName(), student.getEmail(), student.getPhone(),
+                    student.getDateOfBirth().toString(), student.getEnrollmentDate().toString(),
+                    student.getStatus(), String.valueOf(student.getGpa())
+                });
+            }
+            enrollmentRecords = new ArrayList<>(enrollments.size());
+            for (Enrollment enrollment : enrollments) {
+                enrollmentRecords.add(new String[] {
+                    students.get(enrollment.getStudentId()).getEmail(),
+                    catalogue.courses.get(enrollment.getCourseId()).getCourseCode(),
+                    enrollment.getSemester(), String.valueOf(enrollment.getYear()), enrollment.getGrade(),
+                    enrollment.getEnrollmentStatus(), enrollment.getEnrollmentDate().toString()
+                });
+            }
+        }
+    }
+}
@@ -4,30 +4,31 @@ import javafx.beans.property.*;
 import java.time.LocalDate;
 
 public class Enrollment {
-    private final IntegerProperty enrollmentId;
-    private final IntegerProperty studentId;
-    private final IntegerProperty courseId;
-    private final StringProperty semester;
-    private final IntegerProperty year;
-    private final StringProperty grade;
-    private final StringProperty enrollmentStatus;
-    private final ObjectProperty<LocalDate> enrollmentDate;
-
-    private final StringProperty studentName;
-    private final StringProperty courseName;
+    private int enrollmentId;
+    private int studentId;
+    private int courseId;
+    private String semester;
+    private int year;
+    private String grade;
+    private String enrollmentStatus;
+    private LocalDate enrollmentDate;
+    private String studentName;
+    private String courseName;
+
+    // Created on first use by xxxProperty(), e.g. when a cell binds
+    private IntegerProperty enrollmentIdProperty;
+    private IntegerProperty studentIdProperty;
+    private IntegerProperty courseIdProperty;
+    private StringProperty semesterProperty;
+    private IntegerProperty yearProperty;
+    private StringProperty gradeProperty;
+    private StringProperty enrollmentStatusProperty;
+    private ObjectProperty<LocalDate> enrollmentDateProperty;
+    private StringProperty studentNameProperty;
+    private StringProperty courseNameProperty;
 
     
     public Enrollment() {
-        this.enrollmentId = new SimpleIntegerProperty();
-        this.studentId = new SimpleIntegerProperty();
-        this.courseId = new SimpleIntegerProperty();
-        this.semester = new SimpleStringProperty();
-        this.year = new SimpleIntegerProperty();
-        this.grade = new SimpleStringProperty();
-        this.enrollmentStatus = new SimpleStringProperty();
-        this.enrollmentDate = new SimpleObjectProperty<>();
-        this.studentName = new SimpleStringProperty();
-        this.courseName = new SimpleStringProperty();
     }
 
 
@@ -45,124 +46,206 @@ public class Enrollment {
         setEnrollmentDate(enrollmentDate);
     }
 
+    /**
+     * Copy constructor; the copy shares no properties with the original
+     * and keeps its display names
+     */
+    public Enrollment(Enrollment other) {
+        this(other.getEnrollmentId(), other.getStudentId(), other.getCourseId(),
+                other.getSemester(), other.getYear(), other.getGrade(),
+                other.getEnrollmentStatus(), other.getEnrollmentDate());
+        setStudentName(other.getStudentName());
+        setCourseName(other.getCourseName());
+    }
+
     public IntegerProperty enrollmentIdProperty() {
-        return enrollmentId;
+        if (enrollmentIdProperty == null) {
+            enrollmentIdProperty = new SimpleIntegerProperty(this, "enrollmentId", enrollmentId);
+        }
+        return enrollmentIdProperty;
     }
 
     public int getEnrollmentId() {
-        return enrollmentId.get();
+        return enrollmentIdProperty == null ? enrollmentId : enrollmentIdProperty.get();
     }
 
     public void setEnrollmentId(int enrollmentId) {
-        this.enrollmentId.set(enrollmentId);
+        if (enrollmentIdProperty == null) {
+            this.enrollmentId = enrollmentId;
+        } else {
+            enrollmentIdProperty.set(enrollmentId);
+        }
     }
 
     public IntegerProperty studentIdProperty() {
-        return studentId;
+        if (studentIdProperty == null) {
+            studentIdProperty = new SimpleIntegerProperty(this, "studentId", studentId);
+        }
+        return studentIdProperty;
     }
 
     public int getStudentId() {
-        return studentId.get();
+        return studentIdProperty == null ? studentId : studentIdProperty.get();
     }
 
     public void setStudentId(int studentId) {
-        this.studentId.set(studentId);
+        if (studentIdProperty == null) {
+            this.studentId = studentId;
+        } else {
+            studentIdProperty.set(studentId);
+        }
     }
 
     public IntegerProperty courseIdProperty() {
-        return courseId;
+        if (courseIdProperty == null) {
+            courseIdProperty = new SimpleIntegerProperty(this, "courseId", courseId);
+        }
+        return courseIdProperty;
     }
 
     public int getCourseId() {
-        return courseId.get();
+        return courseIdProperty == null ? courseId : courseIdProperty.get();
     }
 
     public void setCourseId(int courseId) {
-        this.courseId.set(courseId);
+        if (courseIdProperty == null) {
+            this.courseId = courseId;
+        } else {
+            courseIdProperty.set(courseId);
+        }
     }
 
     public StringProperty semesterProperty() {
-        return semester;
+        if (semesterProperty == null) {
+            semesterProperty = new SimpleStringProperty(this, "semester", semester);
+        }
+        return semesterProperty;
     }
 
     public String getSemester() {
-        return semester.get();
+        return semesterProperty == null ? semester : semesterProperty.get();
     }
 
     public void setSemester(String semester) {
-        this.semester.set(semester);
+        if (semesterProperty == null) {
+            this.semester = semester;
+        } else {
+            semesterProperty.set(semester);
+        }
     }
 
     public IntegerProperty yearProperty() {
-        return year;
+        if (yearProperty == null) {
+            yearProperty = new SimpleIntegerProperty(this, "year", year);
+        }
+        return yearProperty;
     }
 
     public int getYear() {
-        return year.get();
+        return yearProperty == null ? year : yearProperty.get();
     }
 
     public void setYear(int year) {
-        this.year.set(year);
+        if (yearProperty == null) {
+            this.year = year;
+        } else {
+            yearProperty.set(year);
+        }
     }
 
     public StringProperty gradeProperty() {
-        return grade;
+        if (gradeProperty == null) {
+            gradeProperty = new SimpleStringProperty(this, "grade", grade);
+        }
+        return gradeProperty;
     }
 
     public String getGrade() {
-        return grade.get();
+        return gradeProperty == null ? grade : gradeProperty.get();
     }
 
     public void setGrade(String grade) {
-        this.grade.set(grade);
+        if (gradeProperty == null) {
+            this.grade = grade;
+        } else {
+            gradeProperty.set(grade);
+        }
     }
 
     public StringProperty enrollmentStatusProperty() {
-        return enrollmentStatus;
+        if (enrollmentStatusProperty == null) {
+            enrollmentStatusProperty = new SimpleStringProperty(this, "enrollmentStatus", enrollmentStatus);
+        }
+        return enrollmentStatusProperty;
     }
 
     public String getEnrollmentStatus() {
-        return enrollmentStatus.get();
+        return enrollmentStatusProperty == null ? enrollmentStatus : enrollmentStatusProperty.get();
     }
 
     public void setEnrollmentStatus(String enrollmentStatus) {
-        this.enrollmentStatus.set(enrollmentStatus);
+        if (enrollmentStatusProperty == null) {
+            this.enrollmentStatus = enrollmentStatus;
+        } else {
+            enrollmentStatusProperty.set(enrollmentStatus);
+        }
     }
 
     public ObjectProperty<LocalDate> enrollmentDateProperty() {
-        return enrollmentDate;
+        if (enrollmentDateProperty == null) {
+            enrollmentDateProperty = new SimpleObjectProperty<>(this, "enrollmentDate", enrollmentDate);
+        }
+        return enrollmentDateProperty;
     }
 
     public LocalDate getEnrollmentDate() {
-        return enrollmentDate.get();
+        return enrollmentDateProperty == null ? enrollmentDate : enrollmentDateProperty.get();
     }
 
     public void setEnrollmentDate(LocalDate enrollmentDate) {
-        this.enrollmentDate.set(enrollmentDate);
+        if (enrollmentDateProperty == null) {
+            this.enrollmentDate = enrollmentDate;
+        } else {
+            enrollmentDateProperty.set(enrollmentDate);
+        }
     }
 
     public StringProperty studentNameProperty() {
-        return studentName;
+        if (studentNameProperty == null) {
+            studentNameProperty = new SimpleStringProperty(this, "studentName", studentName);
+        }
+        return studentNameProperty;
     }
 
     public String getStudentName() {
-        return studentName.get();
+        return studentNameProperty == null ? studentName : studentNameProperty.get();
     }
 
     public void setStudentName(String studentName) {
-        this.studentName.set(studentName);
+        if (studentNameProperty == null) {
+            this.studentName = studentName;
+        } else {
+            studentNameProperty.set(studentName);
+        }
     }
 
     public StringProperty courseNameProperty() {
-        return courseName;
+        if (courseNameProperty == null) {
+            courseNameProperty = new SimpleStringProperty(this, "courseName", courseName);
+        }
+        return courseNameProperty;
     }
 
     public String getCourseName() {
-        return courseName.get();
+        return courseNameProperty == null ? courseName : courseNameProperty.get();
     }
 
     public void setCourseName(String courseName) {
-        this.courseName.set(courseName);
+        if (courseNameProperty == null) {
+            this.courseName = courseName;
+        } else {
+            courseNameProperty.set(courseName);
+        }
     }
 
     @Override
@@ -1,9 +1,16 @@
 package advancejavaproject4.database;
 
 import advancejavaproject4.model.Enrollment;
+import advancejavaproject4.database.KeysetQuery.SortKey;
+import advancejavaproject4.database.KeysetQuery.ValueType;
 import java.sql.*;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Enrollment entity
@@ -12,57 +19,153 @@ import java.util.List;
  */
 public class EnrollmentDAO {
 
+    // Enrollment columns plus the joined student and course names
+    private static final String SELECT_WITH_NAMES = "SELECT e.*, " +
+            "CONCAT(s.first_name, ' ', s.last_name) AS student_name, " +
+            "c.course_name " +
+            "FROM enrollments e " +
+            "JOIN students s ON e.student_id = s.student_id " +
+            "JOIN courses c ON e.course_id = c.course_id ";
+
+    // Enrollment columns only; names come from the NameDictionary
+    private static final String SELECT_ENROLLMENTS = "SELECT e.* FROM enrollments e ";
+
+    private static final boolean NAME_DICTIONARY_DEFAULT = Boolean.getBoolean("unitrack.enrollments.nameDictionary");
+
+    private static final String INSERT_SQL = "INSERT INTO enrollments (student_id, course_id, semester, year, " +
+            "grade, enrollment_status, enrollment_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL = "UPDATE enrollments SET student_id = ?, course_id = ?, semester = ?, " +
+            "year = ?, grade = ?, enrollment_status = ?, enrollment_date = ? " +
+            "WHERE enrollment_id = ?";
+
+    private static final String DUPLICATE_ENROLLMENT_MESSAGE =
+            "Duplicate enrollment. Student is already enrolled in this course for the same semester and year.";
+
+    /**
+     * Metrics of each operation, see DaoMetrics
+     */
+    private static final class Metrics {
+        static final OperationMetrics GET_ALL = DaoMetrics.operation("EnrollmentDAO.getAllEnrollments");
+        static final OperationMetrics GET_BY_ID = DaoMetrics.operation("EnrollmentDAO.getEnrollmentById");
+        static final OperationMetrics BY_STUDENT = DaoMetrics.operation("EnrollmentDAO.getEnrollmentsByStudent");
+        static final OperationMetrics BY_COURSE = DaoMetrics.operation("EnrollmentDAO.getEnrollmentsByCourse");
+        static final OperationMetrics ADD = DaoMetrics.operation("EnrollmentDAO.addEnrollment");
+        static final OperationMetrics UPDATE = DaoMetrics.operation("EnrollmentDAO.updateEnrollment");
+        static final OperationMetrics ADD_BATCH = DaoMetrics.operation("EnrollmentDAO.addEnrollments");
+        static final OperationMetrics UPDATE_BATCH = DaoMetrics.operation("EnrollmentDAO.updateEnrollments");
+        static final OperationMetrics DELETE = DaoMetrics.operation("EnrollmentDAO.deleteEnrollment");
+        static final OperationMetrics PAGE = DaoMetrics.operation("EnrollmentDAO.getEnrollmentsPage");
+        static final OperationMetrics COUNT = DaoMetrics.operation("EnrollmentDAO.countEnrollments");
+        static final OperationMetrics STREAM_ALL = DaoMetrics.operation("EnrollmentDAO.streamAllEnrollments");
+        static final OperationMetrics STREAM_FILTERED = DaoMetrics.operation("EnrollmentDAO.streamEnrollments");
+        static final OperationMetrics STREAM_BY_STUDENT =
+                DaoMetrics.operation("EnrollmentDAO.streamEnrollmentsByStudent");
+        static final OperationMetrics STREAM_BY_COURSE =
+                DaoMetrics.operation("EnrollmentDAO.streamEnrollmentsByCourse");
+    }
+
+    // Properties the paged listing can sort by, mapped to their columns
+    private static final Map<String, SortKey<Enrollment>> SORT_KEYS = new LinkedHashMap<>();
+
+    static {
+        SORT_KEYS.put("enrollmentId", new SortKey<>("e.enrollment_id", ValueType.INT, Enrollment::getEnrollmentId));
+        SORT_KEYS.put("studentId", new SortKey<>("e.student_id", ValueType.INT, Enrollment::getStudentId));
+        SORT_KEYS.put("courseId", new SortKey<>("e.course_id", ValueType.INT, Enrollment::getCourseId));
+        SORT_KEYS.put("studentName", new SortKey<>("CONCAT(s.first_name, ' ', s.last_name)",
+                ValueType.STRING, Enrollment::getStudentName));
+        SORT_KEYS.put("courseName", new SortKey<>("c.course_name", ValueType.STRING, Enrollment::getCourseName));
+        SORT_KEYS.put("semester", new SortKey<>("e.semester", ValueType.STRING, Enrollment::getSemester));
+        SORT_KEYS.put("year", new SortKey<>("e.year", ValueType.INT, Enrollment::getYear));
+        SORT_KEYS.put("grade", new SortKey<>("e.grade", ValueType.STRING, Enrollment::getGrade));
+        SORT_KEYS.put("enrollmentStatus", new SortKey<>("e.enrollment_status", ValueType.STRING,
+                Enrollment::getEnrollmentStatus));
+        SORT_KEYS.put("enrollmentDate", new SortKey<>("e.enrollment_date", ValueType.DATE,
+                Enrollment::getEnrollmentDate));
+    }
+
+    private final boolean useNameDictionary;
+
+    /**
+     * Uses the name dictionary if the unitrack.enrollments.nameDictionary
+     * system property is true, and joins the names otherwise
+     */
+    public EnrollmentDAO() {
+        this(NAME_DICTIONARY_DEFAULT);
+    }
+
+    /**
+     * @param useNameDictionary read only the enrollments table and take the
+     *                          student and course names from NameDictionary
+     *                          instead of joining them on every query
+     */
+    public EnrollmentDAO(boolean useNameDictionary) {
+        this.useNameDictionary = useNameDictionary;
+    }
+
+    public boolean isUsingNameDictionary() {
+        return useNameDictionary;
+    }
+
     public List<Enrollment> getAllEnrollments() throws SQLException {
-        List<Enrollment> enrollments = new ArrayList<>();
-        String sql = "SELECT e.*, " +
-                     "CONCAT(s.first_name, ' ', s.last_name) AS student_name, " +
-                     "c.course_name " +
-                     "FROM enrollments e " +
-                     "JOIN students s ON e.student_id = s.student_id " +
-                     "JOIN courses c ON e.course_id = c.course_id " +
+        DaoCallEvent call = Metrics.GET_ALL.begin();
+        List<Enrollment> enrollments;
+        String sql = selectSql() +
                      "ORDER BY e.enrollment_id";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
-            while (rs.next()) {
-                Enrollment enrollment = new Enrollment();
-                enrollment.setEnrollmentId(rs.getInt("enrollment_id"));
-                enrollment.setStudentId(rs.getInt("student_id"));
-                enrollment.setCourseId(rs.getInt("course_id"));
-                enrollment.setSemester(rs.getString("semester"));
-                enrollment.setYear(rs.getInt("year"));
-                enrollment.setGrade(rs.getString("grade"));
-                enrollment.setEnrollmentStatus(rs.getString("enrollment_status"));
-
-                Date enrollDate = rs.getDate("enrollment_date");
-                if (enrollDate != null) {
-                    enrollment.setEnrollmentDate(enrollDate.toLocalDate());
-                }
-
-                enrollment.setStudentName(rs.getString("student_name"));
-                enrollment.setCourseName(rs.getString("course_name"));
-
-                enrollments.add(enrollment);
-            }
+            enrollments = RowMapper.mapAll(rs, EnrollmentRowMapper.forResultSet(rs));
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error fetching all enrollments: " + e.getMessage());
             throw e;
         }
 
+        fillNames(enrollments);
+        call.succeeded(enrollments.size());
         return enrollments;
     }
 
 
+    /**
+     * The enrollment with its student and course names, or null if it does not exist
+     */
+    public Enrollment getEnrollmentById(int enrollmentId) throws SQLException {
+        DaoCallEvent call = Metrics.GET_BY_ID.begin();
+        Enrollment enrollment = null;
+        String sql = selectSql() +
+                     "WHERE e.enrollment_id = ?";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, enrollmentId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    enrollment = EnrollmentRowMapper.forResultSet(rs).mapRow(rs);
+                }
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error fetching enrollment: " + e.getMessage());
+            throw e;
+        }
+
+        if (enrollment != null && useNameDictionary) {
+            fillNames(enrollment);
+        }
+        call.succeeded(enrollment != null ? 1 : 0);
+        return enrollment;
+    }
+
     public List<Enrollment> getEnrollmentsByStudent(int studentId) throws SQLException {
-        List<Enrollment> enrollments = new ArrayList<>();
-        String sql = "SELECT e.*, " +
-                     "CONCAT(s.first_name, ' ', s.last_name) AS student_name, " +
-                     "c.course_name " +
-                     "FROM enrollments e " +
-                     "JOIN students s ON e.student_id = s.student_id " +
-                     "JOIN courses c ON e.course_id = c.course_id " +
+        DaoCallEvent call = Metrics.BY_STUDENT.begin();
+        List<Enrollment> enrollments;
+        String sql = selectSql() +
                      "WHERE e.student_id = ? " +
                      "ORDER BY e.year DESC, e.semester";
 
@@ -72,45 +175,26 @@ public class EnrollmentDAO {
             pstmt.setInt(1, studentId);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Enrollment enrollment = new Enrollment();
-                    enrollment.setEnrollmentId(rs.getInt("enrollment_id"));
-                    enrollment.setStudentId(rs.getInt("student_id"));
-                    enrollment.setCourseId(rs.getInt("course_id"));
-                    enrollment.setSemester(rs.getString("semester"));
-                    enrollment.setYear(rs.getInt("year"));
-                    enrollment.setGrade(rs.getString("grade"));
-                    enrollment.setEnrollmentStatus(rs.getString("enrollment_status"));
-
-                    Date enrollDate = rs.getDate("enrollment_date");
-                    if (enrollDate != null) {
-                        enrollment.setEnrollmentDate(enrollDate.toLocalDate());
-                    }
-
-                    enrollment.setStudentName(rs.getString("student_name"));
-                    enrollment.setCourseName(rs.getString("course_name"));
-
-                    enrollments.add(enrollment);
-                }
+                enrollments = RowMapper.mapAll(rs, EnrollmentRowMapper.forResultSet(rs));
             }
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error fetching enrollments by student: " + e.getMessage());
             throw e;
         }
 
+        fillNames(enrollments);
+        call.succeeded(enrollments.size());
         return enrollments;
     }
 
     public List<Enrollment> getEnrollmentsByCourse(int courseId) throws SQLException {
-        List<Enrollment> enrollments = new ArrayList<>();
-        String sql = "SELECT e.*, " +
-                     "CONCAT(s.first_name, ' ', s.last_name) AS student_name, " +
-                     "c.course_name " +
-                     "FROM enrollments e " +
-                     "JOIN students s ON e.student_id = s.student_id " +
-                     "JOIN courses c ON e.course_id = c.course_id " +
-                     "WHERE e.course_id = ? " +
-                     "ORDER BY s.last_name, s.first_name";
+        DaoCallEvent call = Metrics.BY_COURSE.begin();
+        List<Enrollment> enrollments;
+        // Without the students join the rows are sorted by name afterwards
+        String sql = useNameDictionary
+                ? SELECT_ENROLLMENTS + "WHERE e.course_id = ?"
+                : SELECT_WITH_NAMES + "WHERE e.course_id = ? ORDER BY s.last_name, s.first_name";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -118,63 +202,46 @@ public class EnrollmentDAO {
             pstmt.setInt(1, courseId);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Enrollment enrollment = new Enrollment();
-                    enrollment.setEnrollmentId(rs.getInt("enrollment_id"));
-                    enrollment.setStudentId(rs.getInt("student_id"));
-                    enrollment.setCourseId(rs.getInt("course_id"));
-                    enrollment.setSemester(rs.getString("semester"));
-                    enrollment.setYear(rs.getInt("year"));
-                    enrollment.setGrade(rs.getString("grade"));
-                    enrollment.setEnrollmentStatus(rs.getString("enrollment_status"));
-
-                    Date enrollDate = rs.getDate("enrollment_date");
-                    if (enrollDate != null) {
-                        enrollment.setEnrollmentDate(enrollDate.toLocalDate());
-                    }
-
-                    enrollment.setStudentName(rs.getString("student_name"));
-                    enrollment.setCourseName(rs.getString("course_name"));
-
-                    enrollments.add(enrollment);
-                }
+                enrollments = RowMapper.mapAll(rs, EnrollmentRowMapper.forResultSet(rs));
             }
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error fetching enrollments by course: " + e.getMessage());
             throw e;
         }
 
+        if (useNameDictionary) {
+            fillNames(enrollments);
+            sortByStudentName(enrollments);
+        }
+        call.succeeded(enrollments.size());
         return enrollments;
     }
 
 
     public boolean addEnrollment(Enrollment enrollment) throws SQLException {
-        String sql = "INSERT INTO enrollments (student_id, course_id, semester, year, " +
-                     "grade, enrollment_status, enrollment_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
+        DaoCallEvent call = Metrics.ADD.begin();
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setInt(1, enrollment.getStudentId());
-            pstmt.setInt(2, enrollment.getCourseId());
-            pstmt.setString(3, enrollment.getSemester());
-            pstmt.setInt(4, enrollment.getYear());
-            pstmt.setString(5, enrollment.getGrade());
-            pstmt.setString(6, enrollment.getEnrollmentStatus());
-
-            if (enrollment.getEnrollmentDate() != null) {
-                pstmt.setDate(7, Date.valueOf(enrollment.getEnrollmentDate()));
-            } else {
-                pstmt.setNull(7, Types.DATE);
-            }
+            bindEnrollment(pstmt, enrollment);
 
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        enrollment.setEnrollmentId(keys.getInt(1));
+                    }
+                }
+            }
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             // Check for duplicate enrollment constraint violation
             if (e.getErrorCode() == 1062) {
-                throw new SQLException("Duplicate enrollment. Student is already enrolled in this course for the same semester and year.", e);
+                throw new SQLException(DUPLICATE_ENROLLMENT_MESSAGE, e);
             }
             // Check for foreign key constraint violation
             if (e.getErrorCode() == 1452) {
@@ -187,35 +254,22 @@ public class EnrollmentDAO {
 
 
     public boolean updateEnrollment(Enrollment enrollment) throws SQLException {
-        String sql = "UPDATE enrollments SET student_id = ?, course_id = ?, semester = ?, " +
-                     "year = ?, grade = ?, enrollment_status = ?, enrollment_date = ? " +
-                     "WHERE enrollment_id = ?";
-
+        DaoCallEvent call = Metrics.UPDATE.begin();
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, enrollment.getStudentId());
-            pstmt.setInt(2, enrollment.getCourseId());
-            pstmt.setString(3, enrollment.getSemester());
-            pstmt.setInt(4, enrollment.getYear());
-            pstmt.setString(5, enrollment.getGrade());
-            pstmt.setString(6, enrollment.getEnrollmentStatus());
-
-            if (enrollment.getEnrollmentDate() != null) {
-                pstmt.setDate(7, Date.valueOf(enrollment.getEnrollmentDate()));
-            } else {
-                pstmt.setNull(7, Types.DATE);
-            }
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
 
+            bindEnrollment(pstmt, enrollment);
             pstmt.setInt(8, enrollment.getEnrollmentId());
 
             int rowsAffected = pstmt.executeUpdate();
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             // Check for duplicate enrollment constraint violation
             if (e.getErrorCode() == 1062) {
-                throw new SQLException("Duplicate enrollment. Student is already enrolled in this course for the same semester and year.", e);
+                throw new SQLException(DUPLICATE_ENROLLMENT_MESSAGE, e);
             }
             // Check for foreign key constraint violation
             if (e.getErrorCode() == 1452) {
@@ -226,8 +280,84 @@ public class EnrollmentDAO {
         }
     }
 
+    /**
+     * Inserts many enrollments in one transaction using JDBC batches.
+     * Generated ids are written back into the Enrollment objects; rows that
+     * fail (duplicate enrollment, unknown student or course) are reported
+     * in the result and skipped.
+     */
+    public BatchResult addEnrollments(List<Enrollment> enrollments) throws SQLException {
+        return addEnrollments(enrollments, BatchWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchResult addEnrollments(List<Enrollment> enrollments, int chunkSize) throws SQLException {
+        DaoCallEvent call = Metrics.ADD_BATCH.begin();
+        try {
+            BatchResult result = BatchWriter.execute(INSERT_SQL, enrollments, chunkSize,
+                    EnrollmentDAO::bindEnrollment, Enrollment::setEnrollmentId, EnrollmentDAO::describeWriteError);
+            call.succeeded(result.getSucceeded());
+            return result;
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error adding enrollments: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Updates many enrollments in one transaction using JDBC batches
+     */
+    public BatchResult updateEnrollments(List<Enrollment> enrollments) throws SQLException {
+        return updateEnrollments(enrollments, BatchWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchResult updateEnrollments(List<Enrollment> enrollments, int chunkSize) throws SQLException {
+        DaoCallEvent call = Metrics.UPDATE_BATCH.begin();
+        try {
+            BatchResult result = BatchWriter.execute(UPDATE_SQL, enrollments, chunkSize, (pstmt, enrollment) -> {
+                bindEnrollment(pstmt, enrollment);
+                pstmt.setInt(8, enrollment.getEnrollmentId());
+            }, null, EnrollmentDAO::describeWriteError);
+            call.succeeded(result.getSucceeded());
+            return result;
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error updating enrollments: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Binds the seven column values shared by INSERT_SQL and UPDATE_SQL
+     */
+    private static void bindEnrollment(PreparedStatement pstmt, Enrollment enrollment) throws SQLException {
+        pstmt.setInt(1, enrollment.getStudentId());
+        pstmt.setInt(2, enrollment.getCourseId());
+        pstmt.setString(3, enrollment.getSemester());
+        pstmt.setInt(4, enrollment.getYear());
+        pstmt.setString(5, enrollment.getGrade());
+        pstmt.setString(6, enrollment.getEnrollmentStatus());
+
+        if (enrollment.getEnrollmentDate() != null) {
+            pstmt.setDate(7, Date.valueOf(enrollment.getEnrollmentDate()));
+        } else {
+            pstmt.setNull(7, Types.DATE);
+        }
+    }
+
+    private static String describeWriteError(SQLException e) {
+        if (e.getErrorCode() == 1062) {
+            return DUPLICATE_ENROLLMENT_MESSAGE;
+        }
+        if (e.getErrorCode() == 1452) {
+            return "Invalid student ID or course ID.";
+        }
+        return e.getMessage();
+    }
+
     
     public boolean deleteEnrollment(int enrollmentId) throws SQLException {
+        DaoCallEvent call = Metrics.DELETE.begin();
         String sql = "DELETE FROM enrollments WHERE enrollment_id = ?";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -236,11 +366,245 @@ public class EnrollmentDAO {
             pstmt.setInt(1, enrollmentId);
 
             int rowsAffected = pstmt.executeUpdate();
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error deleting enrollment: " + e.getMessage());
             throw e;
         }
     }
+
+    /**
+     * Returns one page of enrollments using keyset pagination.
+     * Pass the token of the previous page to continue after it.
+     */
+    public Page<Enrollment> getEnrollmentsPage(PageRequest request) throws SQLException {
+        DaoCallEvent call = Metrics.PAGE.begin();
+        // Sorting or filtering by a name needs the joined columns in the query itself
+        boolean joinNames = !useNameDictionary || isNameProperty(request.getSortProperty())
+                || filtersNames(request.getFilters());
+        KeysetQuery<Enrollment> query = new KeysetQuery<>(joinNames ? SELECT_WITH_NAMES : SELECT_ENROLLMENTS,
+                "e.enrollment_id", Enrollment::getEnrollmentId, SORT_KEYS, request);
+        List<Enrollment> rows;
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query.getSql())) {
+
+            query.bind(pstmt, 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rows = RowMapper.mapAll(rs, EnrollmentRowMapper.forResultSet(rs));
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error fetching enrollment page: " + e.getMessage());
+            throw e;
+        }
+
+        Page<Enrollment> page = query.toPage(joinNames ? rows : fillNames(rows));
+        call.succeeded(rows.size());
+        return page;
+    }
+
+    private static boolean isNameProperty(String property) {
+        return "studentName".equals(property) || "courseName".equals(property);
+    }
+
+    private static boolean filtersNames(Map<String, String> filters) {
+        return filters.keySet().stream().anyMatch(EnrollmentDAO::isNameProperty);
+    }
+
+    /**
+     * Properties accepted as the sort of a PageRequest
+     */
+    public static List<String> getSortableProperties() {
+        return List.copyOf(SORT_KEYS.keySet());
+    }
+
+    /**
+     * Number of rows in the enrollments table
+     */
+    public long countEnrollments() throws SQLException {
+        return countEnrollments(Collections.emptyMap());
+    }
+
+    /**
+     * Number of enrollments matching the column filters, see PageRequest.withFilters
+     */
+    public long countEnrollments(Map<String, String> filters) throws SQLException {
+        DaoCallEvent call = Metrics.COUNT.begin();
+        KeysetQuery<Enrollment> query = new KeysetQuery<>(filtersNames(filters) ? SELECT_WITH_NAMES : SELECT_ENROLLMENTS,
+                "e.enrollment_id", Enrollment::getEnrollmentId, SORT_KEYS,
+                PageRequest.firstPage(null, true, 1).withFilters(filters));
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query.getCountSql())) {
+
+            query.bindCount(pstmt, 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                long count = rs.getLong(1);
+                call.succeeded(1);
+                return count;
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error counting enrollments: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Streams every enrollment without loading the table into memory.
+     * The stream holds a pooled connection until it is closed, so use
+     * it in try-with-resources.
+     */
+    public Stream<Enrollment> streamAllEnrollments() throws SQLException {
+        try {
+            return JdbcStream.open(selectSql() + "ORDER BY e.enrollment_id",
+                    pstmt -> { }, streamMapper(), Metrics.STREAM_ALL);
+        } catch (SQLException e) {
+            System.err.println("Error streaming enrollments: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the enrollments matching the filter
+     */
+    public Stream<Enrollment> streamEnrollments(EnrollmentFilter filter) throws SQLException {
+        if (filter.isEmpty()) {
+            return streamAllEnrollments();
+        }
+        String select = selectSql();
+        if (useNameDictionary && filter.getDepartment() != null) {
+            select = "SELECT e.* FROM enrollments e JOIN courses c ON e.course_id = c.course_id ";
+        }
+        try {
+            return JdbcStream.open(select +
+                            "WHERE " + filter.conditions("e", "c") + " " +
+                            "ORDER BY e.enrollment_id",
+                    pstmt -> filter.bind(pstmt, 1), streamMapper(), Metrics.STREAM_FILTERED);
+        } catch (SQLException e) {
+            System.err.println("Error streaming enrollments: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Streaming variant of getEnrollmentsByStudent
+     */
+    public Stream<Enrollment> streamEnrollmentsByStudent(int studentId) throws SQLException {
+        try {
+            return JdbcStream.open(selectSql() +
+                            "WHERE e.student_id = ? " +
+                            "ORDER BY e.year DESC, e.semester",
+                    pstmt -> pstmt.setInt(1, studentId), streamMapper(), Metrics.STREAM_BY_STUDENT);
+        } catch (SQLException e) {
+            System.err.println("Error streaming enrollments by student: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Streaming variant of getEnrollmentsByCourse
+     */
+    public Stream<Enrollment> streamEnrollmentsByCourse(int courseId) throws SQLException {
+        try {
+            // A stream cannot be sorted afterwards, so the students join stays for the ORDER BY
+            String select = useNameDictionary
+                    ? "SELECT e.* FROM enrollments e JOIN students s ON e.student_id = s.student_id "
+                    : SELECT_WITH_NAMES;
+            return JdbcStream.open(select +
+                            "WHERE e.course_id = ? " +
+                            "ORDER BY s.last_name, s.first_name",
+                    pstmt -> pstmt.setInt(1, courseId), streamMapper(), Metrics.STREAM_BY_COURSE);
+        } catch (SQLException e) {
+            System.err.println("Error streaming enrollments by course: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Hands every enrollment to the callback until it returns false
+     * @return number of rows read
+     */
+    public long forEachEnrollment(RowCallback<Enrollment> callback) throws SQLException {
+        return JdbcStream.forEach(streamAllEnrollments(), callback);
+    }
+
+    public long forEachEnrollmentByStudent(int studentId, RowCallback<Enrollment> callback) throws SQLException {
+        return JdbcStream.forEach(streamEnrollmentsByStudent(studentId), callback);
+    }
+
+    public long forEachEnrollmentByCourse(int courseId, RowCallback<Enrollment> callback) throws SQLException {
+        return JdbcStream.forEach(streamEnrollmentsByCourse(courseId), callback);
+    }
+
+    private String selectSql() {
+        return useNameDictionary ? SELECT_ENROLLMENTS : SELECT_WITH_NAMES;
+    }
+
+    /**
+     * In name dictionary mode, sets the student and course names of the
+     * rows, loading any ids the dictionaries have not seen in bulk first
+     */
+    private List<Enrollment> fillNames(List<Enrollment> enrollments) throws SQLException {
+        if (!useNameDictionary || enrollments.isEmpty()) {
+            return enrollments;
+        }
+        int[] studentIds = new int[enrollments.size()];
+        int[] courseIds = new int[enrollments.size()];
+        for (int i = 0; i < enrollments.size(); i++) {
+            studentIds[i] = enrollments.get(i).getStudentId();
+            courseIds[i] = enrollments.get(i).getCourseId();
+        }
+        NameDictionary.students().prefetch(studentIds);
+        NameDictionary.courses().prefetch(courseIds);
+
+        for (Enrollment enrollment : enrollments) {
+            fillNames(enrollment);
+        }
+        return enrollments;
+    }
+
+    private static void fillNames(Enrollment enrollment) throws SQLException {
+        enrollment.setStudentName(NameDictionary.students().nameOf(enrollment.getStudentId()));
+        enrollment.setCourseName(NameDictionary.courses().nameOf(enrollment.getCourseId()));
+    }
+
+    /**
+     * Same order as ORDER BY s.last_name, s.first_name
+     */
+    private static void sortByStudentName(List<Enrollment> enrollments) throws SQLException {
+        Map<Integer, String> sortKeys = new HashMap<>();
+        for (Enrollment enrollment : enrollments) {
+            int studentId = enrollment.getStudentId();
+            if (!sortKeys.containsKey(studentId)) {
+                sortKeys.put(studentId, NameDictionary.students().sortKeyOf(studentId));
+            }
+        }
+        enrollments.sort(Comparator.comparing((Enrollment enrollment) -> sortKeys.get(enrollment.getStudentId()),
+                Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+    }
+
+    private JdbcStream.MapperFactory<Enrollment> streamMapper() throws SQLException {
+        if (!useNameDictionary) {
+            return EnrollmentRowMapper::forResultSet;
+        }
+        // Load before the cursor opens rather than while it holds a connection
+        NameDictionary.students().load();
+        NameDictionary.courses().load();
+        return rs -> {
+            EnrollmentRowMapper mapper = EnrollmentRowMapper.forResultSet(rs);
+            return row -> {
+                Enrollment enrollment = mapper.mapRow(row);
+                fillNames(enrollment);
+                return enrollment;
+            };
+        };
+    }
 }
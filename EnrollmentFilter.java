@@ -0,0 +1,100 @@
+package advancejavaproject4.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Restricts a query to rows related to enrollments in a given semester,
+ * year and/or course department. Any criterion left null matches
+ * everything.
+ * @author yigitt
+ */
+public class EnrollmentFilter {
+
+    private String semester;
+    private Integer year;
+    private String department;
+
+    public EnrollmentFilter() {
+    }
+
+    public EnrollmentFilter(String semester, Integer year, String department) {
+        this.semester = semester;
+        this.year = year;
+        this.department = department;
+    }
+
+    public String getSemester() {
+        return semester;
+    }
+
+    public void setSemester(String semester) {
+        this.semester = semester;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    public boolean isEmpty() {
+        return semester == null && year == null && department == null;
+    }
+
+    /**
+     * The conditions joined by AND, using the given aliases for the
+     * enrollments and courses tables; empty when nothing is filtered
+     */
+    String conditions(String enrollmentAlias, String courseAlias) {
+        List<String> parts = new ArrayList<>();
+        if (semester != null) {
+            parts.add(enrollmentAlias + ".semester = ?");
+        }
+        if (year != null) {
+            parts.add(enrollmentAlias + ".year = ?");
+        }
+        if (department != null) {
+            parts.add(courseAlias + ".department = ?");
+        }
+        return String.join(" AND ", parts);
+    }
+
+    /**
+     * Binds the values of {@link #conditions}, starting at the given index
+     * @return the next free parameter index
+     */
+    int bind(PreparedStatement pstmt, int index) throws SQLException {
+        if (semester != null) {
+            pstmt.setString(index++, semester);
+        }
+        if (year != null) {
+            pstmt.setInt(index++, year);
+        }
+        if (department != null) {
+            pstmt.setString(index++, department);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "EnrollmentFilter{" +
+                "semester=" + semester +
+                ", year=" + year +
+                ", department=" + department +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package advancejavaproject4.database;
+
+import advancejavaproject4.model.Enrollment;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Maps rows of the enrollments table to Enrollment objects. The
+ * student_name and course_name columns are optional; when the query
+ * does not join them the names are left null for the caller to fill.
+ * Semester, grade, status and course name repeat across most rows, so
+ * they are shared through string pools instead of kept once per row.
+ * @author yigitt
+ */
+public final class EnrollmentRowMapper implements RowMapper<Enrollment> {
+
+    private static final StringPool SEMESTERS = new StringPool(64);
+    private static final StringPool GRADES = new StringPool(64);
+    private static final StringPool STATUSES = new StringPool(64);
+    // One entry per course at most, so bounded by the size of the catalogue
+    private static final StringPool COURSE_NAMES = new StringPool(10_000);
+
+    private final int enrollmentId;
+    private final int studentId;
+    private final int courseId;
+    private final int semester;
+    private final int year;
+    private final int grade;
+    private final int enrollmentStatus;
+    private final int enrollmentDate;
+    private final int studentName;
+    private final int courseName;
+
+    private EnrollmentRowMapper(ResultSet rs) throws SQLException {
+        enrollmentId = rs.findColumn("enrollment_id");
+        studentId = rs.findColumn("student_id");
+        courseId = rs.findColumn("course_id");
+        semester = rs.findColumn("semester");
+        year = rs.findColumn("year");
+        grade = rs.findColumn("grade");
+        enrollmentStatus = rs.findColumn("enrollment_status");
+        enrollmentDate = rs.findColumn("enrollment_date");
+        studentName = optionalColumn(rs, "student_name");
+        courseName = optionalColumn(rs, "course_name");
+    }
+
+    /**
+     * Index of the column, or 0 if the query did not select it
+     */
+    private static int optionalColumn(ResultSet rs, String label) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (label.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Creates a mapper bound to the column layout of the given ResultSet
+     */
+    public static EnrollmentRowMapper forResultSet(ResultSet rs) throws SQLException {
+        return new EnrollmentRowMapper(rs);
+    }
+
+    @Override
+    public Enrollment mapRow(ResultSet rs) throws SQLException {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setEnrollmentId(rs.getInt(enrollmentId));
+        enrollment.setStudentId(rs.getInt(studentId));
+        enrollment.setCourseId(rs.getInt(courseId));
+        enrollment.setSemester(SEMESTERS.getString(rs, semester));
+        enrollment.setYear(rs.getInt(year));
+        enrollment.setGrade(GRADES.getString(rs, grade));
+        enrollment.setEnrollmentStatus(STATUSES.getString(rs, enrollmentStatus));
+        enrollment.setEnrollmentDate(rs.getObject(enrollmentDate, LocalDate.class));
+        if (studentName > 0) {
+            enrollment.setStudentName(rs.getString(studentName));
+        }
+        if (courseName > 0) {
+            enrollment.setCourseName(COURSE_NAMES.getString(rs, courseName));
+        }
+        return enrollment;
+    }
+}
@@ -0,0 +1,227 @@
+package advancejavaproject4.database;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded, thread-safe read-through cache of entities by id.
+ * Entries expire after a fixed time to live; when the cache is full the
+ * least recently read of a small sample of entries is evicted, which
+ * keeps eviction cheap without a global LRU lock. Each sample picks up
+ * where the previous one stopped, so sampling cycles through the whole map.
+ * Models are mutable, so the cache keeps its own copy of every value and
+ * hands out copies: a caller editing a returned object cannot change
+ * what other callers see.
+ * @author yigitt
+ */
+public final class EntityCache<K, V> {
+
+    // Entries looked at when choosing one to evict
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final UnaryOperator<V> copier;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    // Where the next eviction sample starts; guarded by evictionLock
+    private Iterator<Map.Entry<K, Entry<V>>> sampleCursor = Collections.emptyIterator();
+    private final Object evictionLock = new Object();
+
+    // Bumped by every invalidation; a load that started before it is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maxSize   most entries kept; 0 disables the cache
+     * @param ttlMillis how long an entry may be served after it was loaded
+     * @param copier    makes an independent copy of a value
+     */
+    public EntityCache(String name, int maxSize, long ttlMillis, UnaryOperator<V> copier) {
+        this.name = name;
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.copier = copier;
+    }
+
+    /**
+     * A copy of the cached value, or null when it is missing or expired
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.loadedAt > ttlNanos) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        entry.lastRead = now;
+        hits.increment();
+        return copier.apply(entry.value);
+    }
+
+    /**
+     * Marks the start of a database load. Pass the result to
+     * {@link #put} so a value read before a concurrent update is dropped.
+     */
+    public long beginLoad() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a copy of a freshly loaded value, unless something was
+     * invalidated since the load began
+     */
+    public void put(K key, V value, long loadStamp) {
+        if (maxSize == 0 || value == null) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(copier.apply(value), System.nanoTime());
+        entries.put(key, entry);
+        // An invalidation may have raced with the put; undo it if so
+        if (generation.get() != loadStamp) {
+            entries.remove(key, entry);
+            return;
+        }
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateAll(Iterable<? extends K> keys) {
+        generation.incrementAndGet();
+        for (K key : keys) {
+            if (entries.remove(key) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Drops everything, e.g. after SQL the cache cannot see
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    private void evict() {
+        synchronized (evictionLock) {
+            long now = System.nanoTime();
+            while (entries.size() > maxSize) {
+                Map.Entry<K, Entry<V>> victim = null;
+                long oldestRead = Long.MAX_VALUE;
+                int sampled = 0;
+                boolean restarted = false;
+                while (sampled < EVICTION_SAMPLE) {
+                    if (!sampleCursor.hasNext()) {
+                        if (restarted) {
+                            break;
+                        }
+                        // The iterator is weakly consistent, so it can be kept
+                        // across evictions and only starts over at the end
+                        sampleCursor = entries.entrySet().iterator();
+                        restarted = true;
+                        continue;
+                    }
+                    Map.Entry<K, Entry<V>> candidate = sampleCursor.next();
+                    Entry<V> entry = candidate.getValue();
+                    if (now - entry.loadedAt > ttlNanos) {
+                        victim = candidate;
+                        break;
+                    }
+                    if (entry.lastRead < oldestRead) {
+                        oldestRead = entry.lastRead;
+                        victim = candidate;
+                    }
+                    sampled++;
+                }
+                if (victim == null) {
+                    return;
+                }
+                // Only the sampled value; the key may have been loaded again since
+                if (entries.remove(victim.getKey(), victim.getValue())) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache{" +
+                "name=" + name +
+                ", size=" + size() +
+                ", max=" + maxSize +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                ", evictions=" + getEvictions() +
+                ", invalidations=" + getInvalidations() +
+                '}';
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long loadedAt;
+        volatile long lastRead;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.lastRead = loadedAt;
+        }
+    }
+}
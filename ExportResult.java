@@ -0,0 +1,96 @@
+package advancejavaproject4.io;
+
+import java.nio.file.Path;
+
+/**
+ * Summary of a table export run
+ * @author yigitt
+ */
+public class ExportResult {
+
+    private final Path file;
+    private long rows;
+    private long uncompressedBytes;
+    private long fileBytes;
+    private long elapsedMillis;
+    private boolean cancelled;
+
+    ExportResult(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Bytes of CSV / JSON produced, before any compression
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    void setUncompressedBytes(long uncompressedBytes) {
+        this.uncompressedBytes = uncompressedBytes;
+    }
+
+    /**
+     * Size of the written file
+     */
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    void setFileBytes(long fileBytes) {
+        this.fileBytes = fileBytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : rows * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Uncompressed output produced per second
+     */
+    public double getBytesPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : uncompressedBytes * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult{" +
+                "file=" + file +
+                ", rows=" + rows +
+                ", uncompressedBytes=" + uncompressedBytes +
+                ", fileBytes=" + fileBytes +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + String.format("%.0f", getRowsPerSecond()) +
+                ", bytesPerSecond=" + String.format("%.0f", getBytesPerSecond()) +
+                ", cancelled=" + cancelled +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package advancejavaproject4.io;
+
+/**
+ * Summary of a DatasetGenerator run
+ * @author yigitt
+ */
+public class GenerationResult {
+
+    private long courses;
+    private long students;
+    private long enrollments;
+    private long failed;
+    private long skipped;
+    private long elapsedMillis;
+    private boolean cancelled;
+
+    public long getCourses() {
+        return courses;
+    }
+
+    void addCourses(long rows) {
+        courses += rows;
+    }
+
+    public long getStudents() {
+        return students;
+    }
+
+    void addStudents(long rows) {
+        students += rows;
+    }
+
+    public long getEnrollments() {
+        return enrollments;
+    }
+
+    void addEnrollments(long rows) {
+        enrollments += rows;
+    }
+
+    /**
+     * Rows the database rejected, e.g. with error 1062 because an earlier
+     * run already wrote the same email or enrollment
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    void addFailed(long rows) {
+        failed += rows;
+    }
+
+    /**
+     * Enrollments not written because their student or course was rejected
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    void addSkipped(long rows) {
+        skipped += rows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : (courses + students + enrollments) * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationResult{" +
+                "courses=" + courses +
+                ", students=" + students +
+                ", enrollments=" + enrollments +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                ", elapsedMillis=" + elapsedMillis +
+                ", cancelled=" + cancelled +
+                '}';
+    }
+}
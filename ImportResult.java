@@ -0,0 +1,100 @@
+package advancejavaproject4.io;
+
+import java.nio.file.Path;
+
+/**
+ * Summary of a CSV import run
+ * @author yigitt
+ */
+public class ImportResult {
+
+    private long recordsRead;
+    private long imported;
+    private long failed;
+    private long skipped;
+    private long elapsedMillis;
+    private boolean cancelled;
+    private Path errorReport;
+
+    /**
+     * Data records read in this run, not counting the header or records
+     * skipped because of a checkpoint
+     */
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    void setRecordsRead(long recordsRead) {
+        this.recordsRead = recordsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    void addImported(long rows) {
+        imported += rows;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    void addFailed(long rows) {
+        failed += rows;
+    }
+
+    /**
+     * Records skipped because an earlier run had already imported them
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * CSV file listing the rejected records, or null when none were rejected
+     */
+    public Path getErrorReport() {
+        return errorReport;
+    }
+
+    void setErrorReport(Path errorReport) {
+        this.errorReport = errorReport;
+    }
+
+    public double getRecordsPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : recordsRead * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "recordsRead=" + recordsRead +
+                ", imported=" + imported +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                ", elapsedMillis=" + elapsedMillis +
+                ", cancelled=" + cancelled +
+                '}';
+    }
+}
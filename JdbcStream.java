@@ -0,0 +1,199 @@
+package advancejavaproject4.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Opens DAO queries as lazily-read streams. Rows are pulled from the
+ * server one at a time as the consumer asks for them, so memory stays
+ * flat whatever the size of the table and a slow consumer simply slows
+ * the read down. Closing the stream closes the ResultSet, the statement
+ * and returns the connection to the pool.
+ * @author yigitt
+ */
+public final class JdbcStream {
+
+    /**
+     * Binds the parameters of the streaming query
+     */
+    @FunctionalInterface
+    public interface StatementBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /**
+     * Creates the row mapper once the ResultSet is open
+     */
+    @FunctionalInterface
+    public interface MapperFactory<T> {
+        RowMapper<T> create(ResultSet rs) throws SQLException;
+    }
+
+    // Used by drivers that cannot stream row by row
+    private static final int FALLBACK_FETCH_SIZE = 1000;
+
+    private JdbcStream() {
+    }
+
+    /**
+     * Runs the query and returns its rows as a stream that must be closed
+     */
+    public static <T> Stream<T> open(String sql, StatementBinder binder,
+                                     MapperFactory<T> mapperFactory) throws SQLException {
+        return open(sql, binder, mapperFactory, null);
+    }
+
+    /**
+     * Like open, and records the call in the given metrics. The call's
+     * latency is the time to open the stream; the rows are added, and
+     * any read error counted, as the stream is consumed.
+     */
+    public static <T> Stream<T> open(String sql, StatementBinder binder, MapperFactory<T> mapperFactory,
+                                     OperationMetrics metrics) throws SQLException {
+        DaoCallEvent call = metrics != null ? metrics.begin() : null;
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(streamingFetchSize(conn));
+            binder.bind(pstmt);
+            rs = pstmt.executeQuery();
+
+            Cursor<T> cursor = new Cursor<>(conn, pstmt, rs, mapperFactory.create(rs), metrics);
+            if (call != null) {
+                call.succeeded(0);
+            }
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException e) {
+            closeQuietly(rs, pstmt, conn);
+            if (call != null) {
+                call.failed(e);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            closeQuietly(rs, pstmt, conn);
+            throw e;
+        }
+    }
+
+    /**
+     * Feeds every row of the stream to the callback until it returns false,
+     * then closes the stream
+     * @return number of rows handed to the callback
+     */
+    public static <T> long forEach(Stream<T> stream, RowCallback<T> callback) throws SQLException {
+        long rows = 0;
+        try (Stream<T> rowStream = stream) {
+            Iterator<T> it = rowStream.iterator();
+            while (it.hasNext()) {
+                rows++;
+                if (!callback.onRow(it.next())) {
+                    break;
+                }
+            }
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        return rows;
+    }
+
+    /**
+     * Fetch size that makes the driver stream rows instead of buffering
+     * the whole result. MySQL Connector/J only streams rows when the fetch
+     * size is Integer.MIN_VALUE.
+     */
+    public static int streamingFetchSize(Connection conn) throws SQLException {
+        String product = conn.getMetaData().getDatabaseProductName();
+        if ("MySQL".equalsIgnoreCase(product) || "MariaDB".equalsIgnoreCase(product)) {
+            return Integer.MIN_VALUE;
+        }
+        return FALLBACK_FETCH_SIZE;
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Error closing stream resource: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final PreparedStatement pstmt;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private final OperationMetrics metrics;
+        private long rows;
+        private boolean exhausted;
+        private boolean closed;
+
+        Cursor(Connection conn, PreparedStatement pstmt, ResultSet rs, RowMapper<T> mapper,
+               OperationMetrics metrics) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.pstmt = pstmt;
+            this.rs = rs;
+            this.mapper = mapper;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (exhausted || closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    exhausted = true;
+                    return false;
+                }
+                T row = mapper.mapRow(rs);
+                rows++;
+                action.accept(row);
+                return true;
+            } catch (SQLException e) {
+                if (metrics != null) {
+                    metrics.failed(e);
+                }
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (metrics != null) {
+                metrics.addRows(rows);
+            }
+            if (!exhausted) {
+                // A streaming result is drained on close; cancel the query
+                // so stopping early does not read the rest of the table
+                try {
+                    pstmt.cancel();
+                } catch (SQLException e) {
+                    System.err.println("Error cancelling streaming query: " + e.getMessage());
+                }
+            }
+            closeQuietly(rs, pstmt, conn);
+        }
+    }
+}
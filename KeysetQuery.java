@@ -0,0 +1,314 @@
+package advancejavaproject4.database;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds keyset (seek) paginated queries. Instead of OFFSET, each page
+ * continues after the sort value and id of the previous page's last row,
+ * so the database can seek straight to it through the index and the
+ * cost of a page does not grow with its depth.
+ * The id column is always the tie-breaker, which keeps pages stable
+ * when many rows share a sort value.
+ * Column filters become WHERE conditions the database can answer from
+ * an index: a prefix LIKE for text columns and equality for the rest.
+ * @author yigitt
+ */
+public final class KeysetQuery<T> {
+
+    /**
+     * How a sort value is written to and read from a page token
+     */
+    public enum ValueType {
+        INT, DECIMAL, STRING, DATE
+    }
+
+    /**
+     * A sortable column and how to read its value from a model object
+     */
+    public static final class SortKey<T> {
+        private final String column;
+        private final ValueType type;
+        private final Function<T, Object> extractor;
+
+        public SortKey(String column, ValueType type, Function<T, Object> extractor) {
+            this.column = column;
+            this.type = type;
+            this.extractor = extractor;
+        }
+    }
+
+    private static final char SEPARATOR = '\u001F';
+
+    private final String selectSql;
+    private final String idColumn;
+    private final ToIntFunction<T> idOf;
+    private final String sortProperty;
+    private final SortKey<T> sortKey;
+    private final boolean ascending;
+    private final int pageSize;
+    private final long offset;
+
+    // Decoded continuation token, if any
+    private final boolean continuation;
+    private final int lastId;
+    private final Object lastValue;
+
+    private final List<ValueType> paramTypes = new ArrayList<>();
+    private final List<Object> params = new ArrayList<>();
+    // The first params belong to the filters, the rest to the seek
+    private final int filterParamCount;
+    private final String sql;
+    private final String countSql;
+
+    /**
+     * @param selectSql SELECT ... FROM ... without WHERE or ORDER BY
+     * @param idColumn  unique id column, used as the tie-breaker
+     * @param idOf      reads the id from a mapped row
+     * @param sortKeys  sortable properties of the entity
+     * @param request   the page being requested
+     */
+    public KeysetQuery(String selectSql, String idColumn, ToIntFunction<T> idOf,
+                       Map<String, SortKey<T>> sortKeys, PageRequest request) {
+        this.selectSql = selectSql;
+        this.idColumn = idColumn;
+        this.idOf = idOf;
+        this.sortProperty = request.getSortProperty();
+        this.ascending = request.isAscending();
+        this.pageSize = request.getPageSize();
+        this.offset = request.getOffset();
+
+        if (sortProperty == null) {
+            this.sortKey = null;
+        } else {
+            SortKey<T> key = sortKeys.get(sortProperty);
+            if (key == null) {
+                throw new IllegalArgumentException("Cannot sort by '" + sortProperty + "'");
+            }
+            // Sorting by the id itself needs no separate tie-breaker
+            this.sortKey = key.column.equals(idColumn) ? null : key;
+        }
+
+        String token = request.getPageToken();
+        if (token == null) {
+            continuation = false;
+            lastId = 0;
+            lastValue = null;
+        } else {
+            String[] parts = decode(token);
+            continuation = true;
+            lastId = Integer.parseInt(parts[2]);
+            lastValue = sortKey == null || parts[3].isEmpty() ? null : parseValue(sortKey.type, parts[3].substring(1));
+        }
+
+        String filterSql = buildFilters(sortKeys, request.getFilters());
+        this.filterParamCount = params.size();
+        this.sql = buildSql(filterSql);
+        this.countSql = "SELECT COUNT(*)" + selectSql.substring(selectSql.indexOf(" FROM ")) +
+                (filterSql.isEmpty() ? "" : " WHERE " + filterSql);
+    }
+
+    /**
+     * The page query. It asks for one row past the page size so the
+     * caller can tell whether another page follows.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Counts every row matching the filters, ignoring paging
+     */
+    public String getCountSql() {
+        return countSql;
+    }
+
+    private String buildFilters(Map<String, SortKey<T>> sortKeys, Map<String, String> filters) {
+        List<String> conditions = new ArrayList<>();
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            SortKey<T> key = sortKeys.get(filter.getKey());
+            if (key == null) {
+                throw new IllegalArgumentException("Cannot filter by '" + filter.getKey() + "'");
+            }
+            if (key.type == ValueType.STRING) {
+                // A prefix pattern lets the database range-scan an index on the column
+                conditions.add(key.column + " LIKE ?");
+                addParam(ValueType.STRING, escapeLike(filter.getValue()) + "%");
+            } else {
+                conditions.add(key.column + " = ?");
+                try {
+                    addParam(key.type, parseValue(key.type, filter.getValue()));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Filter for '" + filter.getKey() + "' must be " +
+                            (key.type == ValueType.DATE ? "a date (yyyy-mm-dd)" : "a number"), e);
+                }
+            }
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private String buildSql(String filterSql) {
+        StringBuilder sql = new StringBuilder(selectSql);
+        String seek = ascending ? " > ?" : " < ?";
+        String direction = ascending ? " ASC" : " DESC";
+
+        if (!filterSql.isEmpty()) {
+            sql.append(" WHERE ").append(filterSql);
+        }
+        if (continuation) {
+            sql.append(filterSql.isEmpty() ? " WHERE " : " AND ");
+            if (sortKey == null) {
+                sql.append(idColumn).append(seek);
+                addParam(ValueType.INT, lastId);
+            } else if (lastValue == null) {
+                // MySQL sorts NULL first ascending and last descending
+                if (ascending) {
+                    sql.append("((").append(sortKey.column).append(" IS NULL AND ")
+                       .append(idColumn).append(seek).append(") OR ")
+                       .append(sortKey.column).append(" IS NOT NULL)");
+                } else {
+                    sql.append("(").append(sortKey.column).append(" IS NULL AND ")
+                       .append(idColumn).append(seek).append(")");
+                }
+                addParam(ValueType.INT, lastId);
+            } else {
+                sql.append("(").append(sortKey.column).append(seek)
+                   .append(" OR (").append(sortKey.column).append(" = ? AND ")
+                   .append(idColumn).append(seek).append(")");
+                if (!ascending) {
+                    sql.append(" OR ").append(sortKey.column).append(" IS NULL");
+                }
+                sql.append(")");
+                addParam(sortKey.type, lastValue);
+                addParam(sortKey.type, lastValue);
+                addParam(ValueType.INT, lastId);
+            }
+        }
+
+        sql.append(" ORDER BY ");
+        if (sortKey != null) {
+            sql.append(sortKey.column).append(direction).append(", ");
+        }
+        sql.append(idColumn).append(direction);
+        sql.append(" LIMIT ").append(pageSize + 1);
+        if (!continuation && offset > 0) {
+            sql.append(" OFFSET ").append(offset);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Binds the seek parameters, starting at the given index.
+     * @return the next free parameter index
+     */
+    public int bind(PreparedStatement pstmt, int index) throws SQLException {
+        return bindParams(pstmt, index, params.size());
+    }
+
+    /**
+     * Binds the filter parameters of the count query
+     * @return the next free parameter index
+     */
+    public int bindCount(PreparedStatement pstmt, int index) throws SQLException {
+        return bindParams(pstmt, index, filterParamCount);
+    }
+
+    private int bindParams(PreparedStatement pstmt, int index, int count) throws SQLException {
+        for (int i = 0; i < count; i++) {
+            Object value = params.get(i);
+            switch (paramTypes.get(i)) {
+                case INT:
+                    pstmt.setInt(index++, (Integer) value);
+                    break;
+                case DECIMAL:
+                    pstmt.setBigDecimal(index++, (BigDecimal) value);
+                    break;
+                case DATE:
+                    pstmt.setDate(index++, Date.valueOf((LocalDate) value));
+                    break;
+                default:
+                    pstmt.setString(index++, (String) value);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Turns the fetched rows (up to page size + 1) into a page and the
+     * token that continues after its last row
+     */
+    public Page<T> toPage(List<T> rows) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new Page<>(items, encode(items.get(pageSize - 1)));
+    }
+
+    private void addParam(ValueType type, Object value) {
+        paramTypes.add(type);
+        params.add(value);
+    }
+
+    private String encode(T last) {
+        StringBuilder token = new StringBuilder();
+        token.append(sortProperty == null ? "" : sortProperty).append(SEPARATOR)
+             .append(ascending ? 'A' : 'D').append(SEPARATOR)
+             .append(idOf.applyAsInt(last)).append(SEPARATOR);
+        if (sortKey != null) {
+            Object value = sortKey.extractor.apply(last);
+            if (value != null) {
+                // 'V' marks a present value so that "" and NULL stay distinct
+                token.append('V').append(value);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decode(String token) {
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            parts = raw.split(String.valueOf(SEPARATOR), 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed page token", e);
+        }
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed page token");
+        }
+        String expectedProperty = sortProperty == null ? "" : sortProperty;
+        String expectedDirection = ascending ? "A" : "D";
+        if (!parts[0].equals(expectedProperty) || !parts[1].equals(expectedDirection)) {
+            throw new IllegalArgumentException("Page token does not match the requested sort order");
+        }
+        return parts;
+    }
+
+    private static Object parseValue(ValueType type, String text) {
+        switch (type) {
+            case INT:
+                return Integer.valueOf(text);
+            case DECIMAL:
+                return new BigDecimal(text);
+            case DATE:
+                return LocalDate.parse(text);
+            default:
+                return text;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package advancejavaproject4;
+
+import advancejavaproject4.database.AsyncDAO;
+import advancejavaproject4.database.Page;
+import advancejavaproject4.database.PageRequest;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Virtual list for a TableView over a table too big to hold in memory.
+ * The row count is known up front; pages of rows are fetched through the
+ * DAO's keyset paging only when the table asks for them, and until a page
+ * arrives its rows read as null and their cells stay empty.
+ * Only the most recently used pages are kept, so memory follows the
+ * viewport instead of the table, and the page after the one being read
+ * (or before it, when scrolling up) is fetched ahead of time.
+ * A page that follows a loaded one continues from its page token; a page
+ * reached by a jump, such as dragging the scroll bar, is fetched by offset.
+ * Must only be used on the JavaFX Application Thread.
+ * @author yigitt
+ */
+public class LazyPagedList<T> extends ObservableListBase<T> {
+
+    /**
+     * Fetches one page, e.g. StudentDAO::getStudentsPage
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        Page<T> load(PageRequest request) throws SQLException;
+    }
+
+    /**
+     * Counts the rows matching the column filters, e.g. StudentDAO::countStudents
+     */
+    @FunctionalInterface
+    public interface RowCounter {
+        long count(Map<String, String> filters) throws SQLException;
+    }
+
+    // Page queries running at the same time
+    private static final int MAX_CONCURRENT_LOADS = 2;
+
+    private final AsyncDAO asyncDAO;
+    private final PageLoader<T> loader;
+    private final PageRequest firstPage;
+    private final int pageSize;
+    private final int maxResidentPages;
+
+    private int size;
+    // Resident pages by number, least recently read first
+    private final LinkedHashMap<Integer, List<T>> pages;
+    // Token that continues after page n, for fetching page n + 1
+    private final Map<Integer, String> nextTokens = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    // Pages asked for but not started yet, most recent first
+    private final ArrayDeque<Integer> wanted = new ArrayDeque<>();
+    private int lastPageRead = -1;
+    // Bumped when rows change position, so pages fetched for the old positions are dropped
+    private int layoutVersion;
+    private boolean stopped;
+    private Consumer<Throwable> onLoadFailed = error -> { };
+
+    /**
+     * @param firstPage        request for the first page; sets the sort, filters and page size
+     * @param rowCount         rows in the listing, usually from a COUNT(*)
+     * @param maxResidentPages pages kept in memory at most
+     */
+    public LazyPagedList(AsyncDAO asyncDAO, PageLoader<T> loader, PageRequest firstPage,
+                         long rowCount, int maxResidentPages) {
+        if (rowCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows for a list: " + rowCount);
+        }
+        this.asyncDAO = asyncDAO;
+        this.loader = loader;
+        this.firstPage = firstPage;
+        this.pageSize = firstPage.getPageSize();
+        this.maxResidentPages = Math.max(2, maxResidentPages);
+        this.size = (int) rowCount;
+        this.pages = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > LazyPagedList.this.maxResidentPages;
+            }
+        };
+    }
+
+    /**
+     * Called on the FX thread when a page cannot be loaded. Loading stops
+     * after the first failure.
+     */
+    public void setOnLoadFailed(Consumer<Throwable> onLoadFailed) {
+        this.onLoadFailed = onLoadFailed;
+    }
+
+    /**
+     * Stops fetching pages, e.g. once the list is no longer displayed
+     */
+    public void stop() {
+        stopped = true;
+        wanted.clear();
+    }
+
+    public int getResidentPageCount() {
+        return pages.size();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The row, or null while its page is being fetched
+     */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        int page = index / pageSize;
+        List<T> rows = pages.get(page);
+        readAhead(page);
+        if (rows == null) {
+            request(page);
+            return null;
+        }
+        int offset = index % pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    /**
+     * Searches the resident pages only; rows not in memory are not found
+     */
+    @Override
+    public int indexOf(Object row) {
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            int offset = entry.getValue().indexOf(row);
+            if (offset >= 0) {
+                return entry.getKey() * pageSize + offset;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object row) {
+        return indexOf(row);
+    }
+
+    @Override
+    public boolean contains(Object row) {
+        return indexOf(row) >= 0;
+    }
+
+    /**
+     * Replaces a resident row, e.g. after it was updated
+     */
+    @Override
+    public T set(int index, T row) {
+        List<T> rows = pages.get(index / pageSize);
+        int offset = index % pageSize;
+        if (rows == null || offset >= rows.size()) {
+            // Not in memory; its page is fetched fresh when it is shown again
+            return null;
+        }
+        T old = rows.set(offset, row);
+        beginChange();
+        nextSet(index, old);
+        endChange();
+        return old;
+    }
+
+    /**
+     * Appends a row, e.g. a record added after the count was taken.
+     * Rows can only be added at the end. If the last page is not in
+     * memory the row is fetched with it, and the size is corrected then
+     * if the row turns out not to be there.
+     */
+    @Override
+    public void add(int index, T row) {
+        if (index != size) {
+            throw new UnsupportedOperationException("Rows can only be appended");
+        }
+        List<T> rows = pages.get(index / pageSize);
+        if (rows != null && rows.size() == index % pageSize) {
+            rows.add(row);
+        }
+        size++;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    @Override
+    public T remove(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        int page = index / pageSize;
+        List<T> rows = pages.get(page);
+        int offset = index % pageSize;
+        T old = rows != null && offset < rows.size() ? rows.get(offset) : null;
+
+        // Every later row moves up one place, so its page has to be fetched again
+        pages.keySet().removeIf(p -> p >= page);
+        nextTokens.keySet().removeIf(p -> p >= page);
+        layoutVersion++;
+        size--;
+
+        beginChange();
+        nextRemove(index, old);
+        endChange();
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object row) {
+        int index = indexOf(row);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    /**
+     * Empties the list without touching the rows one by one
+     */
+    @Override
+    public void clear() {
+        stop();
+        int removed = size;
+        pages.clear();
+        nextTokens.clear();
+        layoutVersion++;
+        size = 0;
+        if (removed > 0) {
+            beginChange();
+            nextRemove(0, Collections.nCopies(removed, (T) null));
+            endChange();
+        }
+    }
+
+    private int pageCount() {
+        return (size + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * Fetches the page after the one being read, or the one before it
+     * when reading backwards
+     */
+    private void readAhead(int page) {
+        if (page == lastPageRead) {
+            return;
+        }
+        int ahead = page < lastPageRead ? page - 1 : page + 1;
+        lastPageRead = page;
+        if (ahead >= 0 && ahead < pageCount() && !pages.containsKey(ahead)) {
+            request(ahead);
+        }
+    }
+
+    private void request(int page) {
+        if (stopped || loading.contains(page)) {
+            return;
+        }
+        wanted.remove(page);
+        wanted.addFirst(page);
+        startLoads();
+    }
+
+    private void startLoads() {
+        while (!stopped && loading.size() < MAX_CONCURRENT_LOADS && !wanted.isEmpty()) {
+            int page = wanted.pollFirst();
+            if (!pages.containsKey(page) && !loading.contains(page)) {
+                load(page);
+            }
+        }
+        // Pages asked for long ago have scrolled out of view
+        while (wanted.size() > maxResidentPages) {
+            wanted.pollLast();
+        }
+    }
+
+    private void load(int page) {
+        String token = page == 0 ? null : nextTokens.get(page - 1);
+        PageRequest request;
+        if (page == 0) {
+            request = firstPage;
+        } else if (token != null) {
+            request = firstPage.withPageToken(token);
+        } else {
+            request = firstPage.withOffset((long) page * pageSize);
+        }
+        int version = layoutVersion;
+        loading.add(page);
+
+        asyncDAO.submit(() -> loader.load(request)).whenCompleteAsync((result, error) -> {
+            loading.remove(page);
+            if (stopped) {
+                return;
+            }
+            if (error != null) {
+                stopped = true;
+                onLoadFailed.accept(AsyncDAO.unwrap(error));
+                return;
+            }
+            if (version == layoutVersion) {
+                store(page, result);
+            } else if (Math.abs(page - lastPageRead) <= 1) {
+                // Fetched for old row positions; still in view, so fetch it again
+                wanted.addFirst(page);
+            }
+            startLoads();
+        }, Platform::runLater);
+    }
+
+    private void store(int page, Page<T> result) {
+        List<T> rows = new ArrayList<>(result.getItems());
+        pages.put(page, rows);
+        nextTokens.put(page, result.getNextPageToken());
+
+        int from = page * pageSize;
+        int to = Math.min(size, from + rows.size());
+        if (from < to) {
+            // Tell the table the placeholders for these rows now have values
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, (T) null));
+            endChange();
+        }
+        if (rows.size() < pageSize && from + rows.size() < size) {
+            truncate(from + rows.size());
+        }
+    }
+
+    /**
+     * Drops the rows from the given index on, when a short page shows
+     * the listing ends earlier than the count said, e.g. because rows
+     * were deleted since or an appended row sorts elsewhere
+     */
+    private void truncate(int newSize) {
+        int removed = size - newSize;
+        int lastPage = newSize / pageSize;
+        pages.keySet().removeIf(p -> p > lastPage);
+        nextTokens.keySet().removeIf(p -> p > lastPage);
+        wanted.removeIf(p -> p > lastPage);
+        size = newSize;
+
+        beginChange();
+        nextRemove(newSize, Collections.nCopies(removed, (T) null));
+        endChange();
+    }
+}
@@ -1,21 +1,48 @@
 package advancejavaproject4;
 
 import advancejavaproject4.database.*;
+import advancejavaproject4.io.CsvImporter;
+import advancejavaproject4.io.ExportResult;
+import advancejavaproject4.io.ImportResult;
+import advancejavaproject4.io.TableExporter;
 import advancejavaproject4.model.*;
 import advancejavaproject4.util.*;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Main controller for Student Records Management System
@@ -24,22 +51,51 @@ import java.time.LocalDate;
  */
 public class MainViewController {
 
+    // Tables with more rows than this are paged in on demand instead of loaded whole
+    private static final long PAGED_THRESHOLD = Long.getLong("unitrack.table.pagedThreshold", 20_000L);
+    private static final int PAGE_SIZE = Integer.getInteger("unitrack.table.pageSize", 200);
+    private static final int RESIDENT_PAGES = Integer.getInteger("unitrack.table.residentPages", 10);
+    // How often the DAO metrics panel is refreshed
+    private static final long METRICS_REFRESH_MS = Long.getLong("unitrack.metrics.refreshMs", 1_000L);
+
     // FXML Injected components
     @FXML private Label statusLabel;
     @FXML private Button connectButton;
     @FXML private ListView<String> tableList;
     @FXML private TableView tableView;
+    @FXML private HBox filterBar;
     @FXML private Button displayButton;
     @FXML private Button queryButton;
+    @FXML private Button importButton;
+    @FXML private Button exportButton;
+    @FXML private ProgressBar importProgress;
+    @FXML private ProgressIndicator loadProgress;
+    @FXML private Label loadStatusLabel;
+    @FXML private Button cancelLoadButton;
     @FXML private TextField field1, field2, field3;
+    @FXML private TableView<OperationMetrics.Snapshot> metricsTable;
 
     // DAO objects
     private StudentDAO studentDAO;
     private CourseDAO courseDAO;
     private EnrollmentDAO enrollmentDAO;
+    private AsyncDAO asyncDAO;
+
+    // Table load still running, if any
+    private CompletableFuture<Long> pendingCount;
+    private TableLoadTask<?> currentLoad;
+
+    // Sort and column filters of the rows shown, applied by the database
+    private String sortProperty;
+    private boolean sortAscending = true;
+    private Map<String, String> columnFilters = new LinkedHashMap<>();
+    // Loads the displayed table again, e.g. after the sort changed
+    private Runnable reloadRows = () -> { };
 
     // Current selected table
     private String currentTable = "";
+    // Table whose rows the view shows; differs from currentTable until it is displayed
+    private String displayedTable = "";
 
     /**
      * Initializes the controller
@@ -49,16 +105,72 @@ public class MainViewController {
         studentDAO = new StudentDAO();
         courseDAO = new CourseDAO();
         enrollmentDAO = new EnrollmentDAO();
+        asyncDAO = new AsyncDAO(studentDAO, courseDAO, enrollmentDAO);
 
         // Add listener to table selection
         tableList.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> onTableSelectionChanged(newValue)
         );
 
+        // Sorting a column asks the database for the rows in that order
+        ((TableView<?>) tableView).setSortPolicy(table -> {
+            applySortOrder();
+            return true;
+        });
+
         // Add listener to TableView selection for populating form
         tableView.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> populateFormFromSelection()
         );
+
+        setupMetricsPanel();
+    }
+
+    /**
+     * Fills the metrics table with one row per DAO operation called so
+     * far and keeps it up to date
+     */
+    private void setupMetricsPanel() {
+        metricsTable.getColumns().add(metricsColumn("Operation", 180, OperationMetrics.Snapshot::getName));
+        metricsTable.getColumns().add(metricsColumn("Calls", 55, s -> String.valueOf(s.getCalls())));
+        metricsTable.getColumns().add(metricsColumn("Errors", 55, s -> s.getErrors() == 0
+                ? "0" : s.getErrors() + " " + s.getErrorsByCode()));
+        metricsTable.getColumns().add(metricsColumn("Rows", 60, s -> String.valueOf(s.getRows())));
+        metricsTable.getColumns().add(metricsColumn("p50", 50, s -> formatMillis(s.getPercentileMillis(0.5))));
+        metricsTable.getColumns().add(metricsColumn("p99", 50, s -> formatMillis(s.getPercentileMillis(0.99))));
+        metricsTable.getColumns().add(metricsColumn("p999", 50, s -> formatMillis(s.getPercentileMillis(0.999))));
+        metricsTable.getColumns().add(metricsColumn("Max", 50, s -> formatMillis(s.getMaxMillis())));
+
+        Timeline refresh = new Timeline(new KeyFrame(Duration.millis(METRICS_REFRESH_MS), event -> refreshMetrics()));
+        refresh.setCycleCount(Animation.INDEFINITE);
+        refresh.play();
+    }
+
+    private static TableColumn<OperationMetrics.Snapshot, String> metricsColumn(
+            String title, double width, Function<OperationMetrics.Snapshot, String> text) {
+        TableColumn<OperationMetrics.Snapshot, String> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        // Rows are replaced on every refresh and always listed by name
+        column.setSortable(false);
+        column.setCellValueFactory(param -> new SimpleStringProperty(text.apply(param.getValue())));
+        return column;
+    }
+
+    private static String formatMillis(double millis) {
+        return millis < 10 ? String.format("%.2f", millis) : String.format("%.0f", millis);
+    }
+
+    private void refreshMetrics() {
+        metricsTable.getItems().setAll(DaoMetrics.snapshot());
+    }
+
+    /**
+     * Starts the DAO metrics from zero, e.g. before measuring one action
+     */
+    @FXML
+    private void handleResetMetrics() {
+        DaoMetrics.resetAll();
+        refreshMetrics();
     }
 
     /**
@@ -112,6 +224,8 @@ public class MainViewController {
      * Handles table selection changes
      */
     private void onTableSelectionChanged(String newTable) {
+        // Rows of the previous table are no longer wanted
+        cancelLoad();
         if (newTable != null) {
             currentTable = newTable;
             clearForm();
@@ -128,7 +242,9 @@ public class MainViewController {
     }
 
     /**
-     * Displays contents of selected table
+     * Displays contents of selected table. Writes only patch the rows
+     * already shown, so this is also how the view is brought back in
+     * line with changes made elsewhere.
      */
     @FXML
     private void handleDisplayContents() {
@@ -139,6 +255,11 @@ public class MainViewController {
             return;
         }
 
+        // A fresh view: new columns, no sort and no filters
+        sortProperty = null;
+        sortAscending = true;
+        columnFilters = new LinkedHashMap<>();
+
         try {
             switch (selectedTable) {
                 case "students":
@@ -162,7 +283,7 @@ public class MainViewController {
     /**
      * Displays students table
      */
-    private void displayStudents() throws SQLException {
+    private void displayStudents() {
         tableView.getColumns().clear();
         tableView.getItems().clear();
 
@@ -193,15 +314,17 @@ public class MainViewController {
 
         tableView.getColumns().addAll(idCol, firstNameCol, lastNameCol, emailCol, phoneCol, statusCol, gpaCol);
 
-        // Fetch and display data
-        ObservableList<Student> students = FXCollections.observableArrayList(studentDAO.getAllStudents());
-        tableView.setItems(students);
+        buildFilterBar();
+
+        // Load the rows in the background
+        loadInBackground("students", studentDAO::countStudents, studentDAO::streamAllStudents,
+                studentDAO::getStudentsPage);
     }
 
     /**
      * Displays courses table
      */
-    private void displayCourses() throws SQLException {
+    private void displayCourses() {
         tableView.getColumns().clear();
         tableView.getItems().clear();
 
@@ -228,15 +351,17 @@ public class MainViewController {
 
         tableView.getColumns().addAll(idCol, codeCol, nameCol, creditsCol, deptCol);
 
-        // Fetch and display data
-        ObservableList<Course> courses = FXCollections.observableArrayList(courseDAO.getAllCourses());
-        tableView.setItems(courses);
+        buildFilterBar();
+
+        // Load the rows in the background
+        loadInBackground("courses", courseDAO::countCourses, courseDAO::streamAllCourses,
+                courseDAO::getCoursesPage);
     }
 
     /**
      * Displays enrollments table with JOIN data
      */
-    private void displayEnrollments() throws SQLException {
+    private void displayEnrollments() {
         tableView.getColumns().clear();
         tableView.getItems().clear();
 
@@ -271,9 +396,310 @@ public class MainViewController {
 
         tableView.getColumns().addAll(idCol, studentCol, courseCol, semesterCol, yearCol, gradeCol, statusCol);
 
-        // Fetch and display data
-        ObservableList<Enrollment> enrollments = FXCollections.observableArrayList(enrollmentDAO.getAllEnrollments());
-        tableView.setItems(enrollments);
+        buildFilterBar();
+
+        // Load the rows in the background
+        loadInBackground("enrollments", enrollmentDAO::countEnrollments, enrollmentDAO::streamAllEnrollments,
+                enrollmentDAO::getEnrollmentsPage);
+    }
+
+    /**
+     * Loads the table on a background thread. Tables up to
+     * PAGED_THRESHOLD rows are streamed in whole, adding rows to the table
+     * view as they arrive; larger ones, and any sorted or filtered view,
+     * are shown through a LazyPagedList that fetches only the pages being
+     * looked at.
+     * A load still running is cancelled first. Each load that completes
+     * is written to Flight Recorder as a TableRefreshEvent.
+     */
+    private <T> void loadInBackground(String table, LazyPagedList.RowCounter counter,
+                                      TableLoadTask.RowSource<T> source,
+                                      LazyPagedList.PageLoader<T> pageLoader) {
+        cancelLoad();
+        displayedTable = table;
+        reloadRows = () -> loadInBackground(table, counter, source, pageLoader);
+        TableRefreshEvent refresh = new TableRefreshEvent();
+        refresh.begin();
+        refresh.table = table;
+
+        PageRequest firstPage = PageRequest.firstPage(sortProperty, sortAscending, PAGE_SIZE)
+                .withFilters(columnFilters);
+        boolean sortedOrFiltered = sortProperty != null || !firstPage.getFilters().isEmpty();
+        CompletableFuture<Long> count = asyncDAO.submit(() -> counter.count(firstPage.getFilters()));
+        pendingCount = count;
+        loadProgress.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        loadStatusLabel.setText("Counting " + table + "...");
+        loadProgress.setVisible(true);
+        cancelLoadButton.setVisible(true);
+
+        count.whenCompleteAsync((total, error) -> {
+            if (pendingCount != count) {
+                return;
+            }
+            pendingCount = null;
+            if (error != null) {
+                hideLoadControls();
+                AlertHelper.showError("Error", "Failed to display table data:\n" +
+                        AsyncDAO.unwrap(error).getMessage());
+            } else if (total > PAGED_THRESHOLD || sortedOrFiltered) {
+                // The database sorts and filters; pages come straight from its index
+                hideLoadControls();
+                showPaged(table, total, firstPage, pageLoader);
+                refresh.paged = true;
+                refresh.rows = total;
+                refresh.commit();
+            } else {
+                streamRows(table, total, source, refresh);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Shows a large table page by page as it is scrolled
+     */
+    private <T> void showPaged(String table, long total, PageRequest firstPage,
+                               LazyPagedList.PageLoader<T> pageLoader) {
+        LazyPagedList<T> rows = new LazyPagedList<>(asyncDAO, pageLoader, firstPage, total, RESIDENT_PAGES);
+        rows.setOnLoadFailed(error -> AlertHelper.showError("Error",
+                "Failed to display table data:\n" + error.getMessage()));
+        showRows(rows);
+        loadStatusLabel.setText(total + " " + table + ", loaded as you scroll");
+    }
+
+    /**
+     * Puts new rows in the table view. A paged list being replaced stops
+     * fetching, so its pending page loads do not keep the DAO busy.
+     */
+    private void showRows(ObservableList<?> rows) {
+        if (tableView.getItems() instanceof LazyPagedList) {
+            ((LazyPagedList<?>) tableView.getItems()).stop();
+        }
+        tableView.setItems(rows);
+    }
+
+    /**
+     * Streams the whole table in, adding rows to the table view as they arrive
+     */
+    private <T> void streamRows(String table, long total, TableLoadTask.RowSource<T> source,
+                                TableRefreshEvent refresh) {
+        ObservableList<T> rows = FXCollections.observableArrayList();
+        showRows(rows);
+        TableLoadTask<T> task = new TableLoadTask<>(table, total, source, rows);
+        currentLoad = task;
+
+        loadProgress.progressProperty().bind(task.progressProperty());
+        loadStatusLabel.textProperty().bind(task.messageProperty());
+
+        long started = System.nanoTime();
+        task.setOnSucceeded(event -> {
+            if (finishLoad(task)) {
+                loadStatusLabel.setText(task.getValue() + " " + table + " loaded in " +
+                        (System.nanoTime() - started) / 1_000_000 + " ms");
+                refresh.rows = task.getValue();
+                refresh.mapTime = task.getMapNanos();
+                refresh.renderTime = task.getRenderNanos();
+                refresh.commit();
+            }
+        });
+        task.setOnFailed(event -> {
+            if (finishLoad(task)) {
+                AlertHelper.showError("Error", "Failed to display table data:\n" +
+                        task.getException().getMessage());
+            }
+        });
+
+        Thread thread = new Thread(task, "table-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reloads the rows if the sort column or direction changed.
+     * Only the first sorted column is used.
+     */
+    private void applySortOrder() {
+        String property = null;
+        boolean ascending = true;
+        if (!tableView.getSortOrder().isEmpty()) {
+            TableColumn<?, ?> column = (TableColumn<?, ?>) tableView.getSortOrder().get(0);
+            property = propertyOf(column);
+            ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+        }
+        if (Objects.equals(property, sortProperty) && ascending == sortAscending) {
+            return;
+        }
+        sortProperty = property;
+        sortAscending = ascending;
+        reloadRows.run();
+    }
+
+    /**
+     * Fills the filter bar with one field per column of the displayed
+     * table. Text columns match values starting with the text typed,
+     * other columns match it exactly.
+     */
+    private void buildFilterBar() {
+        filterBar.getChildren().clear();
+        for (Object item : tableView.getColumns()) {
+            TableColumn<?, ?> column = (TableColumn<?, ?>) item;
+            TextField field = new TextField();
+            field.setPromptText(column.getText());
+            field.setPrefWidth(110);
+            field.setUserData(propertyOf(column));
+            field.setOnAction(event -> applyFilters());
+            filterBar.getChildren().add(field);
+        }
+
+        Button filterButton = new Button("Filter");
+        filterButton.setOnAction(event -> applyFilters());
+        Button clearButton = new Button("Clear");
+        clearButton.setOnAction(event -> {
+            for (Node node : filterBar.getChildren()) {
+                if (node instanceof TextField) {
+                    ((TextField) node).clear();
+                }
+            }
+            applyFilters();
+        });
+        filterBar.getChildren().addAll(filterButton, clearButton);
+    }
+
+    /**
+     * Reloads the rows if the filters typed in the filter bar changed
+     */
+    private void applyFilters() {
+        Map<String, String> filters = new LinkedHashMap<>();
+        for (Node node : filterBar.getChildren()) {
+            if (node instanceof TextField) {
+                String text = ((TextField) node).getText().trim();
+                if (!text.isEmpty()) {
+                    filters.put((String) node.getUserData(), text);
+                }
+            }
+        }
+        if (filters.equals(columnFilters)) {
+            return;
+        }
+        columnFilters = filters;
+        reloadRows.run();
+    }
+
+    /**
+     * The model property a column shows, which is also its sort and filter key
+     */
+    private static String propertyOf(TableColumn<?, ?> column) {
+        Object factory = column.getCellValueFactory();
+        return ((PropertyValueFactory<?, ?>) factory).getProperty();
+    }
+
+    /**
+     * Handles Cancel button - stops the table load in progress
+     */
+    @FXML
+    private void handleCancelLoad() {
+        TableLoadTask<?> task = currentLoad;
+        cancelLoad();
+        if (task != null) {
+            loadStatusLabel.setText("Loading cancelled after " + tableView.getItems().size() + " rows");
+        }
+    }
+
+    private void cancelLoad() {
+        if (pendingCount != null) {
+            pendingCount.cancel(true);
+            pendingCount = null;
+            hideLoadControls();
+        }
+        TableLoadTask<?> task = currentLoad;
+        if (task != null) {
+            task.cancel();
+            finishLoad(task);
+        }
+    }
+
+    /**
+     * Restores the controls after a table load
+     * @return false if a newer load has already taken over
+     */
+    private boolean finishLoad(TableLoadTask<?> task) {
+        if (currentLoad != task) {
+            return false;
+        }
+        currentLoad = null;
+        hideLoadControls();
+        return true;
+    }
+
+    private void hideLoadControls() {
+        loadProgress.progressProperty().unbind();
+        loadStatusLabel.textProperty().unbind();
+        loadStatusLabel.setText("");
+        loadProgress.setVisible(false);
+        cancelLoadButton.setVisible(false);
+    }
+
+    /**
+     * The rows shown for the given table, or null if the view shows
+     * another table
+     */
+    @SuppressWarnings("unchecked")
+    private <T> ObservableList<T> rowsOf(String table) {
+        return table.equals(displayedTable) ? (ObservableList<T>) tableView.getItems() : null;
+    }
+
+    /**
+     * Shows a newly added row. Rows streamed in whole get it appended; a
+     * paged or still loading view is loaded again so the row shows where
+     * its sort and filters put it, and a view of another table is
+     * replaced by the selected one.
+     */
+    private <T> void appendRow(String table, T row) {
+        ObservableList<T> rows = rowsOf(table);
+        if (rows == null) {
+            handleDisplayContents();
+        } else if (rows instanceof LazyPagedList || pendingCount != null || currentLoad != null) {
+            reloadRows.run();
+        } else {
+            rows.add(row);
+        }
+    }
+
+    /**
+     * Swaps a displayed row for its updated copy, so only that row is redrawn
+     */
+    private <T> void replaceRow(String table, T oldRow, T newRow) {
+        ObservableList<T> rows = rowsOf(table);
+        int index = rows != null ? rows.indexOf(oldRow) : -1;
+        if (index >= 0) {
+            rows.set(index, newRow);
+        }
+    }
+
+    /**
+     * Takes a deleted row out of the view, if it is still shown
+     */
+    private <T> void removeRow(String table, T row) {
+        ObservableList<T> rows = rowsOf(table);
+        if (rows != null) {
+            rows.remove(row);
+        }
+    }
+
+    /**
+     * Runs the result handler on the FX thread once the background DAO
+     * call finishes, or shows the error if it failed
+     */
+    private <T> void runInBackground(CompletableFuture<T> call, String failureMessage, Consumer<T> onSuccess) {
+        call.whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = AsyncDAO.unwrap(error);
+            if (!(cause instanceof CancellationException)) {
+                AlertHelper.showError("Error", failureMessage + ":\n" + cause.getMessage());
+            }
+        }, Platform::runLater);
     }
 
     /**
@@ -308,7 +734,7 @@ public class MainViewController {
     /**
      * Adds a new student
      */
-    private void addStudent() throws SQLException {
+    private void addStudent() {
         String firstName = field1.getText().trim();
         String lastName = field2.getText().trim();
         String email = field3.getText().trim();
@@ -334,22 +760,22 @@ public class MainViewController {
         student.setStatus("Active");
         student.setGpa(0.0);
 
-        // Add to database
-        boolean success = studentDAO.addStudent(student);
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Student added successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to add student.");
-        }
+        // Add to database in the background, then show the new row
+        runInBackground(asyncDAO.addStudent(student), "Failed to add record", success -> {
+            if (success) {
+                appendRow("students", student);
+                AlertHelper.showInfo("Success", "Student added successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to add student.");
+            }
+        });
     }
 
     /**
      * Adds a new course
      */
-    private void addCourse() throws SQLException {
+    private void addCourse() {
         String courseCode = field1.getText().trim();
         String courseName = field2.getText().trim();
         String creditsStr = field3.getText().trim();
@@ -379,22 +805,22 @@ public class MainViewController {
         course.setDepartment("General"); // Default
         course.setDescription(""); // Default empty
 
-        // Add to database
-        boolean success = courseDAO.addCourse(course);
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Course added successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to add course.");
-        }
+        // Add to database in the background, then show the new row
+        runInBackground(asyncDAO.addCourse(course), "Failed to add record", success -> {
+            if (success) {
+                appendRow("courses", course);
+                AlertHelper.showInfo("Success", "Course added successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to add course.");
+            }
+        });
     }
 
     /**
      * Adds a new enrollment
      */
-    private void addEnrollment() throws SQLException {
+    private void addEnrollment() {
         String studentIdStr = field1.getText().trim();
         String courseIdStr = field2.getText().trim();
         String semester = field3.getText().trim();
@@ -423,16 +849,19 @@ public class MainViewController {
         enrollment.setEnrollmentStatus("Enrolled");
         enrollment.setEnrollmentDate(LocalDate.now());
 
-        // Add to database
-        boolean success = enrollmentDAO.addEnrollment(enrollment);
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Enrollment added successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to add enrollment.");
-        }
+        // Add to database in the background, then read the new row back for its names
+        CompletableFuture<Enrollment> added = asyncDAO.addEnrollment(enrollment).thenCompose(success -> success
+                ? asyncDAO.getEnrollmentById(enrollment.getEnrollmentId())
+                : CompletableFuture.completedFuture(null));
+        runInBackground(added, "Failed to add record", row -> {
+            if (row != null) {
+                appendRow("enrollments", row);
+                AlertHelper.showInfo("Success", "Enrollment added successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to add enrollment.");
+            }
+        });
     }
 
     /**
@@ -474,7 +903,7 @@ public class MainViewController {
     /**
      * Updates a student record
      */
-    private void updateStudent(Student student) throws SQLException {
+    private void updateStudent(Student student) {
         String firstName = field1.getText().trim();
         String lastName = field2.getText().trim();
         String email = field3.getText().trim();
@@ -490,27 +919,28 @@ public class MainViewController {
             return;
         }
 
-        // Update student object
-        student.setFirstName(firstName);
-        student.setLastName(lastName);
-        student.setEmail(email);
-
-        // Update in database
-        boolean success = studentDAO.updateStudent(student);
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Student updated successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to update student.");
-        }
+        // Edit a copy so the row shown stays as it was if the update fails
+        Student updated = new Student(student);
+        updated.setFirstName(firstName);
+        updated.setLastName(lastName);
+        updated.setEmail(email);
+
+        // Update in database in the background, then swap in the new row
+        runInBackground(asyncDAO.updateStudent(updated), "Failed to update record", success -> {
+            if (success) {
+                replaceRow("students", student, updated);
+                AlertHelper.showInfo("Success", "Student updated successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to update student.");
+            }
+        });
     }
 
     /**
      * Updates a course record
      */
-    private void updateCourse(Course course) throws SQLException {
+    private void updateCourse(Course course) {
         String courseCode = field1.getText().trim();
         String courseName = field2.getText().trim();
         String creditsStr = field3.getText().trim();
@@ -532,27 +962,28 @@ public class MainViewController {
             return;
         }
 
-        // Update course object
-        course.setCourseCode(courseCode);
-        course.setCourseName(courseName);
-        course.setCredits(credits);
-
-        // Update in database
-        boolean success = courseDAO.updateCourse(course);
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Course updated successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to update course.");
-        }
+        // Edit a copy so the row shown stays as it was if the update fails
+        Course updated = new Course(course);
+        updated.setCourseCode(courseCode);
+        updated.setCourseName(courseName);
+        updated.setCredits(credits);
+
+        // Update in database in the background, then swap in the new row
+        runInBackground(asyncDAO.updateCourse(updated), "Failed to update record", success -> {
+            if (success) {
+                replaceRow("courses", course, updated);
+                AlertHelper.showInfo("Success", "Course updated successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to update course.");
+            }
+        });
     }
 
     /**
      * Updates an enrollment record
      */
-    private void updateEnrollment(Enrollment enrollment) throws SQLException {
+    private void updateEnrollment(Enrollment enrollment) {
         String studentIdStr = field1.getText().trim();
         String courseIdStr = field2.getText().trim();
         String semester = field3.getText().trim();
@@ -571,21 +1002,31 @@ public class MainViewController {
         int studentId = Integer.parseInt(studentIdStr);
         int courseId = Integer.parseInt(courseIdStr);
 
-        // Update enrollment object
-        enrollment.setStudentId(studentId);
-        enrollment.setCourseId(courseId);
-        enrollment.setSemester(semester);
-
-        // Update in database
-        boolean success = enrollmentDAO.updateEnrollment(enrollment);
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Enrollment updated successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to update enrollment.");
-        }
+        // Edit a copy so the row shown stays as it was if the update fails
+        Enrollment updated = new Enrollment(enrollment);
+        updated.setStudentId(studentId);
+        updated.setCourseId(courseId);
+        updated.setSemester(semester);
+
+        // Update in database in the background; a new student or course needs its name read back
+        boolean namesChanged = studentId != enrollment.getStudentId() || courseId != enrollment.getCourseId();
+        CompletableFuture<Enrollment> saved = asyncDAO.updateEnrollment(updated).thenCompose(success -> {
+            if (!success) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return namesChanged
+                    ? asyncDAO.getEnrollmentById(updated.getEnrollmentId())
+                    : CompletableFuture.completedFuture(updated);
+        });
+        runInBackground(saved, "Failed to update record", row -> {
+            if (row != null) {
+                replaceRow("enrollments", enrollment, row);
+                AlertHelper.showInfo("Success", "Enrollment updated successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to update enrollment.");
+            }
+        });
     }
 
     /**
@@ -635,46 +1076,46 @@ public class MainViewController {
     /**
      * Deletes a student record
      */
-    private void deleteStudent(Student student) throws SQLException {
-        boolean success = studentDAO.deleteStudent(student.getStudentId());
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Student deleted successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to delete student.");
-        }
+    private void deleteStudent(Student student) {
+        runInBackground(asyncDAO.deleteStudent(student.getStudentId()), "Failed to delete record", success -> {
+            if (success) {
+                removeRow("students", student);
+                AlertHelper.showInfo("Success", "Student deleted successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to delete student.");
+            }
+        });
     }
 
     /**
      * Deletes a course record
      */
-    private void deleteCourse(Course course) throws SQLException {
-        boolean success = courseDAO.deleteCourse(course.getCourseId());
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Course deleted successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to delete course.");
-        }
+    private void deleteCourse(Course course) {
+        runInBackground(asyncDAO.deleteCourse(course.getCourseId()), "Failed to delete record", success -> {
+            if (success) {
+                removeRow("courses", course);
+                AlertHelper.showInfo("Success", "Course deleted successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to delete course.");
+            }
+        });
     }
 
     /**
      * Deletes an enrollment record
      */
-    private void deleteEnrollment(Enrollment enrollment) throws SQLException {
-        boolean success = enrollmentDAO.deleteEnrollment(enrollment.getEnrollmentId());
-
-        if (success) {
-            AlertHelper.showInfo("Success", "Enrollment deleted successfully!");
-            handleDisplayContents(); // Refresh display
-            clearForm();
-        } else {
-            AlertHelper.showError("Error", "Failed to delete enrollment.");
-        }
+    private void deleteEnrollment(Enrollment enrollment) {
+        runInBackground(asyncDAO.deleteEnrollment(enrollment.getEnrollmentId()), "Failed to delete record", success -> {
+            if (success) {
+                removeRow("enrollments", enrollment);
+                AlertHelper.showInfo("Success", "Enrollment deleted successfully!");
+                clearForm();
+            } else {
+                AlertHelper.showError("Error", "Failed to delete enrollment.");
+            }
+        });
     }
 
     /**
@@ -698,6 +1139,232 @@ public class MainViewController {
         }
     }
 
+    /**
+     * Handles Import CSV button - loads a CSV file into the selected table
+     */
+    @FXML
+    private void handleImport() {
+        String selectedTable = tableList.getSelectionModel().getSelectedItem();
+
+        if (selectedTable == null) {
+            AlertHelper.showWarning("No Selection", "Please select a table to import into.");
+            return;
+        }
+        if (!selectedTable.equals("students") && !selectedTable.equals("courses")
+                && !selectedTable.equals("enrollments")) {
+            AlertHelper.showInfo("Info", "Table '" + selectedTable + "' is not supported for import.");
+            return;
+        }
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import " + selectedTable + " from CSV");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(tableView.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Path csvFile = file.toPath();
+        CsvImporter importer = new CsvImporter(selectedTable);
+        if (Files.exists(CsvImporter.checkpointPath(csvFile))) {
+            importer.setResume(AlertHelper.showConfirmation("Resume Import",
+                    "An earlier import of this file did not finish.\n" +
+                    "Continue where it stopped? Choose Cancel to start over."));
+        }
+
+        Task<ImportResult> task = new Task<ImportResult>() {
+            @Override
+            protected ImportResult call() throws Exception {
+                importer.setProgressListener((read, imported, failed, fraction) -> {
+                    updateProgress(fraction, 1.0);
+                    updateMessage("Importing " + selectedTable + ": " + imported + " rows imported, " +
+                            failed + " rejected");
+                });
+                return importer.importFile(csvFile);
+            }
+        };
+
+        importButton.setDisable(true);
+        importProgress.setVisible(true);
+        importProgress.progressProperty().bind(task.progressProperty());
+        statusLabel.textProperty().bind(task.messageProperty());
+
+        task.setOnSucceeded(event -> {
+            finishImport();
+            ImportResult result = task.getValue();
+            String summary = "Imported " + result.getImported() + " of " + result.getRecordsRead() +
+                    " records in " + result.getElapsedMillis() + " ms" +
+                    String.format(" (%.0f records/s).", result.getRecordsPerSecond());
+            if (result.getSkipped() > 0) {
+                summary += "\nSkipped " + result.getSkipped() + " records already imported earlier.";
+            }
+            if (result.getErrorReport() != null) {
+                summary += "\n" + result.getFailed() + " records were rejected; see\n" + result.getErrorReport();
+            }
+            AlertHelper.showInfo("Import Finished", summary);
+            if (selectedTable.equals(currentTable)) {
+                handleDisplayContents(); // Refresh display
+            }
+        });
+        task.setOnFailed(event -> {
+            finishImport();
+            Throwable error = task.getException();
+            AlertHelper.showError("Import Error", "Failed to import " + file.getName() + ":\n" +
+                    error.getMessage() + "\n\nRun the import again to resume from the last saved point.");
+        });
+
+        Thread thread = new Thread(task, "csv-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Handles Export button - writes the selected table to a CSV or JSON Lines file
+     */
+    @FXML
+    private void handleExport() {
+        String selectedTable = tableList.getSelectionModel().getSelectedItem();
+
+        if (selectedTable == null) {
+            AlertHelper.showWarning("No Selection", "Please select a table to export.");
+            return;
+        }
+        if (!selectedTable.equals("students") && !selectedTable.equals("courses")
+                && !selectedTable.equals("enrollments")) {
+            AlertHelper.showInfo("Info", "Table '" + selectedTable + "' is not supported for export.");
+            return;
+        }
+
+        TableExporter exporter = new TableExporter(selectedTable);
+        if (!showExportOptions(selectedTable, exporter)) {
+            return;
+        }
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export " + selectedTable);
+        chooser.setInitialFileName(selectedTable + ".csv");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV, gzip", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+                new FileChooser.ExtensionFilter("JSON Lines, gzip", "*.jsonl.gz"));
+        File file = chooser.showSaveDialog(tableView.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        exporter.configureFromFileName(file.getName());
+
+        Task<ExportResult> task = new Task<ExportResult>() {
+            @Override
+            protected ExportResult call() throws Exception {
+                exporter.setProgressListener(rows -> updateMessage("Exporting " + selectedTable + ": " +
+                        rows + " rows written"));
+                return exporter.export(file.toPath());
+            }
+        };
+
+        exportButton.setDisable(true);
+        importProgress.setVisible(true);
+        importProgress.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        statusLabel.textProperty().bind(task.messageProperty());
+
+        task.setOnSucceeded(event -> {
+            finishImport();
+            ExportResult result = task.getValue();
+            AlertHelper.showInfo("Export Finished", "Exported " + result.getRows() + " rows to\n" +
+                    result.getFile() + "\n\n" +
+                    String.format("%.1f MB written (%.1f MB before compression) in %d ms%n" +
+                                    "%.0f rows/s, %.1f MB/s",
+                            result.getFileBytes() / 1e6, result.getUncompressedBytes() / 1e6,
+                            result.getElapsedMillis(), result.getRowsPerSecond(),
+                            result.getBytesPerSecond() / 1e6));
+        });
+        task.setOnFailed(event -> {
+            finishImport();
+            AlertHelper.showError("Export Error", "Failed to export " + selectedTable + ":\n" +
+                    task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "table-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks which columns to export and how to filter the rows
+     * @return false if the user cancelled
+     */
+    private boolean showExportOptions(String table, TableExporter exporter) {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Export " + table);
+        dialog.setHeaderText("Choose the columns and filters (leave a filter empty to include everything)");
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        ListView<String> columnList = new ListView<>(FXCollections.observableArrayList(
+                TableExporter.getAvailableColumns(table)));
+        columnList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        columnList.getSelectionModel().selectAll();
+        columnList.setPrefHeight(200);
+
+        TextField semesterField = new TextField();
+        TextField yearField = new TextField();
+        TextField departmentField = new TextField();
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.addRow(0, new Label("Columns:"), columnList);
+        grid.addRow(1, new Label("Semester:"), semesterField);
+        grid.addRow(2, new Label("Year:"), yearField);
+        grid.addRow(3, new Label("Department:"), departmentField);
+        dialog.getDialogPane().setContent(grid);
+
+        while (true) {
+            if (dialog.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+                return false;
+            }
+            String year = yearField.getText().trim();
+            if (!year.isEmpty() && !ValidationHelper.isValidInteger(year)) {
+                AlertHelper.showError("Validation Error", "Year must be a valid number.");
+                continue;
+            }
+            // Keep the table's column order whatever order they were clicked in
+            List<String> columns = new ArrayList<>();
+            for (int i = 0; i < columnList.getItems().size(); i++) {
+                if (columnList.getSelectionModel().isSelected(i)) {
+                    columns.add(columnList.getItems().get(i));
+                }
+            }
+            if (columns.isEmpty()) {
+                AlertHelper.showError("Validation Error", "Please select at least one column.");
+                continue;
+            }
+
+            exporter.setColumns(columns);
+            exporter.setFilter(new EnrollmentFilter(
+                    emptyToNull(semesterField.getText()),
+                    year.isEmpty() ? null : Integer.valueOf(year),
+                    emptyToNull(departmentField.getText())));
+            return true;
+        }
+    }
+
+    private static String emptyToNull(String text) {
+        return text == null || text.trim().isEmpty() ? null : text.trim();
+    }
+
+    /**
+     * Restores the controls after an import or export
+     */
+    private void finishImport() {
+        importProgress.progressProperty().unbind();
+        importProgress.setVisible(false);
+        importButton.setDisable(false);
+        exportButton.setDisable(false);
+        statusLabel.textProperty().unbind();
+        statusLabel.setText("Connected to database: " + DatabaseConnection.getInstance().getDatabaseName());
+    }
+
     /**
      * Clears form fields
      */
@@ -0,0 +1,550 @@
+package advancejavaproject4.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * In-memory id to display name lookup for students and courses, used by
+ * EnrollmentDAO instead of joining both tables on every query.
+ * Keys are primitive ints in an open-addressing table, so a lookup
+ * allocates nothing, and each name is a single shared String no matter
+ * how many enrollment rows refer to it.
+ * Readers never lock: writers publish a new snapshot through a volatile
+ * field. Entries loaded or invalidated after the last full load sit in a
+ * small table beside it, so a write copies those and not the whole table.
+ * The dictionary loads itself on first use, loads ids it has not seen yet
+ * on demand, and drops entries the DAOs invalidate.
+ * @author yigitt
+ */
+public final class NameDictionary {
+
+    private static final NameDictionary STUDENTS = new NameDictionary("students",
+            "SELECT student_id, first_name, last_name FROM students", "student_id",
+            rs -> {
+                String first = rs.getString(2);
+                String last = rs.getString(3);
+                // Same as CONCAT: NULL if either part is NULL
+                if (first == null || last == null) {
+                    return new Entry(rs.getInt(1), null, null);
+                }
+                // Sorts like ORDER BY last_name, first_name
+                return new Entry(rs.getInt(1), first + " " + last, last + '\u0000' + first);
+            });
+
+    private static final NameDictionary COURSES = new NameDictionary("courses",
+            "SELECT course_id, course_name FROM courses", "course_id",
+            rs -> {
+                String name = rs.getString(2);
+                return new Entry(rs.getInt(1), name, name);
+            });
+
+    // Largest IN list used when loading missing ids
+    private static final int LOAD_SLICE_SIZE = 500;
+    // Changes kept beside the loaded table before both are merged into a new one
+    private static final int MAX_CHANGES = 1024;
+    private static final int REFRESH_ATTEMPTS = 3;
+    // Name kept in the changes for an invalidated id, compared by identity
+    private static final String REMOVED = new String("");
+
+    private final String name;
+    private final String selectSql;
+    private final String idColumn;
+    private final RowMapper<Entry> reader;
+
+    private volatile Snapshot snapshot;
+    // Bumped by every invalidation so an id load that raced with it is not published
+    private long generation;
+    // Ids invalidated while refresh() reads the table; null when no refresh runs
+    private List<Integer> invalidatedDuringRefresh;
+    private boolean clearedDuringRefresh;
+    private final Object loadLock = new Object();
+    private volatile long lastRefreshMillis;
+
+    private NameDictionary(String name, String selectSql, String idColumn, RowMapper<Entry> reader) {
+        this.name = name;
+        this.selectSql = selectSql;
+        this.idColumn = idColumn;
+        this.reader = reader;
+    }
+
+    /**
+     * Student id to "first last"
+     */
+    public static NameDictionary students() {
+        return STUDENTS;
+    }
+
+    /**
+     * Course id to course name
+     */
+    public static NameDictionary courses() {
+        return COURSES;
+    }
+
+    /**
+     * Drops both dictionaries, e.g. after SQL the DAOs cannot see.
+     * They reload on next use.
+     */
+    public static void clearAll() {
+        STUDENTS.clear();
+        COURSES.clear();
+    }
+
+    /**
+     * The name for the id, loading it from the database if needed.
+     * Null if there is no such row.
+     */
+    public String nameOf(int id) throws SQLException {
+        Snapshot current = snapshotContaining(id);
+        return current == null ? null : current.nameOf(id);
+    }
+
+    /**
+     * A key that orders names the way the database query did
+     * (last name, then first name for students)
+     */
+    public String sortKeyOf(int id) throws SQLException {
+        Snapshot current = snapshotContaining(id);
+        return current == null ? null : current.sortKeyOf(id);
+    }
+
+    /**
+     * Makes sure every given id is in the dictionary, with one query
+     * per slice of ids not seen before
+     */
+    public void prefetch(int[] ids) throws SQLException {
+        Snapshot current = loaded();
+        int[] missing = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            if (!current.contains(id)) {
+                missing[count++] = id;
+            }
+        }
+        if (count > 0) {
+            loadIds(Arrays.stream(missing, 0, count).distinct().toArray());
+        }
+    }
+
+    /**
+     * Loads the dictionary now if it has not been loaded yet
+     */
+    public void load() throws SQLException {
+        loaded();
+    }
+
+    /**
+     * Reloads the whole table from the database. Ids invalidated while it
+     * reads are left out, so they load again on demand.
+     */
+    public void refresh() throws SQLException {
+        synchronized (loadLock) {
+            for (int attempt = 1; ; attempt++) {
+                synchronized (this) {
+                    invalidatedDuringRefresh = new ArrayList<>();
+                    clearedDuringRefresh = false;
+                }
+                Table fresh;
+                try {
+                    fresh = readTable();
+                } catch (SQLException | RuntimeException e) {
+                    synchronized (this) {
+                        invalidatedDuringRefresh = null;
+                    }
+                    throw e;
+                }
+
+                synchronized (this) {
+                    List<Integer> invalidated = invalidatedDuringRefresh;
+                    invalidatedDuringRefresh = null;
+                    // After a clear(), e.g. for hand-written SQL, read again; the
+                    // last read is still better than no dictionary at all
+                    if (!clearedDuringRefresh || attempt == REFRESH_ATTEMPTS) {
+                        // The row may have been read before the write
+                        for (int id : invalidated) {
+                            fresh.remove(id);
+                        }
+                        snapshot = new Snapshot(fresh);
+                        lastRefreshMillis = System.currentTimeMillis();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the id; the next lookup reads it from the database again
+     */
+    public void invalidate(int id) {
+        invalidateAll(Collections.singletonList(id));
+    }
+
+    public synchronized void invalidateAll(Collection<Integer> ids) {
+        generation++;
+        if (invalidatedDuringRefresh != null) {
+            invalidatedDuringRefresh.addAll(ids);
+        }
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Snapshot next = current;
+        for (int id : ids) {
+            if (next.contains(id)) {
+                if (next == current) {
+                    next = current.edit();
+                }
+                next.remove(id);
+            }
+        }
+        if (next != current) {
+            snapshot = next.compacted();
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        if (invalidatedDuringRefresh != null) {
+            clearedDuringRefresh = true;
+        }
+        snapshot = null;
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.size;
+    }
+
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "NameDictionary{" + name + ", size=" + size() + '}';
+    }
+
+    /**
+     * A snapshot holding the id, or null if the id does not exist
+     */
+    private Snapshot snapshotContaining(int id) throws SQLException {
+        Snapshot current = loaded();
+        if (current.contains(id)) {
+            return current;
+        }
+        // A second try covers a load discarded because of a concurrent invalidation
+        for (int attempt = 0; attempt < 2; attempt++) {
+            loadIds(new int[]{id});
+            current = snapshot;
+            if (current != null && current.contains(id)) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    private Snapshot loaded() throws SQLException {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (loadLock) {
+                if (snapshot == null) {
+                    refresh();
+                }
+            }
+            current = snapshot;
+            if (current == null) {
+                throw new SQLException("The " + name + " name dictionary could not be loaded");
+            }
+        }
+        return current;
+    }
+
+    private void loadIds(int[] ids) throws SQLException {
+        long stamp = generation();
+        Entry[] found = new Entry[ids.length];
+        int count = 0;
+
+        for (int start = 0; start < ids.length; start += LOAD_SLICE_SIZE) {
+            int end = Math.min(ids.length, start + LOAD_SLICE_SIZE);
+            int[] slice = Arrays.copyOfRange(ids, start, end);
+            String sql = selectSql + " WHERE " + idColumn + " IN (" +
+                    String.join(", ", Collections.nCopies(slice.length, "?")) + ")";
+
+            try (Stream<Entry> rows = JdbcStream.open(sql, pstmt -> {
+                for (int i = 0; i < slice.length; i++) {
+                    pstmt.setInt(i + 1, slice[i]);
+                }
+            }, rs -> reader)) {
+                for (Entry entry : (Iterable<Entry>) rows::iterator) {
+                    found[count++] = entry;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error loading " + name + " names: " + e.getMessage());
+                throw e;
+            }
+        }
+
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (current == null || generation != stamp || count == 0) {
+                return;
+            }
+            Snapshot next = current.edit();
+            for (int i = 0; i < count; i++) {
+                next.put(found[i]);
+            }
+            snapshot = next.compacted();
+        }
+    }
+
+    private Table readTable() throws SQLException {
+        Table fresh = new Table(1024);
+        Map<String, String> canonical = new HashMap<>();
+
+        try (Stream<Entry> rows = JdbcStream.open(selectSql, pstmt -> { }, rs -> reader)) {
+            rows.forEach(entry -> fresh.put(entry.id,
+                    canonicalize(canonical, entry.name), canonicalize(canonical, entry.sortKey)));
+        } catch (SQLException e) {
+            System.err.println("Error loading " + name + " names: " + e.getMessage());
+            throw e;
+        }
+        return fresh;
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    private static String canonicalize(Map<String, String> canonical, String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = canonical.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private static final class Entry {
+        final int id;
+        final String name;
+        final String sortKey;
+
+        Entry(int id, String name, String sortKey) {
+            this.id = id;
+            this.name = name;
+            this.sortKey = sortKey;
+        }
+    }
+
+    /**
+     * What readers see: the table of the last full load plus a small table
+     * of the entries loaded or invalidated since. Writers change an
+     * unpublished copy from edit() and publish it.
+     */
+    private static final class Snapshot {
+        final Table base;
+        final Table changes;
+        int size;
+
+        Snapshot(Table base) {
+            this(base, new Table(16), base.size);
+        }
+
+        private Snapshot(Table base, Table changes, int size) {
+            this.base = base;
+            this.changes = changes;
+            this.size = size;
+        }
+
+        boolean contains(int id) {
+            int i = changes.indexOf(id);
+            return i >= 0 ? changes.names[i] != REMOVED : base.indexOf(id) >= 0;
+        }
+
+        String nameOf(int id) {
+            int i = changes.indexOf(id);
+            if (i < 0) {
+                return base.nameOf(id);
+            }
+            return changes.names[i] == REMOVED ? null : changes.names[i];
+        }
+
+        String sortKeyOf(int id) {
+            int i = changes.indexOf(id);
+            return i < 0 ? base.sortKeyOf(id) : changes.sortKeys[i];
+        }
+
+        Snapshot edit() {
+            return new Snapshot(base, changes.copy(), size);
+        }
+
+        void put(Entry entry) {
+            if (entry.id <= 0) {
+                return;
+            }
+            if (!contains(entry.id)) {
+                size++;
+            }
+            changes.put(entry.id, entry.name, entry.sortKey);
+        }
+
+        void remove(int id) {
+            if (!contains(id)) {
+                return;
+            }
+            size--;
+            if (base.indexOf(id) >= 0) {
+                changes.put(id, REMOVED, null);
+            } else {
+                changes.remove(id);
+            }
+        }
+
+        /**
+         * This snapshot, or once the changes pile up, one with them merged
+         * into a new base table
+         */
+        Snapshot compacted() {
+            if (changes.size <= MAX_CHANGES) {
+                return this;
+            }
+            Table merged = base.copy();
+            for (int i = 0; i < changes.keys.length; i++) {
+                int id = changes.keys[i];
+                if (id == 0) {
+                    continue;
+                }
+                if (changes.names[i] == REMOVED) {
+                    merged.remove(id);
+                } else {
+                    merged.put(id, changes.names[i], changes.sortKeys[i]);
+                }
+            }
+            return new Snapshot(merged);
+        }
+    }
+
+    /**
+     * Open-addressing int to (name, sort key) table with linear probing.
+     * Id 0 marks a free slot; database ids start at 1.
+     */
+    static final class Table {
+        int[] keys;
+        String[] names;
+        String[] sortKeys;
+        int size;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            names = new String[capacity];
+            sortKeys = new String[capacity];
+        }
+
+        Table copy() {
+            Table copy = new Table(0);
+            copy.keys = keys.clone();
+            copy.names = names.clone();
+            copy.sortKeys = sortKeys.clone();
+            copy.size = size;
+            return copy;
+        }
+
+        int indexOf(int id) {
+            if (id <= 0) {
+                return -1;
+            }
+            int mask = keys.length - 1;
+            for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+                int key = keys[i];
+                if (key == id) {
+                    return i;
+                }
+                if (key == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        String nameOf(int id) {
+            int i = indexOf(id);
+            return i < 0 ? null : names[i];
+        }
+
+        String sortKeyOf(int id) {
+            int i = indexOf(id);
+            return i < 0 ? null : sortKeys[i];
+        }
+
+        void put(int id, String name, String sortKey) {
+            if (id <= 0) {
+                return;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = slot(id, mask);
+            while (keys[i] != 0 && keys[i] != id) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                size++;
+            }
+            keys[i] = id;
+            names[i] = name;
+            sortKeys[i] = sortKey;
+        }
+
+        void remove(int id) {
+            int i = indexOf(id);
+            if (i < 0) {
+                return;
+            }
+            int mask = keys.length - 1;
+            // Shift later entries of the probe run back so lookups still find them
+            int gap = i;
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                boolean movable = gap <= j ? (home <= gap || home > j) : (home <= gap && home > j);
+                if (movable) {
+                    keys[gap] = keys[j];
+                    names[gap] = names[j];
+                    sortKeys[gap] = sortKeys[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            names[gap] = null;
+            sortKeys[gap] = null;
+            size--;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            String[] oldNames = names;
+            String[] oldSortKeys = sortKeys;
+            int capacity = Math.max(16, oldKeys.length * 2);
+            keys = new int[capacity];
+            names = new String[capacity];
+            sortKeys = new String[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldNames[i], oldSortKeys[i]);
+                }
+            }
+        }
+
+        private static int slot(int id, int mask) {
+            int h = id * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package advancejavaproject4.database;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts, errors, rows and latencies of one DAO operation. Callers
+ * start a call with begin and report its outcome on the returned event;
+ * recording only adds to counters, so any number of threads can record
+ * at once without locking.
+ * Get instances from DaoMetrics.operation.
+ * @author yigitt
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+
+    // Distinct error codes counted separately; any others are counted under OTHER_ERROR_CODE
+    private static final int MAX_ERROR_CODES = 64;
+    public static final int OTHER_ERROR_CODE = Integer.MIN_VALUE;
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> errorsByCode = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts timing one call, which is also a Flight Recorder event
+     */
+    public DaoCallEvent begin() {
+        return new DaoCallEvent(this);
+    }
+
+    /**
+     * Records a call that started at the given System.nanoTime() and
+     * read or wrote the given number of rows
+     */
+    void succeeded(long started, long rowCount) {
+        latency.record(System.nanoTime() - started);
+        calls.increment();
+        rows.add(rowCount);
+    }
+
+    /**
+     * Records a call that started at the given System.nanoTime() and failed
+     */
+    void failed(long started, SQLException e) {
+        latency.record(System.nanoTime() - started);
+        calls.increment();
+        failed(e);
+    }
+
+    /**
+     * Records an error raised after the call itself returned, e.g. while
+     * reading a stream
+     */
+    public void failed(SQLException e) {
+        errors.increment();
+        Integer code = e.getErrorCode();
+        LongAdder counter = errorsByCode.get(code);
+        if (counter == null) {
+            if (errorsByCode.size() >= MAX_ERROR_CODES) {
+                code = OTHER_ERROR_CODE;
+            }
+            counter = errorsByCode.computeIfAbsent(code, c -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Adds rows read after the call returned, e.g. from a stream
+     */
+    public void addRows(long rowCount) {
+        rows.add(rowCount);
+    }
+
+    /**
+     * The current values, with the latency percentiles worked out once
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(name, calls.sum(), errors.sum(), rows.sum(), getErrorsByCode(), latency.snapshot());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public Map<Integer, Long> getErrorsByCode() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        errorsByCode.forEach((code, counter) -> counts.put(code, counter.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return toMillis(latency.snapshot().getMeanNanos());
+    }
+
+    @Override
+    public double getP50Millis() {
+        return toMillis(latency.snapshot().valueAt(0.5));
+    }
+
+    @Override
+    public double getP99Millis() {
+        return toMillis(latency.snapshot().valueAt(0.99));
+    }
+
+    @Override
+    public double getP999Millis() {
+        return toMillis(latency.snapshot().valueAt(0.999));
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return toMillis(latency.snapshot().getMaxNanos());
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        rows.reset();
+        errorsByCode.clear();
+        latency.reset();
+    }
+
+    static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Values of one operation at one point in time
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long calls;
+        private final long errors;
+        private final long rows;
+        private final Map<Integer, Long> errorsByCode;
+        private final LatencyHistogram.Snapshot latency;
+
+        private Snapshot(String name, long calls, long errors, long rows,
+                         Map<Integer, Long> errorsByCode, LatencyHistogram.Snapshot latency) {
+            this.name = name;
+            this.calls = calls;
+            this.errors = errors;
+            this.rows = rows;
+            this.errorsByCode = errorsByCode;
+            this.latency = latency;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public Map<Integer, Long> getErrorsByCode() {
+            return errorsByCode;
+        }
+
+        public double getMeanMillis() {
+            return toMillis(latency.getMeanNanos());
+        }
+
+        /**
+         * Latency at the given fraction, e.g. 0.999 for p999
+         */
+        public double getPercentileMillis(double fraction) {
+            return toMillis(latency.valueAt(fraction));
+        }
+
+        public double getMaxMillis() {
+            return toMillis(latency.getMaxNanos());
+        }
+    }
+}
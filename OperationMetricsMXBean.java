@@ -0,0 +1,39 @@
+package advancejavaproject4.database;
+
+import java.util.Map;
+
+/**
+ * JMX view of one DAO operation, registered by DaoMetrics under
+ * advancejavaproject4:type=DaoMetrics,name=&lt;operation&gt;
+ * @author yigitt
+ */
+public interface OperationMetricsMXBean {
+
+    String getName();
+
+    long getCalls();
+
+    long getErrors();
+
+    /**
+     * Failed calls by SQL error code
+     */
+    Map<Integer, Long> getErrorsByCode();
+
+    /**
+     * Rows read or written by the successful calls
+     */
+    long getRows();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,42 @@
+package advancejavaproject4.database;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of rows plus the token needed to fetch the next page
+ * @author yigitt
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final String nextPageToken;
+
+    public Page(List<T> items, String nextPageToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Token for the next page, or null when this is the last page
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "size=" + items.size() +
+                ", hasNext=" + hasNext() +
+                '}';
+    }
+}
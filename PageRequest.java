@@ -0,0 +1,138 @@
+package advancejavaproject4.database;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Describes one page of a keyset-paginated listing: the sort column,
+ * direction, page size, column filters and the continuation token of
+ * the previous page.
+ * A request without a token may instead skip a number of rows, for
+ * jumping straight to a page deep in the listing.
+ * @author yigitt
+ */
+public class PageRequest {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final String sortProperty;
+    private final boolean ascending;
+    private final int pageSize;
+    private final String pageToken;
+    private final long offset;
+    private final Map<String, String> filters;
+
+    /**
+     * @param sortProperty model property to sort by (e.g. "lastName"), or null for the id
+     * @param ascending    sort direction
+     * @param pageSize     maximum number of rows in the page
+     * @param pageToken    token returned with the previous page, or null for the first page
+     */
+    public PageRequest(String sortProperty, boolean ascending, int pageSize, String pageToken) {
+        this(sortProperty, ascending, pageSize, pageToken, 0, Collections.emptyMap());
+    }
+
+    private PageRequest(String sortProperty, boolean ascending, int pageSize, String pageToken, long offset,
+                        Map<String, String> filters) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        this.sortProperty = sortProperty;
+        this.ascending = ascending;
+        this.pageSize = pageSize;
+        this.pageToken = pageToken;
+        this.offset = offset;
+        this.filters = filters;
+    }
+
+    public static PageRequest firstPage(String sortProperty, boolean ascending, int pageSize) {
+        return new PageRequest(sortProperty, ascending, pageSize, null);
+    }
+
+    /**
+     * Request for the page that follows the given one, with the same sort
+     * and filters
+     */
+    public PageRequest next(Page<?> page) {
+        return withPageToken(page.getNextPageToken());
+    }
+
+    /**
+     * The same request continuing after the page the token came from
+     */
+    public PageRequest withPageToken(String pageToken) {
+        return new PageRequest(sortProperty, ascending, pageSize, pageToken, 0, filters);
+    }
+
+    /**
+     * The same request starting after the first offset rows instead of
+     * at a token. The database still reads the skipped rows, so prefer
+     * continuing with {@link #next} once a page is known.
+     */
+    public PageRequest withOffset(long offset) {
+        return new PageRequest(sortProperty, ascending, pageSize, null, offset, filters);
+    }
+
+    /**
+     * The same request limited to rows matching every filter. Keys are
+     * sortable properties; text columns match values starting with the
+     * filter text and other columns match it exactly. Blank filters are
+     * left out.
+     */
+    public PageRequest withFilters(Map<String, String> filters) {
+        Map<String, String> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            if (filter.getValue() != null && !filter.getValue().trim().isEmpty()) {
+                copy.put(filter.getKey(), filter.getValue().trim());
+            }
+        }
+        return new PageRequest(sortProperty, ascending, pageSize, pageToken, offset,
+                Collections.unmodifiableMap(copy));
+    }
+
+    public String getSortProperty() {
+        return sortProperty;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getPageToken() {
+        return pageToken;
+    }
+
+    /**
+     * Rows to skip; only used when there is no page token
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Column filters by property name
+     */
+    public Map<String, String> getFilters() {
+        return filters;
+    }
+
+    @Override
+    public String toString() {
+        return "PageRequest{" +
+                "sortProperty='" + sortProperty + '\'' +
+                ", ascending=" + ascending +
+                ", pageSize=" + pageSize +
+                ", pageToken='" + pageToken + '\'' +
+                ", offset=" + offset +
+                ", filters=" + filters +
+                '}';
+    }
+}
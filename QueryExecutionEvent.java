@@ -0,0 +1,54 @@
+package advancejavaproject4;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one run of the query window, a single
+ * statement or a whole script
+ * @author yigitt
+ */
+@Name("unitrack.QueryExecution")
+@Label("Query Execution")
+@Category({"UniTrack", "UI"})
+@Description("One run of the Custom Query window")
+@StackTrace(false)
+final class QueryExecutionEvent extends Event {
+
+    @Label("SQL")
+    @Description("The statement, or the first statement of a script")
+    String sql;
+
+    @Label("Statements")
+    int statements;
+
+    @Label("Script")
+    boolean script;
+
+    @Label("Rows")
+    @Description("Rows read from all results")
+    long rows;
+
+    @Label("Time To First Row")
+    @Description("From the start of the run to the first row read; 0 if no rows were read")
+    @Timespan(Timespan.MILLISECONDS)
+    long firstRowTime;
+
+    @Label("Truncated")
+    @Description("A result had more rows than the max rows setting")
+    boolean truncated;
+
+    @Label("Cancelled")
+    boolean cancelled;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("SQL Error Code")
+    int errorCode;
+}
@@ -0,0 +1,188 @@
+package advancejavaproject4.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Execution plan of a statement, as reported by the database's EXPLAIN.
+ * MySQL 8 describes the plan as an indented tree (EXPLAIN FORMAT=TREE),
+ * which is kept as a tree of nodes; older servers return a table, which
+ * becomes one node per row.
+ * @author yigitt
+ */
+public final class QueryPlan {
+
+    /**
+     * One step of the plan, e.g. "Table scan on s"
+     */
+    public static final class Node {
+        private final String text;
+        private final List<Node> children = new ArrayList<>();
+
+        Node(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+    }
+
+    private final String sql;
+    private final Node root;
+
+    private QueryPlan(String sql, Node root) {
+        this.sql = sql;
+        this.root = root;
+    }
+
+    /**
+     * True for the statements EXPLAIN accepts
+     */
+    public static boolean canExplain(String sql) {
+        switch (SqlScript.firstKeyword(sql)) {
+            case "SELECT":
+            case "WITH":
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "REPLACE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Asks the database for the plan of the statement without running it
+     * @param params values of the statement's ? parameters, in order
+     */
+    public static QueryPlan explain(Connection conn, String sql, List<Object> params) throws SQLException {
+        if (isMySql8(conn)) {
+            try {
+                return new QueryPlan(sql, parseTree(query(conn, "EXPLAIN FORMAT=TREE " + sql, params)));
+            } catch (SQLException e) {
+                // FORMAT=TREE arrived in 8.0.16; fall back to the table form
+            }
+        }
+        return new QueryPlan(sql, parseTree(query(conn, "EXPLAIN " + sql, params)));
+    }
+
+    private static boolean isMySql8(Connection conn) throws SQLException {
+        return "MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName()) &&
+                conn.getMetaData().getDatabaseMajorVersion() >= 8;
+    }
+
+    /**
+     * Lines of the plan. A single-column result is plan text; each row of
+     * a wider one becomes a line of column=value pairs.
+     */
+    private static List<String> query(Connection conn, String sql, List<Object> params) throws SQLException {
+        List<String> lines = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                while (rs.next()) {
+                    if (columnCount == 1) {
+                        String text = rs.getString(1);
+                        if (text != null) {
+                            Collections.addAll(lines, text.split("\\R"));
+                        }
+                        continue;
+                    }
+                    StringBuilder line = new StringBuilder();
+                    for (int i = 1; i <= columnCount; i++) {
+                        String value = rs.getString(i);
+                        if (value != null) {
+                            if (line.length() > 0) {
+                                line.append(", ");
+                            }
+                            line.append(metaData.getColumnLabel(i)).append('=').append(value);
+                        }
+                    }
+                    lines.add(line.toString());
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Nests the lines by their indentation under a root node
+     */
+    private static Node parseTree(List<String> lines) {
+        Node root = new Node("Plan");
+        Deque<Node> parents = new ArrayDeque<>();
+        Deque<Integer> indents = new ArrayDeque<>();
+        parents.push(root);
+        indents.push(-1);
+
+        for (String line : lines) {
+            String text = line.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            int indent = line.indexOf(text.charAt(0));
+            if (text.startsWith("-> ")) {
+                text = text.substring(3);
+            }
+            while (indent <= indents.peek()) {
+                parents.pop();
+                indents.pop();
+            }
+            Node node = new Node(text);
+            parents.peek().children.add(node);
+            parents.push(node);
+            indents.push(indent);
+        }
+        return root;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Root of the plan; its children are the top-level steps
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * The plan as indented text, one step per line
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        for (Node child : root.children) {
+            appendNode(text, child, 0);
+        }
+        return text.toString();
+    }
+
+    private static void appendNode(StringBuilder text, Node node, int depth) {
+        for (int i = 0; i < depth; i++) {
+            text.append("    ");
+        }
+        text.append("-> ").append(node.text).append(System.lineSeparator());
+        for (Node child : node.children) {
+            appendNode(text, child, depth + 1);
+        }
+    }
+}
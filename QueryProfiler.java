@@ -0,0 +1,459 @@
+package advancejavaproject4.database;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Records every statement run on a connection: its SQL shape (the SQL
+ * with literals replaced by ?), number of bound parameters, rows returned
+ * or affected and duration. Durations cover the execute call and the
+ * time spent fetching rows, but not what the caller does between rows.
+ * Statements slower than the threshold also go to the slow query log,
+ * with their EXPLAIN plan captured once a minute per shape.
+ * Works by wrapping physical connections, so DAO and ad-hoc statements
+ * alike are seen, including those handed out by the statement cache.
+ * @author yigitt
+ */
+public final class QueryProfiler {
+
+    /**
+     * Totals for one SQL shape
+     */
+    public static final class StatementStats {
+        private final String shape;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long rows;
+        private int bindCount;
+
+        StatementStats(String shape) {
+            this.shape = shape;
+        }
+
+        synchronized void add(int bindCount, long rows, long nanos) {
+            this.count++;
+            this.totalNanos += nanos;
+            this.maxNanos = Math.max(maxNanos, nanos);
+            this.rows += Math.max(0, rows);
+            this.bindCount = bindCount;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized double getTotalMillis() {
+            return totalNanos / 1_000_000.0;
+        }
+
+        public synchronized double getAverageMillis() {
+            return count == 0 ? 0.0 : totalNanos / 1_000_000.0 / count;
+        }
+
+        public synchronized double getMaxMillis() {
+            return maxNanos / 1_000_000.0;
+        }
+
+        /**
+         * Rows returned or affected, over all runs
+         */
+        public synchronized long getRows() {
+            return rows;
+        }
+
+        /**
+         * Parameters bound on the last run
+         */
+        public synchronized int getBindCount() {
+            return bindCount;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%6d x %8.1f ms avg %8.1f ms max %8d rows  %s",
+                    count, getAverageMillis(), getMaxMillis(), rows, shape);
+        }
+    }
+
+    // Shapes tracked separately; the rest are added up under one entry
+    private static final int MAX_SHAPES = 1_000;
+    private static final String OTHER_SHAPES = "(other statements)";
+    private static final long EXPLAIN_INTERVAL_NANOS = 60_000_000_000L;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'|\"(?:[^\"\\\\]|\\\\.|\"\")*\"");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN \\(\\?(?:, ?\\?)*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long slowThresholdNanos;
+    private final SlowQueryLog slowLog;
+    private final ConcurrentHashMap<String, StatementStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> lastExplained = new ConcurrentHashMap<>();
+
+    /**
+     * @param slowThresholdMillis statements taking at least this long are logged
+     * @param slowLog             where slow statements go, or null to keep no log
+     */
+    public QueryProfiler(long slowThresholdMillis, SlowQueryLog slowLog) {
+        this.slowThresholdNanos = slowThresholdMillis * 1_000_000L;
+        this.slowLog = slowLog;
+    }
+
+    /**
+     * Returns a connection that profiles the statements created through it
+     */
+    public Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(physical));
+    }
+
+    /**
+     * Totals per SQL shape, slowest in total first
+     */
+    public List<StatementStats> getStatementStats() {
+        List<StatementStats> list = new ArrayList<>(stats.values());
+        list.sort(Comparator.comparingDouble(StatementStats::getTotalMillis).reversed());
+        return list;
+    }
+
+    public void reset() {
+        stats.clear();
+        lastExplained.clear();
+    }
+
+    /**
+     * The SQL with literals replaced by ?, IN lists folded and whitespace
+     * collapsed, so runs of the same statement share one entry
+     */
+    public static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return IN_LIST.matcher(shape).replaceAll("IN (...)");
+    }
+
+    private void record(Connection physical, String sql, String shape, List<Object> params,
+                        long rows, long nanos, String error) {
+        StatementStats entry = stats.get(shape);
+        if (entry == null) {
+            entry = stats.computeIfAbsent(stats.size() < MAX_SHAPES ? shape : OTHER_SHAPES, StatementStats::new);
+        }
+        entry.add(params.size(), rows, nanos);
+
+        if (slowLog != null && nanos >= slowThresholdNanos) {
+            QueryPlan plan = error == null ? explainOnce(physical, sql, shape, params) : null;
+            slowLog.log(sql, params.size(), rows, nanos / 1_000_000, error, plan);
+        }
+    }
+
+    /**
+     * The plan of a slow statement, unless its shape was explained recently
+     */
+    private QueryPlan explainOnce(Connection physical, String sql, String shape, List<Object> params) {
+        if (!QueryPlan.canExplain(sql)) {
+            return null;
+        }
+        for (Object param : params) {
+            if (param instanceof InputStream || param instanceof Reader) {
+                // Cannot be bound a second time
+                return null;
+            }
+        }
+        long now = System.nanoTime();
+        Long last = lastExplained.get(shape);
+        if (last != null && now - last < EXPLAIN_INTERVAL_NANOS) {
+            return null;
+        }
+        lastExplained.put(shape, now);
+        try {
+            // On the physical connection, so the EXPLAIN itself is not profiled
+            return QueryPlan.explain(physical, sql, params);
+        } catch (SQLException e) {
+            System.err.println("Error explaining slow query: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Hands out profiled statements
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+
+        ConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement":
+                    return wrapStatement(PreparedStatement.class,
+                            (Statement) QueryProfiler.invoke(physical, method, args), (String) args[0]);
+                case "prepareCall":
+                    return wrapStatement(CallableStatement.class,
+                            (Statement) QueryProfiler.invoke(physical, method, args), (String) args[0]);
+                case "createStatement":
+                    return wrapStatement(Statement.class,
+                            (Statement) QueryProfiler.invoke(physical, method, args), null);
+                default:
+                    return QueryProfiler.invoke(physical, method, args);
+            }
+        }
+
+        private Object wrapStatement(Class<? extends Statement> type, Statement statement, String sql) {
+            return Proxy.newProxyInstance(
+                    Statement.class.getClassLoader(),
+                    new Class<?>[]{type},
+                    new StatementHandler(physical, statement, sql));
+        }
+    }
+
+    /**
+     * Times executions and tracks bound parameters. A query is recorded
+     * once its rows have been read, or when the next execution or close()
+     * shows they never will be.
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Connection physical;
+        private final Statement statement;
+        // SQL and shape of a prepared statement; null for a plain Statement
+        private final String preparedSql;
+        private final String preparedShape;
+        private final Map<Integer, Object> params = new TreeMap<>();
+        private final List<String> batch = new ArrayList<>();
+        private Execution open;
+
+        StatementHandler(Connection physical, Statement statement, String preparedSql) {
+            this.physical = physical;
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.preparedShape = preparedSql != null ? shapeOf(preparedSql) : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "executeQuery":
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    return execute(method, args);
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return executeBatch(method, args);
+                case "getResultSet":
+                    return wrapResult((ResultSet) QueryProfiler.invoke(statement, method, args));
+                case "addBatch":
+                    if (args != null && args.length == 1) {
+                        batch.add((String) args[0]);
+                    }
+                    break;
+                case "clearBatch":
+                    batch.clear();
+                    break;
+                case "clearParameters":
+                    params.clear();
+                    break;
+                case "close":
+                    finishOpen();
+                    break;
+                default:
+                    if (preparedSql != null && name.startsWith("set") && args != null && args.length >= 2 &&
+                            method.getParameterTypes()[0] == int.class) {
+                        params.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                    }
+            }
+            return QueryProfiler.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishOpen();
+            boolean prepared = args == null || args.length == 0;
+            String sql = prepared ? preparedSql : (String) args[0];
+            Execution execution = new Execution(sql, prepared ? preparedShape : shapeOf(sql),
+                    new ArrayList<>(params.values()));
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryProfiler.invoke(statement, method, args);
+            } catch (Throwable e) {
+                execution.nanos = System.nanoTime() - start;
+                execution.finish(-1, e.getMessage());
+                throw e;
+            }
+            execution.nanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet) {
+                open = execution;
+                return wrapResult((ResultSet) result);
+            }
+            if (Boolean.TRUE.equals(result)) {
+                // Rows follow through getResultSet()
+                open = execution;
+            } else if (result instanceof Boolean) {
+                execution.finish(statement.getUpdateCount(), null);
+            } else {
+                execution.finish(((Number) result).longValue(), null);
+            }
+            return result;
+        }
+
+        private Object executeBatch(Method method, Object[] args) throws Throwable {
+            finishOpen();
+            String sql = preparedSql != null ? preparedSql : batch.isEmpty() ? "(empty batch)" : batch.get(0);
+            String shape = (preparedSql != null ? preparedShape : shapeOf(sql)) + " (batch)";
+            Execution execution = new Execution(sql, shape, new ArrayList<>(params.values()));
+            batch.clear();
+            long start = System.nanoTime();
+            try {
+                Object counts = QueryProfiler.invoke(statement, method, args);
+                execution.nanos = System.nanoTime() - start;
+                long rows = 0;
+                if (counts instanceof int[]) {
+                    for (int count : (int[]) counts) {
+                        rows += Math.max(0, count);
+                    }
+                } else {
+                    for (long count : (long[]) counts) {
+                        rows += Math.max(0, count);
+                    }
+                }
+                execution.finish(rows, null);
+                return counts;
+            } catch (Throwable e) {
+                execution.nanos = System.nanoTime() - start;
+                execution.finish(-1, e.getMessage());
+                throw e;
+            }
+        }
+
+        private ResultSet wrapResult(ResultSet rs) {
+            if (rs == null || open == null) {
+                return rs;
+            }
+            return (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    new ResultHandler(rs, open));
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish(open.rows, null);
+                open = null;
+            }
+        }
+
+        /**
+         * One run of the statement, recorded once
+         */
+        private final class Execution {
+            final String sql;
+            final String shape;
+            final List<Object> params;
+            long nanos;
+            long rows;
+            boolean recorded;
+
+            Execution(String sql, String shape, List<Object> params) {
+                this.sql = sql;
+                this.shape = shape;
+                this.params = params;
+                DaoCallEvent.statementRun(sql);
+            }
+
+            void finish(long rowCount, String error) {
+                if (recorded) {
+                    return;
+                }
+                recorded = true;
+                if (open == this) {
+                    open = null;
+                }
+                record(physical, sql, shape, params, rowCount, nanos, error);
+            }
+        }
+
+        /**
+         * Counts rows and the time spent fetching them
+         */
+        private final class ResultHandler implements InvocationHandler {
+            private final ResultSet rs;
+            private final Execution execution;
+
+            ResultHandler(ResultSet rs, Execution execution) {
+                this.rs = rs;
+                this.execution = execution;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "next":
+                        long start = System.nanoTime();
+                        boolean more = (Boolean) QueryProfiler.invoke(rs, method, args);
+                        execution.nanos += System.nanoTime() - start;
+                        if (more) {
+                            execution.rows++;
+                        } else {
+                            execution.finish(execution.rows, null);
+                        }
+                        return more;
+                    case "close":
+                        // Close first: a streaming result must be gone before EXPLAIN can run
+                        Object result = QueryProfiler.invoke(rs, method, args);
+                        execution.finish(execution.rows, null);
+                        return result;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return QueryProfiler.invoke(rs, method, args);
+                }
+            }
+        }
+    }
+}
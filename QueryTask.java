@@ -0,0 +1,502 @@
+package advancejavaproject4;
+
+import advancejavaproject4.database.ColumnarResult;
+import advancejavaproject4.database.DatabaseConnection;
+import advancejavaproject4.database.JdbcStream;
+import advancejavaproject4.database.SqlScript;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs hand-written SQL on a background thread: one statement, or a
+ * script of several in one transaction. Each result is read into a
+ * ColumnarResult, which is handed to the FX thread as soon as it opens;
+ * the FX thread is then told as rows arrive, so the first rows show up
+ * while the rest are still being read. Reading stops after maxRows rows.
+ * In a script, consecutive INSERT, UPDATE, DELETE and REPLACE statements
+ * are sent as one JDBC batch, and the script is rolled back if a
+ * statement fails or the task is cancelled. Schema changes such as
+ * CREATE or DROP are the exception: MySQL commits them, and everything
+ * before them, as they run. A cancel can also come too late to stop the
+ * commit, so the listener is told how the transaction actually ended.
+ * Cancelling the task cancels the statement on the server, so a long
+ * query stops promptly instead of running to completion.
+ * Each run is written to Flight Recorder as a QueryExecutionEvent.
+ * The task's value is the outcome of each statement that ran.
+ * @author yigitt
+ */
+public class QueryTask extends Task<List<QueryTask.StatementResult>> {
+
+    /**
+     * Follows the statements as they run; called on the FX thread
+     */
+    public interface ResultListener {
+        /**
+         * A statement returned a result; its rows follow
+         */
+        void opened(int statement, ColumnarResult result);
+
+        /**
+         * The last opened result now holds rowCount rows
+         */
+        void rowsAdded(int rowCount);
+
+        /**
+         * A statement has finished
+         */
+        void finished(StatementResult result);
+
+        /**
+         * A script's transaction has been committed or rolled back, see
+         * isCommitted(). Called for scripts only, also when the task was
+         * cancelled, after it has stopped touching the database.
+         */
+        void transactionEnded();
+    }
+
+    /**
+     * Outcome of one statement
+     */
+    public static final class StatementResult {
+        private final int index;
+        private final String sql;
+        private final boolean returnedRows;
+        private final long count;
+        private final boolean truncated;
+        private final long firstRowMillis;
+        private final long elapsedMillis;
+        private final int batchSize;
+
+        StatementResult(int index, String sql, boolean returnedRows, long count, boolean truncated,
+                        long firstRowMillis, long elapsedMillis, int batchSize) {
+            this.index = index;
+            this.sql = sql;
+            this.returnedRows = returnedRows;
+            this.count = count;
+            this.truncated = truncated;
+            this.firstRowMillis = firstRowMillis;
+            this.elapsedMillis = elapsedMillis;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Position of the statement in the script, from 0
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * False for statements such as INSERT or UPDATE
+         */
+        public boolean returnedRows() {
+            return returnedRows;
+        }
+
+        /**
+         * Rows read, or rows affected when there was no result
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * True if the result had more than maxRows rows
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * Milliseconds until the first row was read, or -1 if there was none
+         */
+        public long getFirstRowMillis() {
+            return firstRowMillis;
+        }
+
+        /**
+         * Time the statement took; for a batched statement, the whole batch
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Statements in the batch this one was sent in, or 1 if it was sent alone
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+    }
+
+    // Rows read before the FX thread is told about them
+    private static final int CHUNK_SIZE = 500;
+    // Slow queries hand over what they have at least this often
+    private static final long PUBLISH_INTERVAL_NANOS = 100_000_000L;
+
+    private final List<String> statements;
+    private final int timeoutSeconds;
+    private final int maxRows;
+    private final ResultListener listener;
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile ColumnarResult result;
+
+    private volatile Statement statement;
+    // Statement being run, for naming the one that failed
+    private int current;
+    private volatile boolean changedData;
+    private volatile boolean committed;
+    private volatile boolean transactionEnded;
+    // Statements committed before the script ended, by schema changes
+    private volatile int implicitlyCommitted;
+    private volatile long elapsedMillis;
+    // nanoTime of the first row read by the run, or 0
+    private long firstRowAt;
+
+    /**
+     * @param statements     statements to run; more than one run as a script in one transaction
+     * @param timeoutSeconds seconds each statement may run, or 0 for no limit
+     * @param maxRows        rows read at most from each result
+     */
+    public QueryTask(List<String> statements, int timeoutSeconds, int maxRows, ResultListener listener) {
+        this.statements = new ArrayList<>(statements);
+        this.timeoutSeconds = timeoutSeconds;
+        this.maxRows = maxRows;
+        this.listener = listener;
+    }
+
+    @Override
+    protected List<StatementResult> call() throws Exception {
+        long started = System.nanoTime();
+        List<StatementResult> results = new ArrayList<>();
+        boolean script = statements.size() > 1;
+        updateMessage(script ? "Running script..." : "Running query...");
+
+        QueryExecutionEvent event = new QueryExecutionEvent();
+        event.begin();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement = stmt;
+            // cancel() may have run before the statement was visible to it
+            if (isCancelled()) {
+                return results;
+            }
+            stmt.setQueryTimeout(timeoutSeconds);
+            // One row past the cap tells whether the result was cut short
+            stmt.setMaxRows(maxRows + 1);
+            stmt.setFetchSize(JdbcStream.streamingFetchSize(conn));
+
+            if (script) {
+                conn.setAutoCommit(false);
+            }
+            try {
+                int next = 0;
+                while (next < statements.size() && !isCancelled()) {
+                    int end = next;
+                    while (script && end < statements.size() && SqlScript.isBatchable(statements.get(end))) {
+                        end++;
+                    }
+                    if (script) {
+                        updateMessage("Running statement " + (next + 1) + " of " + statements.size() + "...");
+                    }
+                    if (end - next > 1) {
+                        runBatch(stmt, next, end, results);
+                        next = end;
+                    } else {
+                        runStatement(stmt, next, results);
+                        next++;
+                    }
+                }
+                if (script) {
+                    if (isCancelled()) {
+                        conn.rollback();
+                    } else {
+                        conn.commit();
+                        committed = true;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (script) {
+                    conn.rollback();
+                }
+                throw e;
+            } finally {
+                if (script) {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            if (isCancelled()) {
+                // The cancelled statement fails; that is expected
+                return results;
+            }
+            event.failed = true;
+            event.errorCode = e.getErrorCode();
+            if (script) {
+                throw new SQLException("Statement " + (current + 1) + " failed, script " + describeRollback() + ": " +
+                        e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+            }
+            throw e;
+        } finally {
+            statement = null;
+            elapsedMillis = millisSince(started);
+            commit(event, results, started);
+            if (script) {
+                transactionEnded = true;
+                Platform.runLater(listener::transactionEnded);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * "rolled back", or which statements schema changes had already
+     * committed
+     */
+    public String describeRollback() {
+        int kept = implicitlyCommitted;
+        if (kept == 0) {
+            return "rolled back";
+        }
+        return "rolled back after statement " + kept +
+                "; schema changes had committed the statements up to there";
+    }
+
+    /**
+     * Writes the run to a Flight Recorder recording, if one is on
+     */
+    private void commit(QueryExecutionEvent event, List<StatementResult> results, long started) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.sql = statements.isEmpty() ? null : statements.get(0);
+        event.statements = statements.size();
+        event.script = statements.size() > 1;
+        event.cancelled = isCancelled();
+        if (firstRowAt != 0) {
+            event.firstRowTime = (firstRowAt - started) / 1_000_000;
+        }
+        for (StatementResult result : results) {
+            if (result.returnedRows()) {
+                event.rows += result.getCount();
+                event.truncated |= result.isTruncated();
+            }
+        }
+        event.commit();
+    }
+
+    /**
+     * Sends statements from..to-1, all updates, in one batch
+     */
+    private void runBatch(Statement stmt, int from, int to, List<StatementResult> results) throws SQLException {
+        long started = System.nanoTime();
+        current = from;
+        changedData = true;
+        for (int i = from; i < to; i++) {
+            stmt.addBatch(statements.get(i));
+        }
+        int[] counts;
+        try {
+            counts = stmt.executeBatch();
+        } catch (BatchUpdateException e) {
+            current = from + firstFailure(e.getUpdateCounts());
+            throw e;
+        } finally {
+            stmt.clearBatch();
+        }
+        long elapsed = millisSince(started);
+        for (int i = from; i < to; i++) {
+            finished(results, new StatementResult(i, statements.get(i), false, counts[i - from], false,
+                    -1, elapsed, to - from));
+        }
+    }
+
+    /**
+     * Position in the batch of the statement that failed. Drivers either
+     * stop at it or mark it EXECUTE_FAILED.
+     */
+    private static int firstFailure(int[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == Statement.EXECUTE_FAILED) {
+                return i;
+            }
+        }
+        return counts.length;
+    }
+
+    private void runStatement(Statement stmt, int index, List<StatementResult> results) throws SQLException {
+        long started = System.nanoTime();
+        String sql = statements.get(index);
+        current = index;
+        if (!isReadOnly(sql)) {
+            changedData = true;
+        }
+        boolean commitsImplicitly = statements.size() > 1 && SqlScript.commitsImplicitly(sql);
+        if (commitsImplicitly) {
+            // MySQL commits what came before even if the statement then fails
+            implicitlyCommitted = index;
+        }
+        boolean returnedRows = stmt.execute(sql);
+        if (commitsImplicitly) {
+            implicitlyCommitted = index + 1;
+        }
+        if (!returnedRows) {
+            finished(results, new StatementResult(index, sql, false, stmt.getUpdateCount(), false,
+                    -1, millisSince(started), 1));
+            return;
+        }
+        try (ResultSet rs = stmt.getResultSet()) {
+            readRows(rs, index, started, results);
+        }
+    }
+
+    private static boolean isReadOnly(String sql) {
+        switch (SqlScript.firstKeyword(sql)) {
+            case "SELECT":
+            case "SHOW":
+            case "EXPLAIN":
+            case "DESCRIBE":
+            case "DESC":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void readRows(ResultSet rs, int index, long started, List<StatementResult> results)
+            throws SQLException {
+        ColumnarResult columns = ColumnarResult.forResultSet(rs);
+        result = columns;
+        Platform.runLater(() -> listener.opened(index, columns));
+
+        int rows = 0;
+        long firstRowMillis = -1;
+        boolean truncated = false;
+        long lastPublish = System.nanoTime();
+        while (!isCancelled() && rs.next()) {
+            if (rows == maxRows) {
+                truncated = true;
+                break;
+            }
+            if (rows == 0) {
+                firstRowMillis = millisSince(started);
+                if (firstRowAt == 0) {
+                    firstRowAt = System.nanoTime();
+                }
+            }
+            columns.appendRow(rs);
+            rows++;
+
+            long now = System.nanoTime();
+            if (rows % CHUNK_SIZE == 0 || now - lastPublish >= PUBLISH_INTERVAL_NANOS) {
+                publish();
+                lastPublish = now;
+                updateMessage("Reading rows: " + rows);
+            }
+        }
+        if (isCancelled()) {
+            // Closing a streaming result reads what is left; stop the server first
+            statement.cancel();
+        }
+        columns.finish();
+        publish();
+        finished(results, new StatementResult(index, statements.get(index), true, rows, truncated,
+                firstRowMillis, millisSince(started), 1));
+    }
+
+    private void finished(List<StatementResult> results, StatementResult statementResult) {
+        results.add(statementResult);
+        Platform.runLater(() -> listener.finished(statementResult));
+    }
+
+    /**
+     * Tells the FX thread about the new rows, unless it has yet to hear
+     * about the previous ones
+     */
+    private void publish() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * Runs on the FX thread
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        if (!isCancelled()) {
+            listener.rowsAdded(result.getRowCount());
+        }
+    }
+
+    /**
+     * Cancels the task and the statement it is running. The statement is
+     * cancelled on another thread because the driver may need a round
+     * trip to the server for it.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Statement stmt = statement;
+        if (cancelled && stmt != null) {
+            Thread thread = new Thread(() -> {
+                try {
+                    stmt.cancel();
+                } catch (SQLException e) {
+                    System.err.println("Error cancelling query: " + e.getMessage());
+                }
+            }, "query-cancel");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return cancelled;
+    }
+
+    private static long millisSince(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    /**
+     * True once a statement that may change data has been sent, even if
+     * it failed or was rolled back
+     */
+    public boolean mayHaveChangedData() {
+        return changedData;
+    }
+
+    /**
+     * True once a script's transaction has been committed. It can be true
+     * for a cancelled task, when the cancel came after the last statement.
+     */
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * True once a script's transaction is over, committed or rolled back
+     */
+    public boolean hasTransactionEnded() {
+        return transactionEnded;
+    }
+
+    /**
+     * Time the whole task took
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
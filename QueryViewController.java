@@ -1,129 +1,456 @@
 package advancejavaproject4;
 
+import advancejavaproject4.database.ColumnarResult;
+import advancejavaproject4.database.CourseDAO;
 import advancejavaproject4.database.DatabaseConnection;
+import advancejavaproject4.database.NameDictionary;
+import advancejavaproject4.database.QueryPlan;
+import advancejavaproject4.database.SqlScript;
+import advancejavaproject4.database.StudentDAO;
 import advancejavaproject4.util.AlertHelper;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
-import java.sql.*;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * Controller for custom SQL query window
+ * Controller for custom SQL query window.
+ * Statements run in the background so a slow or huge query never
+ * freezes the window; the running one can be cancelled, is stopped by
+ * the server after the timeout and reads at most the max rows setting.
+ * In script mode every statement of the text runs in one transaction,
+ * after a warning if some of them change the schema, which MySQL cannot
+ * roll back. Each result gets its own tab and a Statements tab lists the
+ * outcome and timing of each statement. Explain shows the database's plan for
+ * a statement as a tree without running it.
+ * Results are held column by column in a ColumnarResult; the table's
+ * items are row numbers into it and sorting reorders only those.
  * @author yigitt
  */
 public class QueryViewController {
 
+    // Defaults for the timeout and max rows spinners
+    private static final int DEFAULT_TIMEOUT_SECONDS = Integer.getInteger("unitrack.query.timeoutSeconds", 30);
+    private static final int DEFAULT_MAX_ROWS = Integer.getInteger("unitrack.query.maxRows", 10_000);
+
     @FXML private TextArea queryTextArea;
     @FXML private Label resultLabel;
-    @FXML private TableView<ObservableList<String>> resultTableView;
+    @FXML private TabPane resultTabs;
+    @FXML private Button executeButton;
+    @FXML private Button explainButton;
+    @FXML private Button cancelButton;
+    @FXML private CheckBox scriptCheckBox;
+    @FXML private Spinner<Integer> timeoutSpinner;
+    @FXML private Spinner<Integer> maxRowsSpinner;
+    @FXML private ProgressIndicator queryProgress;
+
+    private QueryTask currentQuery;
+    // Tables of the current run, and the rows of the one being filled
+    private final List<TableView<Integer>> resultTables = new ArrayList<>();
+    private ResultRows openRows;
+
+    @FXML
+    public void initialize() {
+        // 0 means no timeout
+        timeoutSpinner.setValueFactory(
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(0, 3600, DEFAULT_TIMEOUT_SECONDS, 5));
+        maxRowsSpinner.setValueFactory(
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 1_000_000, DEFAULT_MAX_ROWS, 1000));
+    }
 
     @FXML
     private void handleExecute() {
-        String query = queryTextArea.getText().trim();
+        if (currentQuery != null) {
+            return;
+        }
+        List<String> statements = SqlScript.split(queryTextArea.getText());
 
-        if (query.isEmpty()) {
+        if (statements.isEmpty()) {
             AlertHelper.showWarning("Empty Query", "Please enter a SQL query.");
             return;
         }
+        boolean script = statements.size() > 1;
+        if (script && !scriptCheckBox.isSelected()) {
+            AlertHelper.showWarning("Several Statements", "The query holds " + statements.size() +
+                    " statements.\nTick \"Run as script\" to run them all in one transaction.");
+            return;
+        }
+        if (script && !confirmSchemaChanges(statements)) {
+            return;
+        }
 
-        try {
-            // Determine query type: SELECT or DML (INSERT/UPDATE/DELETE)
-            if (query.toUpperCase().startsWith("SELECT")) {
-                executeSelectQuery(query);
+        resultTabs.getTabs().clear();
+        resultTables.clear();
+        openRows = null;
+        ObservableList<QueryTask.StatementResult> outcomes = FXCollections.observableArrayList();
+        if (script) {
+            resultTabs.getTabs().add(new Tab("Statements", createSummaryTable(outcomes)));
+        }
+
+        QueryTask task = new QueryTask(statements, spinnerValue(timeoutSpinner), spinnerValue(maxRowsSpinner),
+                new QueryTask.ResultListener() {
+                    @Override
+                    public void opened(int statement, ColumnarResult result) {
+                        showResult(script ? "Result " + (statement + 1) : "Result", result);
+                    }
+
+                    @Override
+                    public void rowsAdded(int rowCount) {
+                        openRows.showRows(rowCount);
+                    }
+
+                    @Override
+                    public void finished(QueryTask.StatementResult result) {
+                        outcomes.add(result);
+                    }
+
+                    @Override
+                    public void transactionEnded() {
+                        showCancelledScript(currentQuery);
+                    }
+                });
+        currentQuery = task;
+
+        resultLabel.setStyle("");
+        resultLabel.textProperty().bind(task.messageProperty());
+        queryProgress.setVisible(true);
+        executeButton.setDisable(true);
+        cancelButton.setDisable(false);
+        // Stop the query if the window is closed while it runs
+        ((Stage) queryTextArea.getScene().getWindow()).setOnHidden(event -> cancelQuery());
+
+        task.setOnSucceeded(event -> {
+            finishQuery(task);
+            for (TableView<Integer> table : resultTables) {
+                if (!table.getSortOrder().isEmpty()) {
+                    // Rows that arrived after sorting were added at the end
+                    table.sort();
+                }
+            }
+            if (script) {
+                showScriptSuccess(task);
             } else {
-                executeUpdateQuery(query);
+                showSuccess(task.getValue().get(0), task.getElapsedMillis());
             }
-        } catch (SQLException e) {
-            AlertHelper.showError("SQL Error", "Query execution failed:\n" + e.getMessage());
-        }
+        });
+        task.setOnFailed(event -> {
+            finishQuery(task);
+            resultLabel.setText("Query failed: " + task.getException().getMessage());
+            resultLabel.setStyle("-fx-text-fill: red;");
+            AlertHelper.showError("SQL Error", "Query execution failed:\n" + task.getException().getMessage());
+        });
+        task.setOnCancelled(event -> {
+            if (script) {
+                // The script may still commit or roll back; wait for it to say which
+                resultLabel.textProperty().unbind();
+                resultLabel.setText("Cancelling script...");
+                cancelButton.setDisable(true);
+                showCancelledScript(task);
+                return;
+            }
+            finishQuery(task);
+            resultLabel.setText("Query cancelled after " + (openRows != null ? openRows.size() : 0) + " rows");
+            resultLabel.setStyle("-fx-text-fill: red;");
+        });
+
+        Thread thread = new Thread(task, "sql-query");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
-     * Executes SELECT queries and displays results in TableView
+     * Handles Explain button - shows the plan of the selected statement,
+     * or of the whole text if nothing is selected
      */
-    private void executeSelectQuery(String query) throws SQLException {
-        resultTableView.getColumns().clear();
-        resultTableView.getItems().clear();
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-
-            // Build columns dynamically from ResultSet metadata
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            // Create columns
-            for (int i = 1; i <= columnCount; i++) {
-                final int columnIndex = i - 1;
-                String columnName = metaData.getColumnName(i);
-
-                TableColumn<ObservableList<String>, String> column =
-                        new TableColumn<>(columnName);
-
-                column.setCellValueFactory(param -> {
-                    ObservableList<String> row = param.getValue();
-                    if (row != null && row.size() > columnIndex) {
-                        return new SimpleStringProperty(row.get(columnIndex));
-                    }
-                    return new SimpleStringProperty("");
-                });
+    @FXML
+    private void handleExplain() {
+        String text = queryTextArea.getSelectedText().trim().isEmpty()
+                ? queryTextArea.getText() : queryTextArea.getSelectedText();
+        List<String> statements = SqlScript.split(text);
 
-                resultTableView.getColumns().add(column);
+        if (statements.size() != 1) {
+            AlertHelper.showWarning("Explain", statements.isEmpty()
+                    ? "Please enter a SQL query."
+                    : "Select the one statement to explain.");
+            return;
+        }
+        String sql = statements.get(0);
+        if (!QueryPlan.canExplain(sql)) {
+            AlertHelper.showWarning("Explain", "Only SELECT, INSERT, UPDATE, DELETE and REPLACE statements can be explained.");
+            return;
+        }
+
+        Task<QueryPlan> task = new Task<QueryPlan>() {
+            @Override
+            protected QueryPlan call() throws Exception {
+                try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+                    return QueryPlan.explain(conn, sql, Collections.emptyList());
+                }
             }
+        };
+        explainButton.setDisable(true);
+        task.setOnSucceeded(event -> {
+            explainButton.setDisable(false);
+            showPlan(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            explainButton.setDisable(false);
+            AlertHelper.showError("SQL Error", "Explain failed:\n" + task.getException().getMessage());
+        });
 
-            // Populate data
-            ObservableList<ObservableList<String>> data = FXCollections.observableArrayList();
+        Thread thread = new Thread(task, "sql-explain");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-            while (rs.next()) {
-                ObservableList<String> row = FXCollections.observableArrayList();
-                for (int i = 1; i <= columnCount; i++) {
-                    String value = rs.getString(i);
-                    row.add(value != null ? value : "NULL");
-                }
-                data.add(row);
+    /**
+     * Shows a plan in its own tab, replacing the previous one
+     */
+    private void showPlan(QueryPlan plan) {
+        TreeItem<String> root = toTreeItem(plan.getRoot());
+        root.setValue(plan.getSql().replaceAll("\\s+", " "));
+        TreeView<String> tree = new TreeView<>(root);
+
+        resultTabs.getTabs().removeIf(tab -> "Plan".equals(tab.getText()));
+        Tab tab = new Tab("Plan", tree);
+        resultTabs.getTabs().add(tab);
+        resultTabs.getSelectionModel().select(tab);
+    }
+
+    private static TreeItem<String> toTreeItem(QueryPlan.Node node) {
+        TreeItem<String> item = new TreeItem<>(node.getText());
+        item.setExpanded(true);
+        for (QueryPlan.Node child : node.getChildren()) {
+            item.getChildren().add(toTreeItem(child));
+        }
+        return item;
+    }
+
+    /**
+     * Adds a tab for a result once the query knows its columns
+     */
+    private void showResult(String title, ColumnarResult result) {
+        ResultRows rows = new ResultRows(result);
+        TableView<Integer> table = new TableView<>(rows);
+        table.setPlaceholder(new Label("No rows returned"));
+        for (int i = 0; i < result.getColumnCount(); i++) {
+            final int columnIndex = i;
+            TableColumn<Integer, String> column = new TableColumn<>(result.getColumnName(i));
+            column.setUserData(columnIndex);
+            column.setCellValueFactory(param -> new SimpleStringProperty(
+                    param.getValue() != null ? result.getText(param.getValue(), columnIndex) : ""));
+            table.getColumns().add(column);
+        }
+        table.setSortPolicy(view -> {
+            sortResult(view, rows);
+            return true;
+        });
+
+        openRows = rows;
+        resultTables.add(table);
+        Tab tab = new Tab(title, table);
+        resultTabs.getTabs().add(tab);
+        if (resultTables.size() == 1) {
+            resultTabs.getSelectionModel().select(tab);
+        }
+    }
+
+    /**
+     * Sorts a result by its table's sort order, comparing the stored
+     * values by type rather than as text
+     */
+    private static void sortResult(TableView<Integer> table, ResultRows rows) {
+        int count = table.getSortOrder().size();
+        int[] columns = new int[count];
+        boolean[] ascending = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            TableColumn<Integer, ?> column = table.getSortOrder().get(i);
+            columns[i] = (Integer) column.getUserData();
+            ascending[i] = column.getSortType() == TableColumn.SortType.ASCENDING;
+        }
+        rows.sort(columns, ascending);
+    }
+
+    /**
+     * Lists each statement of a script with its outcome and timing
+     */
+    private static TableView<QueryTask.StatementResult> createSummaryTable(
+            ObservableList<QueryTask.StatementResult> outcomes) {
+        TableView<QueryTask.StatementResult> table = new TableView<>(outcomes);
+
+        TableColumn<QueryTask.StatementResult, String> number = new TableColumn<>("#");
+        number.setCellValueFactory(param ->
+                new SimpleStringProperty(String.valueOf(param.getValue().getIndex() + 1)));
+
+        TableColumn<QueryTask.StatementResult, String> statement = new TableColumn<>("Statement");
+        statement.setPrefWidth(400);
+        statement.setCellValueFactory(param ->
+                new SimpleStringProperty(param.getValue().getSql().replaceAll("\\s+", " ")));
+
+        TableColumn<QueryTask.StatementResult, String> outcome = new TableColumn<>("Result");
+        outcome.setPrefWidth(160);
+        outcome.setCellValueFactory(param -> {
+            QueryTask.StatementResult result = param.getValue();
+            String text = result.returnedRows()
+                    ? result.getCount() + " rows" + (result.isTruncated() ? " (max rows reached)" : "")
+                    : result.getCount() + " affected";
+            return new SimpleStringProperty(text);
+        });
+
+        TableColumn<QueryTask.StatementResult, String> time = new TableColumn<>("Time (ms)");
+        time.setPrefWidth(140);
+        time.setCellValueFactory(param -> {
+            QueryTask.StatementResult result = param.getValue();
+            String text = String.valueOf(result.getElapsedMillis());
+            if (result.getBatchSize() > 1) {
+                text += " (batch of " + result.getBatchSize() + ")";
             }
+            return new SimpleStringProperty(text);
+        });
+
+        table.getColumns().add(number);
+        table.getColumns().add(statement);
+        table.getColumns().add(outcome);
+        table.getColumns().add(time);
+        return table;
+    }
 
-            resultTableView.setItems(data);
-            resultLabel.setText("Query executed successfully. Rows returned: " + data.size());
+    private void showSuccess(QueryTask.StatementResult result, long elapsedMillis) {
+        if (!result.returnedRows()) {
+            resultLabel.setText("Query executed successfully. Rows affected: " + result.getCount() +
+                    " (" + elapsedMillis + " ms)");
             resultLabel.setStyle("-fx-text-fill: green;");
+            AlertHelper.showInfo("Success", "Query executed. " + result.getCount() + " row(s) affected.");
+            return;
+        }
 
-        } catch (SQLException e) {
-            resultLabel.setText("Query failed: " + e.getMessage());
+        String text = "Query executed successfully. Rows returned: " + result.getCount();
+        if (result.isTruncated()) {
+            text += " (stopped at the max rows setting)";
+        }
+        if (result.getFirstRowMillis() >= 0) {
+            text += ". First row after " + result.getFirstRowMillis() + " ms";
+        }
+        text += ", total " + elapsedMillis + " ms";
+        resultLabel.setText(text);
+        resultLabel.setStyle(result.isTruncated() ? "-fx-text-fill: darkorange;" : "-fx-text-fill: green;");
+    }
+
+    private void showScriptSuccess(QueryTask task) {
+        long affected = 0;
+        int results = 0;
+        for (QueryTask.StatementResult result : task.getValue()) {
+            if (result.returnedRows()) {
+                results++;
+            } else {
+                affected += Math.max(0, result.getCount());
+            }
+        }
+        resultLabel.setText("Script committed: " + task.getValue().size() + " statements, " +
+                affected + " rows affected, " + results + " results, total " + task.getElapsedMillis() + " ms");
+        resultLabel.setStyle("-fx-text-fill: green;");
+    }
+
+    /**
+     * Reports a cancelled script once its transaction is over, with
+     * whether it was rolled back or the cancel came too late
+     */
+    private void showCancelledScript(QueryTask task) {
+        if (task == null || task != currentQuery || !task.isCancelled() || !task.hasTransactionEnded()) {
+            return;
+        }
+        finishQuery(task);
+        if (task.isCommitted()) {
+            resultLabel.setText("Script cancelled too late, it was already committed");
+            resultLabel.setStyle("-fx-text-fill: darkorange;");
+        } else {
+            resultLabel.setText("Script cancelled and " + task.describeRollback());
             resultLabel.setStyle("-fx-text-fill: red;");
-            throw e;
         }
     }
 
     /**
-     * Executes DML queries (INSERT, UPDATE, DELETE) and displays rows affected
+     * Asks before running a script with schema changes, which MySQL
+     * commits at once, so a failure or cancel cannot roll them back
      */
-    private void executeUpdateQuery(String query) throws SQLException {
-        resultTableView.getColumns().clear();
-        resultTableView.getItems().clear();
+    private static boolean confirmSchemaChanges(List<String> statements) {
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            if (SqlScript.commitsImplicitly(statements.get(i))) {
+                numbers.add(String.valueOf(i + 1));
+            }
+        }
+        if (numbers.isEmpty()) {
+            return true;
+        }
+        return AlertHelper.showConfirmation("Schema Changes",
+                (numbers.size() == 1 ? "Statement " + numbers.get(0) + " changes" :
+                        "Statements " + String.join(", ", numbers) + " change") +
+                " the schema. MySQL commits schema changes, " +
+                "and the statements before them, as they run, so they stay even if the script " +
+                "fails or is cancelled.\n\nRun the script anyway?");
+    }
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             Statement stmt = conn.createStatement()) {
+    /**
+     * Restores the controls after a query
+     */
+    private void finishQuery(QueryTask task) {
+        if (currentQuery != task) {
+            return;
+        }
+        currentQuery = null;
+        resultLabel.textProperty().unbind();
+        queryProgress.setVisible(false);
+        executeButton.setDisable(false);
+        cancelButton.setDisable(true);
 
-            int rowsAffected = stmt.executeUpdate(query);
+        if (task.mayHaveChangedData()) {
+            // Hand-written SQL may have changed any row behind the DAOs' back
+            StudentDAO.getCache().clear();
+            CourseDAO.getCache().clear();
+            NameDictionary.clearAll();
+        }
+    }
 
-            resultLabel.setText("Query executed successfully. Rows affected: " + rowsAffected);
-            resultLabel.setStyle("-fx-text-fill: green;");
+    /**
+     * Handles Cancel button - stops the running query on the server
+     */
+    @FXML
+    private void handleCancel() {
+        cancelQuery();
+    }
 
-            AlertHelper.showInfo("Success", "Query executed. " + rowsAffected + " row(s) affected.");
+    private void cancelQuery() {
+        if (currentQuery != null) {
+            currentQuery.cancel();
+        }
+    }
 
-        } catch (SQLException e) {
-            resultLabel.setText("Query failed: " + e.getMessage());
-            resultLabel.setStyle("-fx-text-fill: red;");
-            throw e;
+    /**
+     * Value of an editable spinner, including text typed but not yet
+     * committed with Enter
+     */
+    private static int spinnerValue(Spinner<Integer> spinner) {
+        SpinnerValueFactory<Integer> factory = spinner.getValueFactory();
+        try {
+            factory.setValue(factory.getConverter().fromString(spinner.getEditor().getText().trim()));
+        } catch (RuntimeException e) {
+            // Not a number; keep the last valid value
         }
+        spinner.getEditor().setText(factory.getConverter().toString(factory.getValue()));
+        return factory.getValue();
     }
 
     @FXML
     private void handleClose() {
+        cancelQuery();
         Stage stage = (Stage) queryTextArea.getScene().getWindow();
         stage.close();
     }
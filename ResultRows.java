@@ -0,0 +1,92 @@
+package advancejavaproject4;
+
+import advancejavaproject4.database.ColumnarResult;
+import javafx.collections.ObservableListBase;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * Items of the query result table: the row numbers of a ColumnarResult
+ * in display order, kept in an int[] so a large result needs no object
+ * per row. Cells read their values from the result by row number.
+ * Rows are shown as the query adds them, and sorting reorders the row
+ * numbers without copying any values.
+ * Must only be used on the JavaFX Application Thread.
+ * @author yigitt
+ */
+public class ResultRows extends ObservableListBase<Integer> {
+
+    private final ColumnarResult result;
+    private int[] order = new int[256];
+    private int size;
+
+    public ResultRows(ColumnarResult result) {
+        this.result = result;
+    }
+
+    public ColumnarResult getResult() {
+        return result;
+    }
+
+    @Override
+    public Integer get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return order[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Shows the rows the result has gained since the last call, at the end
+     */
+    public void showRows(int rowCount) {
+        if (rowCount <= size) {
+            return;
+        }
+        if (rowCount > order.length) {
+            order = Arrays.copyOf(order, Math.max(rowCount, order.length * 2));
+        }
+        int from = size;
+        for (int row = from; row < rowCount; row++) {
+            order[row] = row;
+        }
+        size = rowCount;
+        beginChange();
+        nextAdd(from, rowCount);
+        endChange();
+    }
+
+    /**
+     * Sorts the rows by the given result columns, or restores the query's
+     * own order when there are none
+     */
+    public void sort(int[] columns, boolean[] ascending) {
+        int[] before = Arrays.copyOf(order, size);
+        if (columns.length == 0) {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+        } else {
+            result.sortRows(order, size, columns, ascending);
+        }
+
+        beginChange();
+        nextReplace(0, size, new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return before[index];
+            }
+
+            @Override
+            public int size() {
+                return before.length;
+            }
+        });
+        endChange();
+    }
+}
@@ -0,0 +1,14 @@
+package advancejavaproject4.database;
+
+import java.sql.SQLException;
+
+/**
+ * Receives rows one at a time from a streaming DAO query.
+ * Returning false stops the query early.
+ * @author yigitt
+ */
+@FunctionalInterface
+public interface RowCallback<T> {
+
+    boolean onRow(T row) throws SQLException;
+}
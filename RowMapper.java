@@ -0,0 +1,29 @@
+package advancejavaproject4.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the current row of a ResultSet to a model object.
+ * Implementations resolve column positions once when they are created
+ * for a ResultSet and then read every row by index.
+ * @author yigitt
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T mapRow(ResultSet rs) throws SQLException;
+
+    /**
+     * Maps every remaining row of the ResultSet
+     */
+    static <T> List<T> mapAll(ResultSet rs, RowMapper<T> mapper) throws SQLException {
+        List<T> results = new ArrayList<>();
+        while (rs.next()) {
+            results.add(mapper.mapRow(rs));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,89 @@
+package advancejavaproject4.database;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Appends statements that ran longer than the profiler's threshold to
+ * rotating log files: once a file reaches the size limit the next one is
+ * started, and only the newest few are kept. Each entry holds the time,
+ * duration, rows, number of bound parameters, the SQL and, when it could
+ * be captured, the EXPLAIN plan.
+ * The files are only created once the first slow statement is logged.
+ * @author yigitt
+ */
+public final class SlowQueryLog {
+
+    private final String pattern;
+    private final int limitBytes;
+    private final int fileCount;
+    private Logger logger;
+    private boolean failed;
+
+    /**
+     * @param pattern    file name pattern; %g is replaced by the file's generation
+     * @param limitBytes size at which the log moves on to the next file
+     * @param fileCount  files kept
+     */
+    public SlowQueryLog(String pattern, int limitBytes, int fileCount) {
+        this.pattern = pattern;
+        this.limitBytes = limitBytes;
+        this.fileCount = fileCount;
+    }
+
+    /**
+     * @param rows  rows returned or affected, or -1 if unknown
+     * @param error message of the failure, or null if the statement succeeded
+     * @param plan  EXPLAIN plan, or null if none was captured
+     */
+    public synchronized void log(String sql, int bindCount, long rows, long millis, String error, QueryPlan plan) {
+        Logger out = logger();
+        if (out == null) {
+            return;
+        }
+        String newline = System.lineSeparator();
+        StringBuilder entry = new StringBuilder();
+        entry.append("# ").append(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+             .append("  ").append(millis).append(" ms, ");
+        if (rows >= 0) {
+            entry.append(rows).append(" rows, ");
+        }
+        entry.append(bindCount).append(" binds").append(newline)
+             .append(sql.trim()).append(newline);
+        if (error != null) {
+            entry.append("Failed: ").append(error).append(newline);
+        }
+        if (plan != null) {
+            entry.append("Plan:").append(newline).append(plan.toText());
+        }
+        out.info(entry.toString());
+    }
+
+    private Logger logger() {
+        if (logger == null && !failed) {
+            try {
+                FileHandler handler = new FileHandler(pattern, limitBytes, fileCount, true);
+                handler.setFormatter(new Formatter() {
+                    @Override
+                    public String format(LogRecord record) {
+                        return record.getMessage() + System.lineSeparator();
+                    }
+                });
+                Logger created = Logger.getAnonymousLogger();
+                created.setUseParentHandlers(false);
+                created.addHandler(handler);
+                logger = created;
+            } catch (IOException | RuntimeException e) {
+                // Keep running without the log rather than failing queries
+                failed = true;
+                System.err.println("Cannot open slow query log " + pattern + ": " + e.getMessage());
+            }
+        }
+        return logger;
+    }
+}
@@ -0,0 +1,180 @@
+package advancejavaproject4.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits SQL scripts into statements the way the mysql client does.
+ * A statement ends at the delimiter, a semicolon unless changed with a
+ * DELIMITER line, when it is outside quotes, backquoted names and
+ * comments. Comments stay with the statement that follows them, and
+ * statements with nothing but comments are dropped.
+ * @author yigitt
+ */
+public final class SqlScript {
+
+    private static final String DELIMITER_COMMAND = "DELIMITER";
+
+    private SqlScript() {
+    }
+
+    /**
+     * The statements of the script, without their delimiters
+     */
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        String delimiter = ";";
+        StringBuilder current = new StringBuilder();
+        // Whether the current statement has more than whitespace and comments
+        boolean started = false;
+        int length = script.length();
+        int i = 0;
+
+        while (i < length) {
+            if (!started && startsWithWord(script, i, DELIMITER_COMMAND)) {
+                int lineEnd = endOfLine(script, i);
+                String newDelimiter = script.substring(i + DELIMITER_COMMAND.length(), lineEnd).trim();
+                if (!newDelimiter.isEmpty()) {
+                    delimiter = newDelimiter;
+                }
+                current.setLength(0);
+                i = lineEnd;
+                continue;
+            }
+
+            char c = script.charAt(i);
+            int end;
+            if (script.startsWith(delimiter, i)) {
+                addStatement(statements, current);
+                started = false;
+                i += delimiter.length();
+                continue;
+            } else if (c == '#' || isDashComment(script, i)) {
+                end = endOfLine(script, i);
+            } else if (c == '/' && i + 1 < length && script.charAt(i + 1) == '*') {
+                int close = script.indexOf("*/", i + 2);
+                end = close < 0 ? length : close + 2;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                end = endOfQuoted(script, i, c);
+                started = true;
+            } else {
+                end = i + 1;
+                started |= !Character.isWhitespace(c);
+            }
+            current.append(script, i, end);
+            i = end;
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!firstKeyword(statement).isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * The first word of the statement in upper case, after any leading
+     * comments and parentheses, or "" if there is none
+     */
+    public static String firstKeyword(String statement) {
+        int length = statement.length();
+        int i = 0;
+        while (i < length) {
+            char c = statement.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (c == '#' || isDashComment(statement, i)) {
+                i = endOfLine(statement, i);
+            } else if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '*') {
+                int close = statement.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < length && Character.isLetter(statement.charAt(i))) {
+            i++;
+        }
+        return statement.substring(start, i).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * True for INSERT, UPDATE, DELETE and REPLACE, which return an update
+     * count and can be sent together in a JDBC batch
+     */
+    public static boolean isBatchable(String statement) {
+        switch (firstKeyword(statement)) {
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "REPLACE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * True for statements that change the schema. MySQL commits the open
+     * transaction before running them and cannot roll them back.
+     */
+    public static boolean commitsImplicitly(String statement) {
+        switch (firstKeyword(statement)) {
+            case "CREATE":
+            case "ALTER":
+            case "DROP":
+            case "TRUNCATE":
+            case "RENAME":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * "--" only starts a comment in MySQL when followed by whitespace
+     */
+    private static boolean isDashComment(String text, int i) {
+        return text.startsWith("--", i) && (i + 2 == text.length() || Character.isWhitespace(text.charAt(i + 2)));
+    }
+
+    private static boolean startsWithWord(String text, int i, String word) {
+        int end = i + word.length();
+        return text.regionMatches(true, i, word, 0, word.length()) &&
+                (end == text.length() || Character.isWhitespace(text.charAt(end)));
+    }
+
+    private static int endOfLine(String text, int i) {
+        int newline = text.indexOf('\n', i);
+        return newline < 0 ? text.length() : newline;
+    }
+
+    /**
+     * Index just past the closing quote. A backslash escapes the next
+     * character in strings, and a doubled quote stands for itself.
+     */
+    private static int endOfQuoted(String text, int start, char quote) {
+        int i = start + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < text.length() && text.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return text.length();
+    }
+}
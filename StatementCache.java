@@ -0,0 +1,235 @@
+package advancejavaproject4.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by
+ * SQL text. Closing a cached statement clears its parameters and keeps it
+ * open for the next caller, so server-side prepares are reused.
+ * A physical connection is only ever used by one borrower at a time,
+ * so the cache itself needs no locking.
+ * @author yigitt
+ */
+public final class StatementCache {
+
+    /**
+     * Hit/miss counters shared by every cache in a pool
+     */
+    public static class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        public double getHitRatio() {
+            long h = hits.sum();
+            long total = h + misses.sum();
+            return total == 0 ? 0.0 : (double) h / total;
+        }
+
+        @Override
+        public String toString() {
+            return "StatementCache{" +
+                    "hits=" + getHits() +
+                    ", misses=" + getMisses() +
+                    ", evictions=" + getEvictions() +
+                    ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                    '}';
+        }
+    }
+
+    private final Connection physical;
+    private final int capacity;
+    private final Stats stats;
+    private final LinkedHashMap<String, Entry> entries;
+
+    StatementCache(Connection physical, int capacity, Stats stats) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.stats = stats;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a prepared statement for the SQL, reusing a cached one when
+     * it is not already open elsewhere
+     */
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        Entry entry = entries.get(key);
+
+        if (entry != null && !entry.inUse) {
+            stats.hits.increment();
+            entry.inUse = true;
+            return entry.newHandle(owner);
+        }
+
+        stats.misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+
+        if (entry != null) {
+            // Same SQL is already open (e.g. nested use); hand out an uncached one
+            return statement;
+        }
+
+        entry = new Entry(key, statement);
+        entry.inUse = true;
+        entries.put(key, entry);
+        evictOverflow();
+        return entry.newHandle(owner);
+    }
+
+    /**
+     * Closes every cached statement; called when the physical connection goes away
+     */
+    void closeAll() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest.inUse) {
+                // Closed for real when the caller is done with it
+                eldest.evicted = true;
+            } else {
+                closeQuietly(eldest.statement);
+            }
+            it.remove();
+            stats.evictions.increment();
+        }
+    }
+
+    private void giveBack(Entry entry) {
+        entry.inUse = false;
+        if (entry.evicted || entry.dirty) {
+            if (entries.get(entry.key) == entry) {
+                entries.remove(entry.key);
+            }
+            closeQuietly(entry.statement);
+            return;
+        }
+        try {
+            entry.statement.clearParameters();
+            entry.statement.clearBatch();
+        } catch (SQLException e) {
+            entries.remove(entry.key);
+            closeQuietly(entry.statement);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Setters that change statement-wide state; a statement touched by one
+     * of these is not put back in the cache
+     */
+    private static final Set<String> STATE_CHANGING_METHODS = Set.of(
+            "setFetchSize", "setFetchDirection", "setMaxRows", "setLargeMaxRows",
+            "setMaxFieldSize", "setQueryTimeout", "setEscapeProcessing",
+            "setCursorName", "setPoolable", "closeOnCompletion");
+
+    private final class Entry {
+        final String key;
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+        boolean dirty;
+
+        Entry(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        PreparedStatement newHandle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(this, owner));
+        }
+    }
+
+    /**
+     * Borrowed view of a cached statement
+     */
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Handle(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.statement + "]";
+                default:
+                    break;
+            }
+
+            if (closed.get()) {
+                throw new SQLException("Statement is closed");
+            }
+            if (STATE_CHANGING_METHODS.contains(name)) {
+                entry.dirty = true;
+            }
+
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package advancejavaproject4.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonicalizes the values of a column that repeats a few distinct
+ * strings across many rows, such as a semester, grade or status. The
+ * driver returns a new String for every row; mapping it through the pool
+ * keeps one shared instance per value, so the per-row copies become
+ * garbage as soon as the row is mapped.
+ * The pool is bounded: once it holds maxSize values, new values are
+ * returned unpooled, so a column with more distinct values than expected
+ * costs no more than it did without the pool.
+ * Thread-safe.
+ * @author yigitt
+ */
+public final class StringPool {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxSize distinct values kept at most
+     */
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The pooled instance equal to value, or value itself when it is new
+     * and the pool is full
+     */
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = values.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (values.size() >= maxSize) {
+            return value;
+        }
+        pooled = values.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * Reads a string column and canonicalizes it
+     */
+    public String getString(ResultSet rs, int column) throws SQLException {
+        return canonical(rs.getString(column));
+    }
+
+    /**
+     * Distinct values held
+     */
+    public int size() {
+        return values.size();
+    }
+}
@@ -5,27 +5,29 @@ import java.time.LocalDate;
 
 
 public class Student {
-    private final IntegerProperty studentId;
-    private final StringProperty firstName;
-    private final StringProperty lastName;
-    private final StringProperty email;
-    private final StringProperty phone;
-    private final ObjectProperty<LocalDate> dateOfBirth;
-    private final ObjectProperty<LocalDate> enrollmentDate;
-    private final StringProperty status;
-    private final DoubleProperty gpa;
-
+    private int studentId;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phone;
+    private LocalDate dateOfBirth;
+    private LocalDate enrollmentDate;
+    private String status;
+    private double gpa;
+
+    // JavaFX properties, created only when a table cell or listener asks
+    // for one; until then the plain fields above hold the values
+    private IntegerProperty studentIdProperty;
+    private StringProperty firstNameProperty;
+    private StringProperty lastNameProperty;
+    private StringProperty emailProperty;
+    private StringProperty phoneProperty;
+    private ObjectProperty<LocalDate> dateOfBirthProperty;
+    private ObjectProperty<LocalDate> enrollmentDateProperty;
+    private StringProperty statusProperty;
+    private DoubleProperty gpaProperty;
 
     public Student() {
-        this.studentId = new SimpleIntegerProperty();
-        this.firstName = new SimpleStringProperty();
-        this.lastName = new SimpleStringProperty();
-        this.email = new SimpleStringProperty();
-        this.phone = new SimpleStringProperty();
-        this.dateOfBirth = new SimpleObjectProperty<>();
-        this.enrollmentDate = new SimpleObjectProperty<>();
-        this.status = new SimpleStringProperty();
-        this.gpa = new SimpleDoubleProperty();
     }
 
   
@@ -44,112 +46,184 @@ public class Student {
         setGpa(gpa);
     }
 
+    /**
+     * Copy constructor; the copy shares no properties with the original
+     */
+    public Student(Student other) {
+        this(other.getStudentId(), other.getFirstName(), other.getLastName(), other.getEmail(),
+                other.getPhone(), other.getDateOfBirth(), other.getEnrollmentDate(),
+                other.getStatus(), other.getGpa());
+    }
+
     public IntegerProperty studentIdProperty() {
-        return studentId;
+        if (studentIdProperty == null) {
+            studentIdProperty = new SimpleIntegerProperty(this, "studentId", studentId);
+        }
+        return studentIdProperty;
     }
 
     public int getStudentId() {
-        return studentId.get();
+        return studentIdProperty == null ? studentId : studentIdProperty.get();
     }
 
     public void setStudentId(int studentId) {
-        this.studentId.set(studentId);
+        if (studentIdProperty == null) {
+            this.studentId = studentId;
+        } else {
+            studentIdProperty.set(studentId);
+        }
     }
 
     public StringProperty firstNameProperty() {
-        return firstName;
+        if (firstNameProperty == null) {
+            firstNameProperty = new SimpleStringProperty(this, "firstName", firstName);
+        }
+        return firstNameProperty;
     }
 
     public String getFirstName() {
-        return firstName.get();
+        return firstNameProperty == null ? firstName : firstNameProperty.get();
     }
 
     public void setFirstName(String firstName) {
-        this.firstName.set(firstName);
+        if (firstNameProperty == null) {
+            this.firstName = firstName;
+        } else {
+            firstNameProperty.set(firstName);
+        }
     }
 
     public StringProperty lastNameProperty() {
-        return lastName;
+        if (lastNameProperty == null) {
+            lastNameProperty = new SimpleStringProperty(this, "lastName", lastName);
+        }
+        return lastNameProperty;
     }
 
     public String getLastName() {
-        return lastName.get();
+        return lastNameProperty == null ? lastName : lastNameProperty.get();
     }
 
     public void setLastName(String lastName) {
-        this.lastName.set(lastName);
+        if (lastNameProperty == null) {
+            this.lastName = lastName;
+        } else {
+            lastNameProperty.set(lastName);
+        }
     }
 
     public StringProperty emailProperty() {
-        return email;
+        if (emailProperty == null) {
+            emailProperty = new SimpleStringProperty(this, "email", email);
+        }
+        return emailProperty;
     }
 
     public String getEmail() {
-        return email.get();
+        return emailProperty == null ? email : emailProperty.get();
     }
 
     public void setEmail(String email) {
-        this.email.set(email);
+        if (emailProperty == null) {
+            this.email = email;
+        } else {
+            emailProperty.set(email);
+        }
     }
 
     public StringProperty phoneProperty() {
-        return phone;
+        if (phoneProperty == null) {
+            phoneProperty = new SimpleStringProperty(this, "phone", phone);
+        }
+        return phoneProperty;
     }
 
     public String getPhone() {
-        return phone.get();
+        return phoneProperty == null ? phone : phoneProperty.get();
     }
 
     public void setPhone(String phone) {
-        this.phone.set(phone);
+        if (phoneProperty == null) {
+            this.phone = phone;
+        } else {
+            phoneProperty.set(phone);
+        }
     }
 
     public ObjectProperty<LocalDate> dateOfBirthProperty() {
-        return dateOfBirth;
+        if (dateOfBirthProperty == null) {
+            dateOfBirthProperty = new SimpleObjectProperty<>(this, "dateOfBirth", dateOfBirth);
+        }
+        return dateOfBirthProperty;
     }
 
     public LocalDate getDateOfBirth() {
-        return dateOfBirth.get();
+        return dateOfBirthProperty == null ? dateOfBirth : dateOfBirthProperty.get();
     }
 
     public void setDateOfBirth(LocalDate dateOfBirth) {
-        this.dateOfBirth.set(dateOfBirth);
+        if (dateOfBirthProperty == null) {
+            this.dateOfBirth = dateOfBirth;
+        } else {
+            dateOfBirthProperty.set(dateOfBirth);
+        }
     }
 
     public ObjectProperty<LocalDate> enrollmentDateProperty() {
-        return enrollmentDate;
+        if (enrollmentDateProperty == null) {
+            enrollmentDateProperty = new SimpleObjectProperty<>(this, "enrollmentDate", enrollmentDate);
+        }
+        return enrollmentDateProperty;
     }
 
     public LocalDate getEnrollmentDate() {
-        return enrollmentDate.get();
+        return enrollmentDateProperty == null ? enrollmentDate : enrollmentDateProperty.get();
     }
 
     public void setEnrollmentDate(LocalDate enrollmentDate) {
-        this.enrollmentDate.set(enrollmentDate);
+        if (enrollmentDateProperty == null) {
+            this.enrollmentDate = enrollmentDate;
+        } else {
+            enrollmentDateProperty.set(enrollmentDate);
+        }
     }
 
     public StringProperty statusProperty() {
-        return status;
+        if (statusProperty == null) {
+            statusProperty = new SimpleStringProperty(this, "status", status);
+        }
+        return statusProperty;
     }
 
     public String getStatus() {
-        return status.get();
+        return statusProperty == null ? status : statusProperty.get();
     }
 
     public void setStatus(String status) {
-        this.status.set(status);
+        if (statusProperty == null) {
+            this.status = status;
+        } else {
+            statusProperty.set(status);
+        }
     }
 
     public DoubleProperty gpaProperty() {
-        return gpa;
+        if (gpaProperty == null) {
+            gpaProperty = new SimpleDoubleProperty(this, "gpa", gpa);
+        }
+        return gpaProperty;
     }
 
     public double getGpa() {
-        return gpa.get();
+        return gpaProperty == null ? gpa : gpaProperty.get();
     }
 
     public void setGpa(double gpa) {
-        this.gpa.set(gpa);
+        if (gpaProperty == null) {
+            this.gpa = gpa;
+        } else {
+            gpaProperty.set(gpa);
+        }
     }
 
     @Override
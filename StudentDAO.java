@@ -1,9 +1,17 @@
 package advancejavaproject4.database;
 
 import advancejavaproject4.model.Student;
+import advancejavaproject4.database.KeysetQuery.SortKey;
+import advancejavaproject4.database.KeysetQuery.ValueType;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Student entity
@@ -12,51 +20,94 @@ import java.util.List;
  */
 public class StudentDAO {
 
+    private static final String INSERT_SQL = "INSERT INTO students (first_name, last_name, email, phone, " +
+            "date_of_birth, enrollment_date, status, gpa) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL = "UPDATE students SET first_name = ?, last_name = ?, email = ?, " +
+            "phone = ?, date_of_birth = ?, enrollment_date = ?, status = ?, gpa = ? " +
+            "WHERE student_id = ?";
+
+    private static final String DUPLICATE_EMAIL_MESSAGE = "Duplicate email address. Email must be unique.";
+
+    // Largest IN list used by the id lookups
+    private static final int LOOKUP_SLICE_SIZE = 500;
+
+    // Students by id, shared by every StudentDAO
+    private static final EntityCache<Integer, Student> CACHE = new EntityCache<>("students",
+            Integer.getInteger("unitrack.cache.students.maxSize", 10_000),
+            Long.getLong("unitrack.cache.students.ttlMs", 300_000L),
+            Student::new);
+
+    /**
+     * Metrics of each operation, see DaoMetrics
+     */
+    private static final class Metrics {
+        static final OperationMetrics GET_ALL = DaoMetrics.operation("StudentDAO.getAllStudents");
+        static final OperationMetrics GET_BY_ID = DaoMetrics.operation("StudentDAO.getStudentById");
+        static final OperationMetrics ADD = DaoMetrics.operation("StudentDAO.addStudent");
+        static final OperationMetrics UPDATE = DaoMetrics.operation("StudentDAO.updateStudent");
+        static final OperationMetrics ADD_BATCH = DaoMetrics.operation("StudentDAO.addStudents");
+        static final OperationMetrics UPDATE_BATCH = DaoMetrics.operation("StudentDAO.updateStudents");
+        static final OperationMetrics DELETE = DaoMetrics.operation("StudentDAO.deleteStudent");
+        static final OperationMetrics SEARCH = DaoMetrics.operation("StudentDAO.searchStudents");
+        static final OperationMetrics PAGE = DaoMetrics.operation("StudentDAO.getStudentsPage");
+        static final OperationMetrics COUNT = DaoMetrics.operation("StudentDAO.countStudents");
+        static final OperationMetrics STREAM_ALL = DaoMetrics.operation("StudentDAO.streamAllStudents");
+        static final OperationMetrics STREAM_FILTERED = DaoMetrics.operation("StudentDAO.streamStudents");
+        static final OperationMetrics FIND_IDS = DaoMetrics.operation("StudentDAO.findIdsByEmail");
+    }
+
+    // Properties the paged listing can sort by, mapped to their columns
+    private static final Map<String, SortKey<Student>> SORT_KEYS = new LinkedHashMap<>();
+
+    static {
+        SORT_KEYS.put("studentId", new SortKey<>("student_id", ValueType.INT, Student::getStudentId));
+        SORT_KEYS.put("firstName", new SortKey<>("first_name", ValueType.STRING, Student::getFirstName));
+        SORT_KEYS.put("lastName", new SortKey<>("last_name", ValueType.STRING, Student::getLastName));
+        SORT_KEYS.put("email", new SortKey<>("email", ValueType.STRING, Student::getEmail));
+        SORT_KEYS.put("phone", new SortKey<>("phone", ValueType.STRING, Student::getPhone));
+        SORT_KEYS.put("dateOfBirth", new SortKey<>("date_of_birth", ValueType.DATE, Student::getDateOfBirth));
+        SORT_KEYS.put("enrollmentDate", new SortKey<>("enrollment_date", ValueType.DATE, Student::getEnrollmentDate));
+        SORT_KEYS.put("status", new SortKey<>("status", ValueType.STRING, Student::getStatus));
+        SORT_KEYS.put("gpa", new SortKey<>("gpa", ValueType.DECIMAL, Student::getGpa));
+    }
+
  
     public List<Student> getAllStudents() throws SQLException {
-        List<Student> students = new ArrayList<>();
+        DaoCallEvent call = Metrics.GET_ALL.begin();
+        List<Student> students;
         String sql = "SELECT * FROM students ORDER BY student_id";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
-            while (rs.next()) {
-                Student student = new Student();
-                student.setStudentId(rs.getInt("student_id"));
-                student.setFirstName(rs.getString("first_name"));
-                student.setLastName(rs.getString("last_name"));
-                student.setEmail(rs.getString("email"));
-                student.setPhone(rs.getString("phone"));
-
-                // Handle null dates
-                Date dob = rs.getDate("date_of_birth");
-                if (dob != null) {
-                    student.setDateOfBirth(dob.toLocalDate());
-                }
-
-                Date enrollDate = rs.getDate("enrollment_date");
-                if (enrollDate != null) {
-                    student.setEnrollmentDate(enrollDate.toLocalDate());
-                }
-
-                student.setStatus(rs.getString("status"));
-                student.setGpa(rs.getDouble("gpa"));
-
-                students.add(student);
-            }
+            students = RowMapper.mapAll(rs, StudentRowMapper.forResultSet(rs));
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error fetching all students: " + e.getMessage());
             throw e;
         }
 
+        call.succeeded(students.size());
         return students;
     }
 
 
+    /**
+     * Served from the student cache when possible. The returned object is
+     * a private copy and may be modified freely.
+     */
     public Student getStudentById(int id) throws SQLException {
+        DaoCallEvent call = Metrics.GET_BY_ID.begin();
+        Student student = CACHE.get(id);
+        if (student != null) {
+            call.succeeded(1);
+            return student;
+        }
+
         String sql = "SELECT * FROM students WHERE student_id = ?";
-        Student student = null;
+        long loadStamp = CACHE.beginLoad();
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -65,71 +116,45 @@ public class StudentDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    student = new Student();
-                    student.setStudentId(rs.getInt("student_id"));
-                    student.setFirstName(rs.getString("first_name"));
-                    student.setLastName(rs.getString("last_name"));
-                    student.setEmail(rs.getString("email"));
-                    student.setPhone(rs.getString("phone"));
-
-                    Date dob = rs.getDate("date_of_birth");
-                    if (dob != null) {
-                        student.setDateOfBirth(dob.toLocalDate());
-                    }
-
-                    Date enrollDate = rs.getDate("enrollment_date");
-                    if (enrollDate != null) {
-                        student.setEnrollmentDate(enrollDate.toLocalDate());
-                    }
-
-                    student.setStatus(rs.getString("status"));
-                    student.setGpa(rs.getDouble("gpa"));
+                    student = StudentRowMapper.forResultSet(rs).mapRow(rs);
                 }
             }
         } catch (SQLException e) {
+            call.failed(e);
             System.err.println("Error fetching student by ID: " + e.getMessage());
             throw e;
         }
 
+        CACHE.put(id, student, loadStamp);
+        call.succeeded(student != null ? 1 : 0);
         return student;
     }
 
 
     public boolean addStudent(Student student) throws SQLException {
-        String sql = "INSERT INTO students (first_name, last_name, email, phone, " +
-                     "date_of_birth, enrollment_date, status, gpa) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-
+        DaoCallEvent call = Metrics.ADD.begin();
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, student.getFirstName());
-            pstmt.setString(2, student.getLastName());
-            pstmt.setString(3, student.getEmail());
-            pstmt.setString(4, student.getPhone());
-
-            // Handle null dates
-            if (student.getDateOfBirth() != null) {
-                pstmt.setDate(5, Date.valueOf(student.getDateOfBirth()));
-            } else {
-                pstmt.setNull(5, Types.DATE);
-            }
-
-            if (student.getEnrollmentDate() != null) {
-                pstmt.setDate(6, Date.valueOf(student.getEnrollmentDate()));
-            } else {
-                pstmt.setNull(6, Types.DATE);
-            }
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(7, student.getStatus());
-            pstmt.setDouble(8, student.getGpa());
+            bindStudent(pstmt, student);
 
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                // Write the generated id back so callers can use the new row directly
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        student.setStudentId(keys.getInt(1));
+                    }
+                }
+            }
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             // Check for duplicate email constraint violation
             if (e.getErrorCode() == 1062) {
-                throw new SQLException("Duplicate email address. Email must be unique.", e);
+                throw new SQLException(DUPLICATE_EMAIL_MESSAGE, e);
             }
             System.err.println("Error adding student: " + e.getMessage());
             throw e;
@@ -137,50 +162,124 @@ public class StudentDAO {
     }
 
     public boolean updateStudent(Student student) throws SQLException {
-        String sql = "UPDATE students SET first_name = ?, last_name = ?, email = ?, " +
-                     "phone = ?, date_of_birth = ?, enrollment_date = ?, status = ?, gpa = ? " +
-                     "WHERE student_id = ?";
-
+        DaoCallEvent call = Metrics.UPDATE.begin();
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, student.getFirstName());
-            pstmt.setString(2, student.getLastName());
-            pstmt.setString(3, student.getEmail());
-            pstmt.setString(4, student.getPhone());
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            // Handle null dates
-            if (student.getDateOfBirth() != null) {
-                pstmt.setDate(5, Date.valueOf(student.getDateOfBirth()));
-            } else {
-                pstmt.setNull(5, Types.DATE);
-            }
-
-            if (student.getEnrollmentDate() != null) {
-                pstmt.setDate(6, Date.valueOf(student.getEnrollmentDate()));
-            } else {
-                pstmt.setNull(6, Types.DATE);
-            }
-
-            pstmt.setString(7, student.getStatus());
-            pstmt.setDouble(8, student.getGpa());
+            bindStudent(pstmt, student);
             pstmt.setInt(9, student.getStudentId());
 
             int rowsAffected = pstmt.executeUpdate();
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             // Check for duplicate email constraint violation
             if (e.getErrorCode() == 1062) {
-                throw new SQLException("Duplicate email address. Email must be unique.", e);
+                throw new SQLException(DUPLICATE_EMAIL_MESSAGE, e);
             }
             System.err.println("Error updating student: " + e.getMessage());
             throw e;
+        } finally {
+            CACHE.invalidate(student.getStudentId());
+            NameDictionary.students().invalidate(student.getStudentId());
+        }
+    }
+
+    /**
+     * Inserts many students in one transaction using JDBC batches.
+     * Generated ids are written back into the Student objects; rows that
+     * fail (e.g. duplicate email) are reported in the result and skipped.
+     */
+    public BatchResult addStudents(List<Student> students) throws SQLException {
+        return addStudents(students, BatchWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchResult addStudents(List<Student> students, int chunkSize) throws SQLException {
+        DaoCallEvent call = Metrics.ADD_BATCH.begin();
+        try {
+            BatchResult result = BatchWriter.execute(INSERT_SQL, students, chunkSize, StudentDAO::bindStudent,
+                    Student::setStudentId, StudentDAO::describeWriteError);
+            call.succeeded(result.getSucceeded());
+            return result;
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error adding students: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Updates many students in one transaction using JDBC batches
+     */
+    public BatchResult updateStudents(List<Student> students) throws SQLException {
+        return updateStudents(students, BatchWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchResult updateStudents(List<Student> students, int chunkSize) throws SQLException {
+        DaoCallEvent call = Metrics.UPDATE_BATCH.begin();
+        try {
+            BatchResult result = BatchWriter.execute(UPDATE_SQL, students, chunkSize, (pstmt, student) -> {
+                bindStudent(pstmt, student);
+                pstmt.setInt(9, student.getStudentId());
+            }, null, StudentDAO::describeWriteError);
+            call.succeeded(result.getSucceeded());
+            return result;
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error updating students: " + e.getMessage());
+            throw e;
+        } finally {
+            invalidateAll(students);
+        }
+    }
+
+    private static void invalidateAll(List<Student> students) {
+        List<Integer> ids = new ArrayList<>(students.size());
+        for (Student student : students) {
+            ids.add(student.getStudentId());
         }
+        CACHE.invalidateAll(ids);
+        NameDictionary.students().invalidateAll(ids);
+    }
+
+    /**
+     * Binds the eight column values shared by INSERT_SQL and UPDATE_SQL
+     */
+    private static void bindStudent(PreparedStatement pstmt, Student student) throws SQLException {
+        pstmt.setString(1, student.getFirstName());
+        pstmt.setString(2, student.getLastName());
+        pstmt.setString(3, student.getEmail());
+        pstmt.setString(4, student.getPhone());
+
+        // Handle null dates
+        if (student.getDateOfBirth() != null) {
+            pstmt.setDate(5, Date.valueOf(student.getDateOfBirth()));
+        } else {
+            pstmt.setNull(5, Types.DATE);
+        }
+
+        if (student.getEnrollmentDate() != null) {
+            pstmt.setDate(6, Date.valueOf(student.getEnrollmentDate()));
+        } else {
+            pstmt.setNull(6, Types.DATE);
+        }
+
+        pstmt.setString(7, student.getStatus());
+        pstmt.setDouble(8, student.getGpa());
+    }
+
+    private static String describeWriteError(SQLException e) {
+        if (e.getErrorCode() == 1062) {
+            return DUPLICATE_EMAIL_MESSAGE;
+        }
+        return e.getMessage();
     }
 
 
     public boolean deleteStudent(int id) throws SQLException {
+        DaoCallEvent call = Metrics.DELETE.begin();
         String sql = "DELETE FROM students WHERE student_id = ?";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -189,9 +288,11 @@ public class StudentDAO {
             pstmt.setInt(1, id);
 
             int rowsAffected = pstmt.executeUpdate();
+            call.succeeded(rowsAffected);
             return rowsAffected > 0;
 
         } catch (SQLException e) {
+            call.failed(e);
             // Check for foreign key constraint violation
             if (e.getErrorCode() == 1451) {
                 throw new SQLException("Cannot delete student with active enrollments. " +
@@ -199,12 +300,23 @@ public class StudentDAO {
             }
             System.err.println("Error deleting student: " + e.getMessage());
             throw e;
+        } finally {
+            CACHE.invalidate(id);
+            NameDictionary.students().invalidate(id);
         }
     }
 
+    /**
+     * Statistics of the shared student cache
+     */
+    public static EntityCache<Integer, Student> getCache() {
+        return CACHE;
+    }
+
  
     public List<Student> searchStudents(String keyword) throws SQLException {
-        List<Student> students = new ArrayList<>();
+        DaoCallEvent call = Metrics.SEARCH.begin();
+        List<Student> students;
         String sql = "SELECT * FROM students WHERE first_name LIKE ? OR last_name LIKE ? " +
                      "OR email LIKE ? ORDER BY student_id";
 
@@ -217,35 +329,165 @@ public class StudentDAO {
             pstmt.setString(3, searchPattern);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Student student = new Student();
-                    student.setStudentId(rs.getInt("student_id"));
-                    student.setFirstName(rs.getString("first_name"));
-                    student.setLastName(rs.getString("last_name"));
-                    student.setEmail(rs.getString("email"));
-                    student.setPhone(rs.getString("phone"));
-
-                    Date dob = rs.getDate("date_of_birth");
-                    if (dob != null) {
-                        student.setDateOfBirth(dob.toLocalDate());
-                    }
+                students = RowMapper.mapAll(rs, StudentRowMapper.forResultSet(rs));
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error searching students: " + e.getMessage());
+            throw e;
+        }
 
-                    Date enrollDate = rs.getDate("enrollment_date");
-                    if (enrollDate != null) {
-                        student.setEnrollmentDate(enrollDate.toLocalDate());
-                    }
+        call.succeeded(students.size());
+        return students;
+    }
+
+    /**
+     * Returns one page of students using keyset pagination.
+     * Pass the token of the previous page to continue after it.
+     */
+    public Page<Student> getStudentsPage(PageRequest request) throws SQLException {
+        DaoCallEvent call = Metrics.PAGE.begin();
+        KeysetQuery<Student> query = new KeysetQuery<>("SELECT * FROM students",
+                "student_id", Student::getStudentId, SORT_KEYS, request);
+        List<Student> rows;
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query.getSql())) {
+
+            query.bind(pstmt, 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rows = RowMapper.mapAll(rs, StudentRowMapper.forResultSet(rs));
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error fetching student page: " + e.getMessage());
+            throw e;
+        }
+
+        call.succeeded(rows.size());
+        return query.toPage(rows);
+    }
+
+    /**
+     * Properties accepted as the sort of a PageRequest
+     */
+    public static List<String> getSortableProperties() {
+        return List.copyOf(SORT_KEYS.keySet());
+    }
+
+    /**
+     * Number of rows in the students table
+     */
+    public long countStudents() throws SQLException {
+        return countStudents(Collections.emptyMap());
+    }
+
+    /**
+     * Number of students matching the column filters, see PageRequest.withFilters
+     */
+    public long countStudents(Map<String, String> filters) throws SQLException {
+        DaoCallEvent call = Metrics.COUNT.begin();
+        KeysetQuery<Student> query = new KeysetQuery<>("SELECT * FROM students",
+                "student_id", Student::getStudentId, SORT_KEYS,
+                PageRequest.firstPage(null, true, 1).withFilters(filters));
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query.getCountSql())) {
+
+            query.bindCount(pstmt, 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                long count = rs.getLong(1);
+                call.succeeded(1);
+                return count;
+            }
+        } catch (SQLException e) {
+            call.failed(e);
+            System.err.println("Error counting students: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Streams every student without loading the table into memory.
+     * The stream holds a pooled connection until it is closed, so use
+     * it in try-with-resources.
+     */
+    public Stream<Student> streamAllStudents() throws SQLException {
+        try {
+            return JdbcStream.open("SELECT * FROM students ORDER BY student_id",
+                    pstmt -> { }, StudentRowMapper::forResultSet, Metrics.STREAM_ALL);
+        } catch (SQLException e) {
+            System.err.println("Error streaming students: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the students with at least one enrollment matching the
+     * filter, or every student when the filter is empty
+     */
+    public Stream<Student> streamStudents(EnrollmentFilter filter) throws SQLException {
+        if (filter.isEmpty()) {
+            return streamAllStudents();
+        }
+        String sql = "SELECT * FROM students WHERE EXISTS (" +
+                "SELECT 1 FROM enrollments e JOIN courses c ON e.course_id = c.course_id " +
+                "WHERE e.student_id = students.student_id AND " + filter.conditions("e", "c") + ") " +
+                "ORDER BY student_id";
+        try {
+            return JdbcStream.open(sql, pstmt -> filter.bind(pstmt, 1), StudentRowMapper::forResultSet,
+                    Metrics.STREAM_FILTERED);
+        } catch (SQLException e) {
+            System.err.println("Error streaming students: " + e.getMessage());
+            throw e;
+        }
+    }
 
-                    student.setStatus(rs.getString("status"));
-                    student.setGpa(rs.getDouble("gpa"));
+    /**
+     * Hands every student to the callback until it returns false
+     * @return number of rows read
+     */
+    public long forEachStudent(RowCallback<Student> callback) throws SQLException {
+        return JdbcStream.forEach(streamAllStudents(), callback);
+    }
 
-                    students.add(student);
+    /**
+     * Looks up the ids of the students with the given email addresses.
+     * Email addresses that do not exist are missing from the returned map.
+     */
+    public Map<String, Integer> findIdsByEmail(Collection<String> emails) throws SQLException {
+        DaoCallEvent call = Metrics.FIND_IDS.begin();
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> pending = new ArrayList<>(emails);
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            // Query in slices to keep the IN list, and the statement cache key, bounded
+            for (int start = 0; start < pending.size(); start += LOOKUP_SLICE_SIZE) {
+                List<String> slice = pending.subList(start, Math.min(start + LOOKUP_SLICE_SIZE, pending.size()));
+                String sql = "SELECT student_id, email FROM students WHERE email IN (" +
+                             String.join(", ", Collections.nCopies(slice.size(), "?")) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < slice.size(); i++) {
+                        pstmt.setString(i + 1, slice.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.put(rs.getString(2), rs.getInt(1));
+                        }
+                    }
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error searching students: " + e.getMessage());
+            call.failed(e);
+            System.err.println("Error looking up student ids: " + e.getMessage());
             throw e;
         }
 
-        return students;
+        call.succeeded(ids.size());
+        return ids;
     }
 }
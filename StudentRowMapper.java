@@ -0,0 +1,61 @@
+package advancejavaproject4.database;
+
+import advancejavaproject4.model.Student;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Maps rows of the students table to Student objects. The status column
+ * holds a handful of values, so its strings are shared through a pool.
+ * @author yigitt
+ */
+public final class StudentRowMapper implements RowMapper<Student> {
+
+    private static final StringPool STATUSES = new StringPool(64);
+
+    private final int studentId;
+    private final int firstName;
+    private final int lastName;
+    private final int email;
+    private final int phone;
+    private final int dateOfBirth;
+    private final int enrollmentDate;
+    private final int status;
+    private final int gpa;
+
+    private StudentRowMapper(ResultSet rs) throws SQLException {
+        studentId = rs.findColumn("student_id");
+        firstName = rs.findColumn("first_name");
+        lastName = rs.findColumn("last_name");
+        email = rs.findColumn("email");
+        phone = rs.findColumn("phone");
+        dateOfBirth = rs.findColumn("date_of_birth");
+        enrollmentDate = rs.findColumn("enrollment_date");
+        status = rs.findColumn("status");
+        gpa = rs.findColumn("gpa");
+    }
+
+    /**
+     * Creates a mapper bound to the column layout of the given ResultSet
+     */
+    public static StudentRowMapper forResultSet(ResultSet rs) throws SQLException {
+        return new StudentRowMapper(rs);
+    }
+
+    @Override
+    public Student mapRow(ResultSet rs) throws SQLException {
+        Student student = new Student();
+        student.setStudentId(rs.getInt(studentId));
+        student.setFirstName(rs.getString(firstName));
+        student.setLastName(rs.getString(lastName));
+        student.setEmail(rs.getString(email));
+        student.setPhone(rs.getString(phone));
+        // getObject returns null for NULL dates
+        student.setDateOfBirth(rs.getObject(dateOfBirth, LocalDate.class));
+        student.setEnrollmentDate(rs.getObject(enrollmentDate, LocalDate.class));
+        student.setStatus(STATUSES.getString(rs, status));
+        student.setGpa(rs.getDouble(gpa));
+        return student;
+    }
+}
@@ -0,0 +1,369 @@
+package advancejavaproject4.io;
+
+import advancejavaproject4.database.CourseDAO;
+import advancejavaproject4.database.EnrollmentDAO;
+import advancejavaproject4.database.EnrollmentFilter;
+import advancejavaproject4.database.StudentDAO;
+import advancejavaproject4.model.Course;
+import advancejavaproject4.model.Enrollment;
+import advancejavaproject4.model.Student;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports a table to CSV or JSON Lines. Rows are read from the DAO's
+ * streaming cursor and written straight to the file, optionally gzip
+ * compressed, so the table is never held in memory.
+ * Column names are the database column names, the same ones
+ * {@link CsvImporter} expects, so a CSV export can be imported again.
+ * @author yigitt
+ */
+public class TableExporter {
+
+    public enum Format {
+        CSV, JSON_LINES
+    }
+
+    /**
+     * Receives the number of rows written so far
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long rows);
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 5000;
+
+    private static final Map<String, Column<Student>> STUDENT_COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, Column<Course>> COURSE_COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, Column<Enrollment>> ENROLLMENT_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        number(STUDENT_COLUMNS, "student_id", Student::getStudentId);
+        text(STUDENT_COLUMNS, "first_name", Student::getFirstName);
+        text(STUDENT_COLUMNS, "last_name", Student::getLastName);
+        text(STUDENT_COLUMNS, "email", Student::getEmail);
+        text(STUDENT_COLUMNS, "phone", Student::getPhone);
+        text(STUDENT_COLUMNS, "date_of_birth", Student::getDateOfBirth);
+        text(STUDENT_COLUMNS, "enrollment_date", Student::getEnrollmentDate);
+        text(STUDENT_COLUMNS, "status", Student::getStatus);
+        number(STUDENT_COLUMNS, "gpa", Student::getGpa);
+
+        number(COURSE_COLUMNS, "course_id", Course::getCourseId);
+        text(COURSE_COLUMNS, "course_code", Course::getCourseCode);
+        text(COURSE_COLUMNS, "course_name", Course::getCourseName);
+        number(COURSE_COLUMNS, "credits", Course::getCredits);
+        text(COURSE_COLUMNS, "department", Course::getDepartment);
+        text(COURSE_COLUMNS, "description", Course::getDescription);
+
+        number(ENROLLMENT_COLUMNS, "enrollment_id", Enrollment::getEnrollmentId);
+        number(ENROLLMENT_COLUMNS, "student_id", Enrollment::getStudentId);
+        text(ENROLLMENT_COLUMNS, "student_name", Enrollment::getStudentName);
+        number(ENROLLMENT_COLUMNS, "course_id", Enrollment::getCourseId);
+        text(ENROLLMENT_COLUMNS, "course_name", Enrollment::getCourseName);
+        text(ENROLLMENT_COLUMNS, "semester", Enrollment::getSemester);
+        number(ENROLLMENT_COLUMNS, "year", Enrollment::getYear);
+        text(ENROLLMENT_COLUMNS, "grade", Enrollment::getGrade);
+        text(ENROLLMENT_COLUMNS, "enrollment_status", Enrollment::getEnrollmentStatus);
+        text(ENROLLMENT_COLUMNS, "enrollment_date", Enrollment::getEnrollmentDate);
+    }
+
+    private final String table;
+    private Format format = Format.CSV;
+    private boolean gzip;
+    private List<String> columns;
+    private EnrollmentFilter filter = new EnrollmentFilter();
+    private ProgressListener progressListener;
+    private volatile boolean cancelled;
+
+    /**
+     * @param table "students", "courses" or "enrollments"
+     */
+    public TableExporter(String table) {
+        columnsOf(table);
+        this.table = table;
+    }
+
+    /**
+     * Columns that can be exported from the table, in their default order
+     */
+    public static List<String> getAvailableColumns(String table) {
+        return List.copyOf(columnsOf(table).keySet());
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    /**
+     * Exports only these columns, in this order. Null exports them all.
+     */
+    public void setColumns(List<String> columns) {
+        if (columns != null) {
+            Map<String, ?> available = columnsOf(table);
+            for (String column : columns) {
+                if (!available.containsKey(column)) {
+                    throw new IllegalArgumentException("Table '" + table + "' has no column '" + column + "'");
+                }
+            }
+            columns = List.copyOf(columns);
+        }
+        this.columns = columns;
+    }
+
+    /**
+     * Restricts the export to a semester, year and/or department
+     */
+    public void setFilter(EnrollmentFilter filter) {
+        this.filter = filter != null ? filter : new EnrollmentFilter();
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Stops the export; the partly written file is deleted
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Picks the format and compression from the file name:
+     * .jsonl / .json mean JSON Lines, anything else CSV, and a trailing
+     * .gz turns on gzip
+     */
+    public void configureFromFileName(String fileName) {
+        String name = fileName.toLowerCase();
+        gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        format = name.endsWith(".jsonl") || name.endsWith(".json") ? Format.JSON_LINES : Format.CSV;
+    }
+
+    /**
+     * Writes the table to the file, replacing it if it exists
+     */
+    public ExportResult export(Path file) throws IOException, SQLException {
+        cancelled = false;
+        switch (table) {
+            case "students":
+                return export(file, new StudentDAO().streamStudents(filter), STUDENT_COLUMNS);
+            case "courses":
+                return export(file, new CourseDAO().streamCourses(filter), COURSE_COLUMNS);
+            default:
+                return export(file, new EnrollmentDAO().streamEnrollments(filter), ENROLLMENT_COLUMNS);
+        }
+    }
+
+    private <T> ExportResult export(Path file, Stream<T> rows, Map<String, Column<T>> available)
+            throws IOException {
+        long startNanos = System.nanoTime();
+        ExportResult result = new ExportResult(file);
+
+        List<Column<T>> selected = new ArrayList<>();
+        for (String name : columns != null ? columns : available.keySet()) {
+            selected.add(available.get(name));
+        }
+
+        try (Stream<T> rowStream = rows;
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            OutputStream out = Channels.newOutputStream(channel);
+            if (gzip) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            CountingOutputStream counter = new CountingOutputStream(out);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(counter, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+            long count = format == Format.CSV
+                    ? writeCsv(rowStream.iterator(), selected, writer)
+                    : writeJsonLines(rowStream.iterator(), selected, writer);
+            // Flushes the buffers and writes the gzip trailer
+            writer.close();
+
+            result.setRows(count);
+            result.setUncompressedBytes(counter.count);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        if (cancelled) {
+            Files.deleteIfExists(file);
+            result.setCancelled(true);
+        } else {
+            result.setFileBytes(Files.size(file));
+        }
+        result.setElapsedMillis((System.nanoTime() - startNanos) / 1_000_000);
+        return result;
+    }
+
+    private <T> long writeCsv(Iterator<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        String[] record = new String[columns.size()];
+        for (int i = 0; i < record.length; i++) {
+            record[i] = columns.get(i).name;
+        }
+        csv.writeRecord(record);
+
+        long count = 0;
+        while (!cancelled && rows.hasNext()) {
+            T row = rows.next();
+            for (int i = 0; i < record.length; i++) {
+                Object value = columns.get(i).extractor.apply(row);
+                record[i] = value == null ? null : value.toString();
+            }
+            csv.writeRecord(record);
+            reportProgress(++count);
+        }
+        return count;
+    }
+
+    private <T> long writeJsonLines(Iterator<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        long count = 0;
+        while (!cancelled && rows.hasNext()) {
+            T row = rows.next();
+            writer.write('{');
+            for (int i = 0; i < columns.size(); i++) {
+                Column<T> column = columns.get(i);
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeJsonString(writer, column.name);
+                writer.write(':');
+                Object value = column.extractor.apply(row);
+                if (value == null) {
+                    writer.write("null");
+                } else if (column.numeric) {
+                    writer.write(value.toString());
+                } else {
+                    writeJsonString(writer, value.toString());
+                }
+            }
+            writer.write("}\n");
+            reportProgress(++count);
+        }
+        return count;
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    private void reportProgress(long rows) {
+        if (progressListener != null && rows % PROGRESS_INTERVAL == 0) {
+            progressListener.onProgress(rows);
+        }
+    }
+
+    private static Map<String, ? extends Column<?>> columnsOf(String table) {
+        switch (table) {
+            case "students":
+                return STUDENT_COLUMNS;
+            case "courses":
+                return COURSE_COLUMNS;
+            case "enrollments":
+                return ENROLLMENT_COLUMNS;
+            default:
+                throw new IllegalArgumentException("Exporting '" + table + "' is not supported.");
+        }
+    }
+
+    private static <T> void number(Map<String, Column<T>> columns, String name, Function<T, Object> extractor) {
+        columns.put(name, new Column<>(name, true, extractor));
+    }
+
+    private static <T> void text(Map<String, Column<T>> columns, String name, Function<T, Object> extractor) {
+        columns.put(name, new Column<>(name, false, extractor));
+    }
+
+    private static final class Column<T> {
+        final String name;
+        final boolean numeric;
+        final Function<T, Object> extractor;
+
+        Column(String name, boolean numeric, Function<T, Object> extractor) {
+            this.name = name;
+            this.numeric = numeric;
+            this.extractor = extractor;
+        }
+    }
+
+    /**
+     * Counts the bytes passing through, before compression
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
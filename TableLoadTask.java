@@ -0,0 +1,171 @@
+package advancejavaproject4;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Streams a table from the database on a background thread and adds
+ * the rows to a list on the JavaFX Application Thread in chunks, so the
+ * first rows show up at once and the window keeps painting while the
+ * rest arrive.
+ * At most one hand-off is queued on the FX thread at a time and each one
+ * adds a bounded number of rows, so a fast cursor cannot flood the event
+ * queue or stretch a frame. The task's value is the number of rows loaded.
+ * The time spent reading rows and adding them to the list is kept for
+ * the TableRefreshEvent of the load.
+ * @author yigitt
+ */
+public class TableLoadTask<T> extends Task<Long> {
+
+    /**
+     * Opens the rows to load; the stream is closed by the task
+     */
+    @FunctionalInterface
+    public interface RowSource<T> {
+        Stream<T> open() throws SQLException;
+    }
+
+    // Rows read before they are handed to the FX thread
+    private static final int CHUNK_SIZE = 500;
+    // Most rows added to the list in one FX pulse
+    private static final int MAX_ROWS_PER_PULSE = 2000;
+    // Rows waiting for the FX thread before the reader pauses
+    private static final int MAX_BUFFERED_ROWS = 50_000;
+
+    private final String table;
+    private final long total;
+    private final RowSource<T> source;
+    private final ObservableList<T> target;
+
+    private final ArrayDeque<T> buffer = new ArrayDeque<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Time spent reading and mapping rows, not counting waits for the FX
+    // thread, and time the FX thread spent adding them to the list
+    private long mapNanos;
+    private long renderNanos;
+
+    /**
+     * @param total rows expected, for the progress bar
+     */
+    public TableLoadTask(String table, long total, RowSource<T> source, ObservableList<T> target) {
+        this.table = table;
+        this.total = total;
+        this.source = source;
+        this.target = target;
+    }
+
+    @Override
+    protected Long call() throws Exception {
+        updateMessage("Loading " + table + "...");
+        long loaded = 0;
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        long reading = System.nanoTime();
+
+        try (Stream<T> rows = source.open()) {
+            Iterator<T> it = rows.iterator();
+            while (!isCancelled() && it.hasNext()) {
+                chunk.add(it.next());
+                loaded++;
+                if (chunk.size() == CHUNK_SIZE) {
+                    mapNanos += System.nanoTime() - reading;
+                    publish(chunk);
+                    chunk.clear();
+                    reportProgress(loaded, total);
+                    reading = System.nanoTime();
+                }
+            }
+            mapNanos += System.nanoTime() - reading;
+            if (isCancelled()) {
+                return loaded;
+            }
+            publish(chunk);
+            reportProgress(loaded, total);
+        }
+
+        // Finish only when every row is in the list
+        synchronized (buffer) {
+            while (!buffer.isEmpty() && !isCancelled()) {
+                buffer.wait(100);
+            }
+        }
+        return loaded;
+    }
+
+    private void reportProgress(long loaded, long total) {
+        // Rows inserted since the count may push loaded past it
+        long max = Math.max(total, loaded);
+        updateProgress(loaded, max);
+        updateMessage("Loading " + table + ": " + loaded + " of " + max + " rows");
+    }
+
+    /**
+     * Queues the rows for the FX thread, waiting while it is far behind
+     */
+    private void publish(List<T> rows) throws InterruptedException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        synchronized (buffer) {
+            while (buffer.size() >= MAX_BUFFERED_ROWS && !isCancelled()) {
+                buffer.wait(100);
+            }
+            buffer.addAll(rows);
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * Runs on the FX thread: adds the next slice of buffered rows
+     */
+    private void flush() {
+        List<T> rows;
+        synchronized (buffer) {
+            int count = Math.min(buffer.size(), MAX_ROWS_PER_PULSE);
+            rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(buffer.poll());
+            }
+            buffer.notifyAll();
+        }
+        if (!isCancelled() && !rows.isEmpty()) {
+            long started = System.nanoTime();
+            target.addAll(rows);
+            renderNanos += System.nanoTime() - started;
+        }
+
+        flushScheduled.set(false);
+        boolean more;
+        synchronized (buffer) {
+            more = !buffer.isEmpty();
+        }
+        // Leave the rest for the next pulse so this one stays short
+        if (more && flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * Time spent querying and mapping rows; read once the task is done
+     */
+    public long getMapNanos() {
+        return mapNanos;
+    }
+
+    /**
+     * Time the FX thread spent adding rows to the list; read on the FX thread
+     */
+    public long getRenderNanos() {
+        return renderNanos;
+    }
+}
@@ -0,0 +1,43 @@
+package advancejavaproject4;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one load of a table into the main window,
+ * from Display Contents, a sort or a filter. It lasts from the click
+ * until the last row is in the table view.
+ * @author yigitt
+ */
+@Name("unitrack.TableRefresh")
+@Label("Table Refresh")
+@Category({"UniTrack", "UI"})
+@Description("One load of a table into the main window")
+@StackTrace(false)
+final class TableRefreshEvent extends Event {
+
+    @Label("Table")
+    String table;
+
+    @Label("Paged")
+    @Description("Rows are fetched page by page as the table is scrolled instead of loaded whole")
+    boolean paged;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Map Time")
+    @Description("Time the loading thread spent querying and mapping rows")
+    @Timespan(Timespan.NANOSECONDS)
+    long mapTime;
+
+    @Label("Render Time")
+    @Description("Time the FX thread spent adding rows to the table view")
+    @Timespan(Timespan.NANOSECONDS)
+    long renderTime;
+}
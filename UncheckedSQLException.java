@@ -0,0 +1,22 @@
+package advancejavaproject4.database;
+
+import java.sql.SQLException;
+
+/**
+ * Carries a SQLException out of code that cannot throw checked
+ * exceptions, such as a Stream pipeline reading from a cursor
+ * @author yigitt
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
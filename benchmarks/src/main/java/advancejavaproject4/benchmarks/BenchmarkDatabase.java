@@ -0,0 +1,170 @@
+package advancejavaproject4.benchmarks;
+
+import advancejavaproject4.database.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Embedded H2 database in MySQL mode that the DAOs are pointed at
+ * through the unitrack.db.* system properties. The data is generated
+ * from a fixed seed, so every run and every fork sees the same rows.
+ * @author yigitt
+ */
+final class BenchmarkDatabase {
+
+    static final String URL = "jdbc:h2:mem:unitrack_bench;MODE=MySQL;DB_CLOSE_DELAY=-1;"
+            + "DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;NON_KEYWORDS=YEAR,VALUE";
+    static final int COURSES = 200;
+
+    static final String[] FIRST_NAMES = {
+        "Ahmet", "Mehmet", "Ayse", "Fatma", "Mustafa", "Zeynep", "Emre", "Elif", "Can", "Deniz",
+        "Ali", "Selin", "Burak", "Ece", "Kerem", "Ipek", "John", "Maria", "David", "Anna"
+    };
+    static final String[] LAST_NAMES = {
+        "Yilmaz", "Kaya", "Demir", "Sahin", "Celik", "Yildiz", "Yildirim", "Ozturk", "Aydin", "Ozdemir",
+        "Arslan", "Dogan", "Kilic", "Aslan", "Cetin", "Kara", "Koc", "Kurt", "Smith", "Garcia"
+    };
+    static final String[] STATUSES = {"Active", "Active", "Active", "Graduated", "Suspended"};
+    static final String[] SEMESTERS = {"Fall", "Spring", "Summer"};
+    static final String[] GRADES = {"AA", "BA", "BB", "CB", "CC", "DC", "DD", "FF", null};
+    static final String[] ENROLLMENT_STATUSES = {"Enrolled", "Completed", "Completed", "Dropped"};
+
+    private static final long SEED = 42L;
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Points DatabaseConnection at the embedded database; must run
+     * before the first DAO call in the forked JVM
+     */
+    static void configure() {
+        System.setProperty("unitrack.db.driver", "org.h2.Driver");
+        System.setProperty("unitrack.db.url", URL);
+        System.setProperty("unitrack.db.user", "sa");
+        System.setProperty("unitrack.db.password", "");
+        // Nothing in the benchmarks is slow enough to be worth an EXPLAIN
+        System.setProperty("unitrack.profiler.slowQueryMs", "3600000");
+    }
+
+    /**
+     * Drops and recreates the schema with the given number of students
+     * and enrollments spread over COURSES courses
+     */
+    static void seed(int students, int enrollments) throws SQLException {
+        configure();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            createSchema(conn);
+            conn.setAutoCommit(false);
+            try {
+                Random random = new Random(SEED);
+                insertCourses(conn, random);
+                insertStudents(conn, random, students);
+                insertEnrollments(conn, random, students, enrollments);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS enrollments");
+            stmt.execute("DROP TABLE IF EXISTS students");
+            stmt.execute("DROP TABLE IF EXISTS courses");
+            stmt.execute("CREATE TABLE students (student_id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "first_name VARCHAR(50) NOT NULL, last_name VARCHAR(50) NOT NULL, "
+                    + "email VARCHAR(100) NOT NULL UNIQUE, phone VARCHAR(20), date_of_birth DATE, "
+                    + "enrollment_date DATE, status VARCHAR(20), gpa DECIMAL(3,2))");
+            stmt.execute("CREATE TABLE courses (course_id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "course_code VARCHAR(20) NOT NULL UNIQUE, course_name VARCHAR(100) NOT NULL, "
+                    + "credits INT NOT NULL, department VARCHAR(50), description TEXT)");
+            stmt.execute("CREATE TABLE enrollments (enrollment_id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "student_id INT NOT NULL, course_id INT NOT NULL, semester VARCHAR(20) NOT NULL, "
+                    + "year INT NOT NULL, grade VARCHAR(2), enrollment_status VARCHAR(20), enrollment_date DATE, "
+                    + "UNIQUE (student_id, course_id, semester, year), "
+                    + "FOREIGN KEY (student_id) REFERENCES students(student_id), "
+                    + "FOREIGN KEY (course_id) REFERENCES courses(course_id))");
+        }
+    }
+
+    private static void insertCourses(Connection conn, Random random) throws SQLException {
+        String sql = "INSERT INTO courses (course_code, course_name, credits, department, description) "
+                + "VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= COURSES; i++) {
+                pstmt.setString(1, "C" + (1000 + i));
+                pstmt.setString(2, "Course " + i);
+                pstmt.setInt(3, 2 + random.nextInt(5));
+                pstmt.setString(4, "Department " + (i % 12));
+                pstmt.setString(5, "Benchmark course " + i);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void insertStudents(Connection conn, Random random, int count) throws SQLException {
+        String sql = "INSERT INTO students (first_name, last_name, email, phone, date_of_birth, "
+                + "enrollment_date, status, gpa) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= count; i++) {
+                String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                pstmt.setString(1, firstName);
+                pstmt.setString(2, lastName);
+                pstmt.setString(3, firstName.toLowerCase() + "." + lastName.toLowerCase() + "." + i + "@unitrack.edu");
+                pstmt.setString(4, "555" + (1_000_000 + random.nextInt(9_000_000)));
+                pstmt.setDate(5, Date.valueOf(LocalDate.of(1995, 1, 1).plusDays(random.nextInt(3650))));
+                pstmt.setDate(6, Date.valueOf(LocalDate.of(2015, 9, 1).plusDays(random.nextInt(3650))));
+                pstmt.setString(7, STATUSES[random.nextInt(STATUSES.length)]);
+                pstmt.setDouble(8, random.nextInt(401) / 100.0);
+                pstmt.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Student ids run 1..students; enrollment i belongs to student
+     * i % students + 1 and gets a course, term and year that keep
+     * (student, course, semester, year) unique
+     */
+    private static void insertEnrollments(Connection conn, Random random, int students, int count)
+            throws SQLException {
+        String sql = "INSERT INTO enrollments (student_id, course_id, semester, year, grade, "
+                + "enrollment_status, enrollment_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                int round = i / students;
+                int semester = round % SEMESTERS.length;
+                int year = 2015 + round / SEMESTERS.length;
+                pstmt.setInt(1, i % students + 1);
+                pstmt.setInt(2, random.nextInt(COURSES) + 1);
+                pstmt.setString(3, SEMESTERS[semester]);
+                pstmt.setInt(4, year);
+                pstmt.setString(5, GRADES[random.nextInt(GRADES.length)]);
+                pstmt.setString(6, ENROLLMENT_STATUSES[random.nextInt(ENROLLMENT_STATUSES.length)]);
+                pstmt.setDate(7, Date.valueOf(LocalDate.of(year, 9, 1).plusDays(random.nextInt(30))));
+                pstmt.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package advancejavaproject4.benchmarks;
+
+import advancejavaproject4.database.BatchResult;
+import advancejavaproject4.database.DatabaseConnection;
+import advancejavaproject4.database.EnrollmentDAO;
+import advancejavaproject4.database.StudentDAO;
+import advancejavaproject4.model.Enrollment;
+import advancejavaproject4.model.Student;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The batched insert paths, StudentDAO.addStudents and
+ * EnrollmentDAO.addEnrollments, each writing rows new rows per call into
+ * a database already seeded with size students and enrollments. The rows
+ * written during an iteration are deleted after it, so the tables do not
+ * grow over the run.
+ * @author yigitt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkInsertBenchmark {
+
+    // Enrollments written by the benchmark use years from here on
+    private static final int FIRST_BENCHMARK_YEAR = 3000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"100", "1000"})
+    public int chunkSize;
+
+    private StudentDAO studentDAO;
+    private EnrollmentDAO enrollmentDAO;
+    private int invocation;
+    private List<Student> students;
+    private List<Enrollment> enrollments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.seed(size, size);
+        studentDAO = new StudentDAO();
+        enrollmentDAO = new EnrollmentDAO();
+    }
+
+    /**
+     * Builds the rows of the next call; emails and enrollment years are
+     * new on every call so no row hits a unique constraint
+     */
+    @Setup(Level.Invocation)
+    public void prepareRows() {
+        invocation++;
+        students = new ArrayList<>(rows);
+        enrollments = new ArrayList<>(rows);
+        LocalDate today = LocalDate.of(2024, 9, 1);
+        for (int i = 0; i < rows; i++) {
+            students.add(new Student(0, "Bench", "Student", "bench." + invocation + "." + i + "@unitrack.edu",
+                    "5550000000", LocalDate.of(2000, 1, 1), today, "Active", 3.0));
+            // Distinct (student, course) pairs within one year
+            enrollments.add(new Enrollment(0, i % size + 1, i / size % BenchmarkDatabase.COURSES + 1,
+                    "Fall", FIRST_BENCHMARK_YEAR + invocation, null, "Enrolled", today));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedRows() throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement deleteEnrollments = conn.prepareStatement(
+                     "DELETE FROM enrollments WHERE year >= ?");
+             PreparedStatement deleteStudents = conn.prepareStatement(
+                     "DELETE FROM students WHERE student_id > ?")) {
+            deleteEnrollments.setInt(1, FIRST_BENCHMARK_YEAR);
+            deleteEnrollments.executeUpdate();
+            deleteStudents.setInt(1, size);
+            deleteStudents.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public BatchResult addStudents() throws SQLException {
+        return studentDAO.addStudents(students, chunkSize);
+    }
+
+    @Benchmark
+    public BatchResult addEnrollments() throws SQLException {
+        return enrollmentDAO.addEnrollments(enrollments, chunkSize);
+    }
+}
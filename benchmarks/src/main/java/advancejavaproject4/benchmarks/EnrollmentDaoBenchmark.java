@@ -0,0 +1,59 @@
+package advancejavaproject4.benchmarks;
+
+import advancejavaproject4.database.EnrollmentDAO;
+import advancejavaproject4.model.Enrollment;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EnrollmentDAO.getEnrollmentsByCourse against the embedded database,
+ * seeded with size students and as many enrollments spread over
+ * BenchmarkDatabase.COURSES courses. Runs both with the students join
+ * and with names filled from the name dictionary.
+ * @author yigitt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EnrollmentDaoBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean useNameDictionary;
+
+    private EnrollmentDAO enrollmentDAO;
+    private int nextCourse;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.seed(size, size);
+        enrollmentDAO = new EnrollmentDAO(useNameDictionary);
+    }
+
+    /**
+     * Walks through the courses so no single course's rows stay hot
+     */
+    @Benchmark
+    public List<Enrollment> getEnrollmentsByCourse() throws SQLException {
+        nextCourse = nextCourse % BenchmarkDatabase.COURSES + 1;
+        return enrollmentDAO.getEnrollmentsByCourse(nextCourse);
+    }
+}
@@ -0,0 +1,126 @@
+package advancejavaproject4.benchmarks;
+
+import advancejavaproject4.database.EnrollmentRowMapper;
+import advancejavaproject4.database.RowMapper;
+import advancejavaproject4.database.StudentRowMapper;
+import advancejavaproject4.model.Enrollment;
+import advancejavaproject4.model.Student;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ResultSet to model mapping on its own, with no driver or database
+ * involved: the rows come from an in-memory ResultSet that is rewound
+ * before every call. Scores are per mapped row.
+ * @author yigitt
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private InMemoryResultSet studentRows;
+    private InMemoryResultSet enrollmentRows;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+
+        studentRows = new InMemoryResultSet();
+        studentRows.setAutoClose(false);
+        studentRows.addColumn("student_id", Types.INTEGER, 10, 0);
+        studentRows.addColumn("first_name", Types.VARCHAR, 50, 0);
+        studentRows.addColumn("last_name", Types.VARCHAR, 50, 0);
+        studentRows.addColumn("email", Types.VARCHAR, 100, 0);
+        studentRows.addColumn("phone", Types.VARCHAR, 20, 0);
+        studentRows.addColumn("date_of_birth", Types.DATE, 0, 0);
+        studentRows.addColumn("enrollment_date", Types.DATE, 0, 0);
+        studentRows.addColumn("status", Types.VARCHAR, 20, 0);
+        studentRows.addColumn("gpa", Types.DECIMAL, 3, 2);
+        for (int i = 1; i <= ROWS; i++) {
+            String firstName = BenchmarkDatabase.FIRST_NAMES[random.nextInt(BenchmarkDatabase.FIRST_NAMES.length)];
+            String lastName = BenchmarkDatabase.LAST_NAMES[random.nextInt(BenchmarkDatabase.LAST_NAMES.length)];
+            // New String instances, as a driver would return them
+            studentRows.addRow(i, new String(firstName), new String(lastName),
+                    firstName.toLowerCase() + "." + lastName.toLowerCase() + "." + i + "@unitrack.edu",
+                    "555" + (1_000_000 + random.nextInt(9_000_000)),
+                    LocalDate.of(1995, 1, 1).plusDays(random.nextInt(3650)),
+                    LocalDate.of(2015, 9, 1).plusDays(random.nextInt(3650)),
+                    new String(BenchmarkDatabase.STATUSES[random.nextInt(BenchmarkDatabase.STATUSES.length)]),
+                    random.nextInt(401) / 100.0);
+        }
+
+        enrollmentRows = new InMemoryResultSet();
+        enrollmentRows.setAutoClose(false);
+        enrollmentRows.addColumn("enrollment_id", Types.INTEGER, 10, 0);
+        enrollmentRows.addColumn("student_id", Types.INTEGER, 10, 0);
+        enrollmentRows.addColumn("course_id", Types.INTEGER, 10, 0);
+        enrollmentRows.addColumn("semester", Types.VARCHAR, 20, 0);
+        enrollmentRows.addColumn("year", Types.INTEGER, 10, 0);
+        enrollmentRows.addColumn("grade", Types.VARCHAR, 2, 0);
+        enrollmentRows.addColumn("enrollment_status", Types.VARCHAR, 20, 0);
+        enrollmentRows.addColumn("enrollment_date", Types.DATE, 0, 0);
+        enrollmentRows.addColumn("student_name", Types.VARCHAR, 101, 0);
+        enrollmentRows.addColumn("course_name", Types.VARCHAR, 100, 0);
+        for (int i = 1; i <= ROWS; i++) {
+            int course = random.nextInt(BenchmarkDatabase.COURSES) + 1;
+            String grade = BenchmarkDatabase.GRADES[random.nextInt(BenchmarkDatabase.GRADES.length)];
+            enrollmentRows.addRow(i, random.nextInt(ROWS) + 1, course,
+                    new String(BenchmarkDatabase.SEMESTERS[random.nextInt(BenchmarkDatabase.SEMESTERS.length)]),
+                    2015 + random.nextInt(10),
+                    grade == null ? null : new String(grade),
+                    new String(BenchmarkDatabase.ENROLLMENT_STATUSES[random.nextInt(BenchmarkDatabase.ENROLLMENT_STATUSES.length)]),
+                    LocalDate.of(2015, 9, 1).plusDays(random.nextInt(3650)),
+                    BenchmarkDatabase.FIRST_NAMES[random.nextInt(BenchmarkDatabase.FIRST_NAMES.length)] + " "
+                            + BenchmarkDatabase.LAST_NAMES[random.nextInt(BenchmarkDatabase.LAST_NAMES.length)],
+                    "Course " + course);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Student> mapStudents() throws SQLException {
+        studentRows.beforeFirst();
+        return RowMapper.mapAll(studentRows, StudentRowMapper.forResultSet(studentRows));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Enrollment> mapEnrollments() throws SQLException {
+        enrollmentRows.beforeFirst();
+        return RowMapper.mapAll(enrollmentRows, EnrollmentRowMapper.forResultSet(enrollmentRows));
+    }
+
+    /**
+     * H2's SimpleResultSet, which does not implement getObject with a
+     * type; the values are added already typed, so they are just cast
+     */
+    static final class InMemoryResultSet extends SimpleResultSet {
+
+        @Override
+        public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+            return type.cast(getObject(columnIndex));
+        }
+    }
+}
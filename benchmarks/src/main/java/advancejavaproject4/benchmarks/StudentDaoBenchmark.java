@@ -0,0 +1,58 @@
+package advancejavaproject4.benchmarks;
+
+import advancejavaproject4.database.StudentDAO;
+import advancejavaproject4.model.Student;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StudentDAO reads against the embedded database, seeded with size
+ * students and as many enrollments
+ * @author yigitt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StudentDaoBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    // Matches Yilmaz, Yildiz and Yildirim, about one student in seven
+    @Param({"yil"})
+    public String keyword;
+
+    private StudentDAO studentDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.seed(size, size);
+        studentDAO = new StudentDAO();
+    }
+
+    @Benchmark
+    public List<Student> getAllStudents() throws SQLException {
+        return studentDAO.getAllStudents();
+    }
+
+    @Benchmark
+    public List<Student> searchStudents() throws SQLException {
+        return studentDAO.searchStudents(keyword);
+    }
+}
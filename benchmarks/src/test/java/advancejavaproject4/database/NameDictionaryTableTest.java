@@ -0,0 +1,89 @@
+package advancejavaproject4.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The open-addressing table behind NameDictionary, mostly its removal,
+ * which shifts later entries of a probe run back into the gap
+ * @author yigitt
+ */
+class NameDictionaryTableTest {
+
+    @Test
+    void putsAndFinds() {
+        NameDictionary.Table table = new NameDictionary.Table(16);
+        table.put(7, "Ada Lovelace", "lovelace ada");
+        table.put(7, "Ada King", "king ada");
+        assertEquals(1, table.size);
+        assertEquals("Ada King", table.nameOf(7));
+        assertEquals("king ada", table.sortKeyOf(7));
+        assertNull(table.nameOf(8));
+    }
+
+    @Test
+    void ignoresIdsBelowOne() {
+        NameDictionary.Table table = new NameDictionary.Table(16);
+        table.put(0, "nobody", "nobody");
+        assertEquals(0, table.size);
+        assertNull(table.nameOf(0));
+    }
+
+    @Test
+    void removesWithinOneProbeRun() {
+        // Fill half of a 16-slot table so runs form, then remove each entry in turn
+        for (int removed = 1; removed <= 7; removed++) {
+            NameDictionary.Table table = new NameDictionary.Table(16);
+            for (int id = 1; id <= 7; id++) {
+                table.put(id * 16, "n" + id, "s" + id);
+            }
+            table.remove(removed * 16);
+            assertEquals(6, table.size);
+            for (int id = 1; id <= 7; id++) {
+                assertEquals(id == removed ? null : "n" + id, table.nameOf(id * 16));
+            }
+        }
+    }
+
+    @Test
+    void removingMissingIdChangesNothing() {
+        NameDictionary.Table table = new NameDictionary.Table(16);
+        table.put(1, "a", "a");
+        table.remove(2);
+        table.remove(-1);
+        assertEquals(1, table.size);
+        assertEquals("a", table.nameOf(1));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomPutsAndRemoves() {
+        for (int seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            NameDictionary.Table table = new NameDictionary.Table(16);
+            Map<Integer, String> expected = new HashMap<>();
+            // Few distinct ids in a small table, so runs wrap around its end
+            int ids = 10 + random.nextInt(60);
+
+            for (int step = 0; step < 5_000; step++) {
+                int id = 1 + random.nextInt(ids);
+                if (random.nextInt(3) == 0) {
+                    table.remove(id);
+                    expected.remove(id);
+                } else {
+                    String name = "name" + step;
+                    table.put(id, name, name.toLowerCase());
+                    expected.put(id, name);
+                }
+                assertEquals(expected.size(), table.size, "seed " + seed + ", step " + step);
+            }
+            for (int id = 1; id <= ids; id++) {
+                assertEquals(expected.get(id), table.nameOf(id), "seed " + seed + ", id " + id);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package advancejavaproject4.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Statement splitting of hand-written scripts
+ * @author yigitt
+ */
+class SqlScriptTest {
+
+    @Test
+    void splitsOnSemicolons() {
+        assertEquals(Arrays.asList("SELECT 1", "SELECT 2"), SqlScript.split("SELECT 1; SELECT 2;"));
+    }
+
+    @Test
+    void keepsLastStatementWithoutDelimiter() {
+        assertEquals(Arrays.asList("SELECT 1", "SELECT 2"), SqlScript.split("SELECT 1;\nSELECT 2"));
+    }
+
+    @Test
+    void delimiterLineChangesTheDelimiter() {
+        String script = "DELIMITER //\n" +
+                "CREATE TRIGGER t BEFORE INSERT ON students FOR EACH ROW BEGIN SET NEW.gpa = 0; END//\n" +
+                "DELIMITER ;\n" +
+                "SELECT 1;";
+        assertEquals(Arrays.asList(
+                "CREATE TRIGGER t BEFORE INSERT ON students FOR EACH ROW BEGIN SET NEW.gpa = 0; END",
+                "SELECT 1"), SqlScript.split(script));
+    }
+
+    @Test
+    void dashCommentNeedsWhitespace() {
+        // "--1" is minus minus one, not a comment
+        assertEquals(Collections.singletonList("SELECT 5 --1"), SqlScript.split("SELECT 5 --1;"));
+        assertEquals(Arrays.asList("SELECT 1 -- ; not a delimiter", "SELECT 2"),
+                SqlScript.split("SELECT 1 -- ; not a delimiter\n;SELECT 2"));
+        assertEquals(Arrays.asList("SELECT 1 --\t;", "SELECT 2"),
+                SqlScript.split("SELECT 1 --\t;\n;SELECT 2"));
+    }
+
+    @Test
+    void delimiterInsideQuotesIsText() {
+        assertEquals(Collections.singletonList("SELECT 'a;b', \"c;d\", `e;f`"),
+                SqlScript.split("SELECT 'a;b', \"c;d\", `e;f`;"));
+    }
+
+    @Test
+    void backslashEscapesQuote() {
+        assertEquals(Arrays.asList("SELECT 'it\\'s; fine'", "SELECT 2"),
+                SqlScript.split("SELECT 'it\\'s; fine'; SELECT 2"));
+    }
+
+    @Test
+    void doubledQuoteEscapesQuote() {
+        assertEquals(Arrays.asList("SELECT 'it''s; fine'", "SELECT \"say \"\"hi;\"\"\""),
+                SqlScript.split("SELECT 'it''s; fine'; SELECT \"say \"\"hi;\"\"\";"));
+    }
+
+    @Test
+    void backslashIsLiteralInBackquotes() {
+        assertEquals(Arrays.asList("SELECT 1 AS `a\\`", "SELECT 2"),
+                SqlScript.split("SELECT 1 AS `a\\`; SELECT 2"));
+    }
+
+    @Test
+    void dropsCommentOnlyStatements() {
+        String script = "-- setup\n;\n# nothing here;\n/* or; here */;\nSELECT 1;";
+        assertEquals(Collections.singletonList("SELECT 1"), SqlScript.split(script));
+    }
+
+    @Test
+    void commentStaysWithNextStatement() {
+        assertEquals(Collections.singletonList("-- count them\nSELECT COUNT(*) FROM students"),
+                SqlScript.split("-- count them\nSELECT COUNT(*) FROM students;"));
+    }
+
+    @Test
+    void firstKeywordSkipsCommentsAndParentheses() {
+        assertEquals("SELECT", SqlScript.firstKeyword("/* hint */ (select 1) union (select 2)"));
+        assertEquals("UPDATE", SqlScript.firstKeyword("-- fix\n# grades\nupdate enrollments set grade = 'A'"));
+        assertEquals("", SqlScript.firstKeyword("-- only a comment"));
+    }
+
+    @Test
+    void classifiesStatements() {
+        assertTrue(SqlScript.isBatchable("insert into courses values (1)"));
+        assertFalse(SqlScript.isBatchable("SELECT 1"));
+        assertTrue(SqlScript.commitsImplicitly("/* x */ DROP TABLE t"));
+        assertFalse(SqlScript.commitsImplicitly("DELETE FROM t"));
+    }
+}
@@ -0,0 +1,112 @@
+package advancejavaproject4.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Record parsing of CsvReader
+ * @author yigitt
+ */
+class CsvReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsPlainRecords() throws IOException {
+        List<String[]> records = read("id,name\n1,Ada\n2,Alan\n");
+        assertEquals(3, records.size());
+        assertArrayEquals(new String[]{"id", "name"}, records.get(0));
+        assertArrayEquals(new String[]{"2", "Alan"}, records.get(2));
+    }
+
+    @Test
+    void keepsEmptyFields() throws IOException {
+        assertArrayEquals(new String[]{"a", "", ""}, read("a,,\n").get(0));
+        assertArrayEquals(new String[]{""}, read("\"\"\n").get(0));
+    }
+
+    @Test
+    void readsQuotedFields() throws IOException {
+        List<String[]> records = read("\"Smith, Jr.\",\"say \"\"hi\"\"\",\"two\nlines\"\n");
+        assertArrayEquals(new String[]{"Smith, Jr.", "say \"hi\"", "two\nlines"}, records.get(0));
+    }
+
+    @Test
+    void acceptsEveryLineEnding() throws IOException {
+        List<String[]> records = read("a\r\nb\rc\nd");
+        assertEquals(Arrays.asList("a", "b", "c", "d"), firstFields(records));
+    }
+
+    @Test
+    void skipsBlankLines() throws IOException {
+        List<String[]> records = read("a\n\n\r\nb\n\n");
+        assertEquals(Arrays.asList("a", "b"), firstFields(records));
+    }
+
+    @Test
+    void skipsByteOrderMark() throws IOException {
+        List<String[]> records = read("\uFEFFid,name\n1,Ada\n");
+        assertArrayEquals(new String[]{"id", "name"}, records.get(0));
+    }
+
+    @Test
+    void keepsByteOrderMarkAfterTheStart() throws IOException {
+        assertArrayEquals(new String[]{"\uFEFFa"}, read("x\n\uFEFFa\n").get(1));
+    }
+
+    @Test
+    void readsFieldsLongerThanTheBuffer() throws IOException {
+        char[] chars = new char[200_000];
+        Arrays.fill(chars, 'x');
+        String longField = new String(chars);
+        List<String[]> records = read("\"" + longField + "\",1\r\n2,3\r\n");
+        assertArrayEquals(new String[]{longField, "1"}, records.get(0));
+        assertArrayEquals(new String[]{"2", "3"}, records.get(1));
+    }
+
+    @Test
+    void countsRecords() throws IOException {
+        Path file = write("a\n\nb\n");
+        try (CsvReader reader = new CsvReader(file)) {
+            reader.readRecord();
+            reader.readRecord();
+            assertNull(reader.readRecord());
+            assertEquals(2, reader.getRecordNumber());
+        }
+    }
+
+    private List<String[]> read(String content) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(write(content))) {
+            String[] record;
+            while ((record = reader.readRecord()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.write(Files.createTempFile(directory, "test", ".csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> firstFields(List<String[]> records) {
+        List<String> fields = new ArrayList<>();
+        for (String[] record : records) {
+            fields.add(record[0]);
+        }
+        return fields;
+    }
+}